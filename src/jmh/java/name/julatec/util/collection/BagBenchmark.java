@@ -0,0 +1,80 @@
+package name.julatec.util.collection;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of {@link Bag#add} and {@link ConcurrentBag#add} when several threads count into the same bag.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+@Threads(4)
+public class BagBenchmark {
+
+    /**
+     * Number of distinct keys.
+     */
+    @Param({"16", "1024", "65536"})
+    int keys;
+
+    /**
+     * Shared synchronized bag.
+     */
+    Bag<Long, Long> bag;
+
+    /**
+     * Shared concurrent bag.
+     */
+    ConcurrentBag<Long, Long> concurrentBag;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        bag = new Bag<>(Long::sum);
+        concurrentBag = new ConcurrentBag<>(Long::sum);
+    }
+
+    /**
+     * Keys drawn by each thread, boxed up front so the benchmark measures the bag only.
+     */
+    @State(Scope.Thread)
+    public static class Keys {
+
+        /**
+         * Boxed random keys.
+         */
+        final Long[] values = new Long[1 << 12];
+
+        /**
+         * Position of the next key.
+         */
+        int next;
+
+        @Setup
+        public void setUp(BagBenchmark benchmark) {
+            final SplittableRandom random = new SplittableRandom(Thread.currentThread().getId());
+            for (int i = 0; i < values.length; i++) {
+                values[i] = (long) random.nextInt(benchmark.keys);
+            }
+        }
+
+        Long next() {
+            return values[next++ & (values.length - 1)];
+        }
+    }
+
+    @Benchmark
+    public Bag<Long, Long> add(Keys keys) {
+        return bag.add(keys.next(), 1L);
+    }
+
+    @Benchmark
+    public ConcurrentBag<Long, Long> concurrentAdd(Keys keys) {
+        return concurrentBag.add(keys.next(), 1L);
+    }
+}
@@ -0,0 +1,67 @@
+package name.julatec.util.collection;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.SplittableRandom;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of {@link Collections#groupBy} and {@link Collections#union} by input size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class CollectionsBenchmark {
+
+    /**
+     * Number of values.
+     */
+    @Param({"1000", "100000"})
+    int size;
+
+    /**
+     * Values to group, in random order.
+     */
+    List<Long> values;
+
+    /**
+     * Sorted set of the even values.
+     */
+    SortedSet<Long> even;
+
+    /**
+     * Sorted set of the multiples of three.
+     */
+    SortedSet<Long> third;
+
+    @Setup
+    public void setUp() {
+        final SplittableRandom random = new SplittableRandom(1);
+        values = new ArrayList<>(size);
+        even = new TreeSet<>();
+        third = new TreeSet<>();
+        for (int i = 0; i < size; i++) {
+            values.add((long) random.nextInt(size));
+            even.add(2L * i);
+            third.add(3L * i);
+        }
+    }
+
+    @Benchmark
+    public SortedMap<Long, SortedSet<Long>> groupBy() {
+        return Collections.groupBy(value -> value % 64, values.stream());
+    }
+
+    @Benchmark
+    public SortedSet<Long> union() {
+        return Collections.union(even, third);
+    }
+}
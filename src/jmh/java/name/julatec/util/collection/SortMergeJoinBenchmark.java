@@ -0,0 +1,90 @@
+package name.julatec.util.collection;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of {@link SortMergeJoin#merge} by input size and ratio of duplicated keys.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class SortMergeJoinBenchmark {
+
+    /**
+     * Number of values on each side.
+     */
+    @Param({"1000", "100000"})
+    int size;
+
+    /**
+     * Probability that a value repeats the key of the previous one.
+     */
+    @Param({"0", "0.5", "0.9"})
+    double duplicates;
+
+    /**
+     * Left input, in random order.
+     */
+    List<Long> left;
+
+    /**
+     * Right input, in random order.
+     */
+    List<Long> right;
+
+    /**
+     * Join that adds the keys of both sides.
+     */
+    final SortMergeJoin<Long, Long, Long> join = SortMergeJoin.ofNullable(
+            Long::compare,
+            (merged, value) -> merged == null ? value : merged + value,
+            (merged, value) -> merged == null ? value : merged + value,
+            Comparator.naturalOrder(),
+            Comparator.naturalOrder());
+
+    @Setup
+    public void setUp() {
+        left = keys(new SplittableRandom(1));
+        right = keys(new SplittableRandom(2));
+    }
+
+    /**
+     * Draws keys that step by one or two, so both sides share about half of their keys, and repeat with the given
+     * probability.
+     *
+     * @param random source of randomness.
+     * @return shuffled keys.
+     */
+    private List<Long> keys(SplittableRandom random) {
+        final List<Long> keys = new ArrayList<>(size);
+        long key = 0;
+        for (int i = 0; i < size; i++) {
+            if (random.nextDouble() >= duplicates) {
+                key += 1 + random.nextInt(2);
+            }
+            keys.add(key);
+        }
+        java.util.Collections.shuffle(keys, new java.util.Random(random.nextLong()));
+        return keys;
+    }
+
+    @Benchmark
+    public void merge(Blackhole blackhole) {
+        join.merge(left.stream(), right.stream()).forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public void innerMerge(Blackhole blackhole) {
+        join.merge(left.stream(), right.stream(), JoinType.INNER).forEach(blackhole::consume);
+    }
+}
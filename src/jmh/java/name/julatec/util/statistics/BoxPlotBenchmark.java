@@ -0,0 +1,78 @@
+package name.julatec.util.statistics;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Throughput of {@link BoxPlot#tee} by number of groups and histogram implementation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class BoxPlotBenchmark {
+
+    /**
+     * Number of distinct groups.
+     */
+    @Param({"1", "64", "4096"})
+    int groups;
+
+    /**
+     * Factory of the box plot.
+     */
+    @Param({"exact", "long", "logLinear"})
+    String histogram;
+
+    /**
+     * Observations, built up front so the benchmark measures the box plot only.
+     */
+    final Map.Entry<String, Long>[] entries = newEntries(1 << 12);
+
+    /**
+     * Position of the next observation.
+     */
+    int next;
+
+    /**
+     * Records each observation in the box plot.
+     */
+    Consumer<Map.Entry<String, Long>> tee;
+
+    @SuppressWarnings("unchecked")
+    private static Map.Entry<String, Long>[] newEntries(int size) {
+        return new Map.Entry[size];
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        final SplittableRandom random = new SplittableRandom(1);
+        for (int i = 0; i < entries.length; i++) {
+            entries[i] = Map.entry(String.format("G%04d", random.nextInt(groups)), (long) random.nextInt(-500, 600));
+        }
+        final BoxPlot<String, Long> boxPlot;
+        switch (histogram) {
+            case "long":
+                boxPlot = BoxPlot.ofLong();
+                break;
+            case "logLinear":
+                boxPlot = BoxPlot.ofLogLinear(-1_000, 1_000, 3);
+                break;
+            default:
+                boxPlot = new BoxPlot<>();
+        }
+        tee = boxPlot.tee(Function.identity());
+    }
+
+    @Benchmark
+    public void tee() {
+        tee.accept(entries[next++ & (entries.length - 1)]);
+    }
+}
@@ -0,0 +1,84 @@
+package name.julatec.util.statistics;
+
+import name.julatec.util.collection.Bag;
+import name.julatec.util.collection.LongCountBag;
+import name.julatec.util.collection.LongLongCountBag;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time of {@link FiveNumberSummary#from} by number of distinct values and kind of histogram.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class FiveNumberSummaryBenchmark {
+
+    /**
+     * Number of distinct values.
+     */
+    @Param({"1000", "100000"})
+    int size;
+
+    /**
+     * Generic bag of counts.
+     */
+    Bag<Long, Long> bag;
+
+    /**
+     * Bag of primitive counts.
+     */
+    LongCountBag<Long> longCountBag;
+
+    /**
+     * Bag of primitive values and counts.
+     */
+    LongLongCountBag longLongCountBag;
+
+    /**
+     * Histogram backed by a ranked bag.
+     */
+    ExactHistogram<Long> exactHistogram;
+
+    @Setup
+    public void setUp() {
+        final SplittableRandom random = new SplittableRandom(1);
+        bag = new Bag<>(Long::sum);
+        longCountBag = new LongCountBag<>();
+        longLongCountBag = new LongLongCountBag();
+        exactHistogram = new ExactHistogram<>();
+        for (long value = 0; value < size; value++) {
+            final long count = 1 + random.nextInt(16);
+            bag.add(value, count);
+            longCountBag.increment(value, count);
+            longLongCountBag.increment(value, count);
+            exactHistogram.record(Long.valueOf(value), count);
+        }
+    }
+
+    @Benchmark
+    public Optional<FiveNumberSummary<Long>> bag() {
+        return FiveNumberSummary.from(bag, (scalar, count) -> (long) (scalar * count));
+    }
+
+    @Benchmark
+    public Optional<FiveNumberSummary<Long>> longCountBag() {
+        return FiveNumberSummary.from(longCountBag);
+    }
+
+    @Benchmark
+    public Optional<FiveNumberSummary<Long>> longLongCountBag() {
+        return FiveNumberSummary.from(longLongCountBag);
+    }
+
+    @Benchmark
+    public Optional<FiveNumberSummary<Long>> exactHistogram() {
+        return exactHistogram.getSummary();
+    }
+}
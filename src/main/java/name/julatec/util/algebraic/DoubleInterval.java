@@ -0,0 +1,149 @@
+package name.julatec.util.algebraic;
+
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * This class represents a 1D interval of primitive doubles, it avoids the boxing of {@link Interval} on hot paths.
+ */
+public class DoubleInterval {
+
+    /**
+     * Lower bound.
+     */
+    public final double lower;
+
+    /**
+     * Whether includes the lower bound.
+     */
+    public final boolean lowerOpen;
+
+    /**
+     * Upper bound.
+     */
+    public final double upper;
+
+    /**
+     * Whether includes the upper bound.
+     */
+    public final boolean upperOpen;
+
+    /**
+     * Defines a interval with the given lower and upper bound and the indications whether the bounds are open.
+     *
+     * @param lower     lower bound.
+     * @param lowerOpen whether lower bound is open.
+     * @param upper     upper bound.
+     * @param upperOpen whether upper bound is open.
+     */
+    public DoubleInterval(double lower, boolean lowerOpen, double upper, boolean upperOpen) {
+        this.lower = lower;
+        this.lowerOpen = lowerOpen;
+        this.upper = upper;
+        this.upperOpen = upperOpen;
+    }
+
+    /**
+     * Defines a closed interval with the given lower and upper bound.
+     *
+     * @param lower lower bound.
+     * @param upper upper bound.
+     * @return new DoubleInterval instance.
+     */
+    public static DoubleInterval of(double lower, double upper) {
+        return new DoubleInterval(lower, false, upper, false);
+    }
+
+    /**
+     * Defines a interval with the given lower and upper bound and the indications whether the bounds are open.
+     *
+     * @param lower     lower bound.
+     * @param lowerOpen whether lower bound is open.
+     * @param upper     upper bound.
+     * @param upperOpen whether upper bound is open.
+     * @return new DoubleInterval instance.
+     */
+    public static DoubleInterval of(double lower, boolean lowerOpen, double upper, boolean upperOpen) {
+        return new DoubleInterval(lower, lowerOpen, upper, upperOpen);
+    }
+
+    /**
+     * Defines a interval with the bounds of the given interval.
+     *
+     * @param interval interval to unbox.
+     * @param <N>      Type of the interval.
+     * @return new DoubleInterval instance.
+     */
+    public static <N extends Number & Comparable<N>> DoubleInterval from(Interval<N> interval) {
+        return new DoubleInterval(
+                interval.lower.doubleValue(), interval.lowerOpen,
+                interval.upper.doubleValue(), interval.upperOpen);
+    }
+
+    /**
+     * Checks if a value is contained in the bounds, following the semantics of {@link Interval#contains}.
+     *
+     * @param value value to test
+     * @return true if value is inside the bounds, otherwise false.
+     */
+    public boolean contains(double value) {
+        if (lower > value || upper < value) {
+            return false;
+        }
+        if (!lowerOpen && lower == value) {
+            return true;
+        }
+        if (!upperOpen && upper == value) {
+            return true;
+        }
+        return lower < value && upper > value;
+    }
+
+    /**
+     * Provides a projection function that scales using linear Scale from this interval to the target interval. The
+     * bounds and ranges are computed once, so each application is a subtraction, a division and a multiplication on
+     * primitives.
+     *
+     * @param target target interval to scale.
+     * @return linear scalar function from this interval to target interval.
+     */
+    public DoubleUnaryOperator scale(DoubleInterval target) {
+        final double sourceLower = lower;
+        final double sourceRange = upper - lower;
+        final double targetLower = target.lower;
+        final double targetRange = target.upper - target.lower;
+        return n -> targetLower + targetRange * ((n - sourceLower) / sourceRange);
+    }
+
+    /**
+     * Scales all the given values from this interval to the target interval, like {@link #scale(DoubleInterval)}.
+     *
+     * @param target target interval to scale.
+     * @param in     values to scale.
+     * @param out    receives the scaled values, at least as long as {@code in}. It may be {@code in} itself.
+     */
+    public void scaleAll(DoubleInterval target, double[] in, double[] out) {
+        if (out.length < in.length) {
+            throw new IllegalArgumentException("Output is shorter than input: " + out.length + " < " + in.length);
+        }
+        final double sourceRange = upper - lower;
+        final double targetLower = target.lower;
+        final double targetRange = target.upper - target.lower;
+        for (int i = 0; i < in.length; i++) {
+            out[i] = targetLower + targetRange * ((in[i] - lower) / sourceRange);
+        }
+    }
+
+    /**
+     * Boxes this interval.
+     *
+     * @return an {@link Interval} with the same bounds.
+     */
+    public Interval<Double> toInterval() {
+        return new Interval<>(lower, lowerOpen, upper, upperOpen);
+    }
+
+    @Override
+    public String toString() {
+        return (lowerOpen ? "]" : "[") + lower + ", " + upper + (upperOpen ? "[" : "]");
+    }
+}
@@ -93,6 +93,41 @@ public class Interval<T extends Comparable<T>> {
         return lowerTest < 0 && upperTest > 0;
     }
 
+    /**
+     * Checks if this interval shares at least one value with the given interval. Two intervals that meet at a bound
+     * overlap only if both of them include the bound.
+     *
+     * @param that interval to test.
+     * @return true if both intervals share a value, otherwise false.
+     */
+    public boolean overlaps(Interval<T> that) {
+        return !this.endsBefore(that) && !that.endsBefore(this);
+    }
+
+    /**
+     * Checks if every value of this interval is lower than every value of the given interval.
+     *
+     * @param that interval to test.
+     * @return true if this interval ends before the given interval starts.
+     */
+    public boolean endsBefore(Interval<T> that) {
+        final int comparison = upper.compareTo(that.lower);
+        return comparison < 0 || comparison == 0 && (upperOpen || that.lowerOpen);
+    }
+
+    /**
+     * Compares the lower bounds of the given intervals, a closed bound is lower than an open bound with the same value.
+     *
+     * @param a   first interval.
+     * @param b   second interval.
+     * @param <T> Type of the bounds.
+     * @return comparison of the lower bounds.
+     */
+    public static <T extends Comparable<T>> int compareLower(Interval<T> a, Interval<T> b) {
+        final int comparison = a.lower.compareTo(b.lower);
+        return comparison != 0 ? comparison : Boolean.compare(a.lowerOpen, b.lowerOpen);
+    }
+
     /**
      * Provides a projection function that scales using linear Scale from the source interval to the target interval.
      *
@@ -107,13 +142,11 @@ public class Interval<T extends Comparable<T>> {
             Interval<N> source,
             Interval<M> target,
             Function<Double, M> mapping) {
-        final double sourceRange = source.upper.doubleValue() - source.lower.floatValue();
-        final double targetRange = target.upper.doubleValue() - target.lower.floatValue();
-        return n -> {
-            double doubleValue = target.lower.doubleValue() +
-                    targetRange * ((n.doubleValue() - source.lower.doubleValue()) / sourceRange);
-            return mapping.apply(doubleValue);
-        };
+        final double sourceLower = source.lower.doubleValue();
+        final double targetLower = target.lower.doubleValue();
+        final double sourceRange = source.upper.doubleValue() - sourceLower;
+        final double targetRange = target.upper.doubleValue() - targetLower;
+        return n -> mapping.apply(targetLower + targetRange * ((n.doubleValue() - sourceLower) / sourceRange));
     }
 
     @Override
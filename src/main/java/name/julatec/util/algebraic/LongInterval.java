@@ -0,0 +1,163 @@
+package name.julatec.util.algebraic;
+
+import java.util.function.LongToIntFunction;
+
+/**
+ * This class represents a 1D interval of primitive longs, it avoids the boxing of {@link Interval} on hot paths.
+ */
+public class LongInterval {
+
+    /**
+     * Lower bound.
+     */
+    public final long lower;
+
+    /**
+     * Whether includes the lower bound.
+     */
+    public final boolean lowerOpen;
+
+    /**
+     * Upper bound.
+     */
+    public final long upper;
+
+    /**
+     * Whether includes the upper bound.
+     */
+    public final boolean upperOpen;
+
+    /**
+     * Defines a interval with the given lower and upper bound and the indications whether the bounds are open.
+     *
+     * @param lower     lower bound.
+     * @param lowerOpen whether lower bound is open.
+     * @param upper     upper bound.
+     * @param upperOpen whether upper bound is open.
+     */
+    public LongInterval(long lower, boolean lowerOpen, long upper, boolean upperOpen) {
+        this.lower = lower;
+        this.lowerOpen = lowerOpen;
+        this.upper = upper;
+        this.upperOpen = upperOpen;
+    }
+
+    /**
+     * Defines a closed interval with the given lower and upper bound.
+     *
+     * @param lower lower bound.
+     * @param upper upper bound.
+     * @return new LongInterval instance.
+     */
+    public static LongInterval of(long lower, long upper) {
+        return new LongInterval(lower, false, upper, false);
+    }
+
+    /**
+     * Defines a interval with the given lower and upper bound and the indications whether the bounds are open.
+     *
+     * @param lower     lower bound.
+     * @param lowerOpen whether lower bound is open.
+     * @param upper     upper bound.
+     * @param upperOpen whether upper bound is open.
+     * @return new LongInterval instance.
+     */
+    public static LongInterval of(long lower, boolean lowerOpen, long upper, boolean upperOpen) {
+        return new LongInterval(lower, lowerOpen, upper, upperOpen);
+    }
+
+    /**
+     * Defines a interval with the bounds of the given interval.
+     *
+     * @param interval interval to unbox.
+     * @return new LongInterval instance.
+     */
+    public static LongInterval from(Interval<Long> interval) {
+        return new LongInterval(interval.lower, interval.lowerOpen, interval.upper, interval.upperOpen);
+    }
+
+    /**
+     * Checks if a value is contained in the bounds, following the semantics of {@link Interval#contains}.
+     *
+     * @param value value to test
+     * @return true if value is inside the bounds, otherwise false.
+     */
+    public boolean contains(long value) {
+        if (lower > value || upper < value) {
+            return false;
+        }
+        if (!lowerOpen && lower == value) {
+            return true;
+        }
+        if (!upperOpen && upper == value) {
+            return true;
+        }
+        return lower < value && upper > value;
+    }
+
+    /**
+     * Provides a projection function that scales using linear Scale from this interval to the target interval,
+     * truncating the result to an int. The bounds and ranges are computed once, so each application is a subtraction,
+     * a division and a multiplication on primitives. Ranges wider than {@link Long#MAX_VALUE} are computed with doubles
+     * instead of overflowing.
+     *
+     * @param target target interval to scale.
+     * @return linear scalar function from this interval to target interval.
+     */
+    public LongToIntFunction scale(LongInterval target) {
+        final double sourceRange = difference(upper, lower);
+        final double targetLower = target.lower;
+        final double targetRange = difference(target.upper, target.lower);
+        final long sourceLower = lower;
+        return n -> (int) (targetLower + targetRange * (difference(n, sourceLower) / sourceRange));
+    }
+
+    /**
+     * Scales all the given values from this interval to the target interval, like {@link #scale(LongInterval)}.
+     *
+     * @param target target interval to scale.
+     * @param in     values to scale.
+     * @param out    receives the scaled values, at least as long as {@code in}.
+     */
+    public void scaleAll(LongInterval target, long[] in, int[] out) {
+        if (out.length < in.length) {
+            throw new IllegalArgumentException("Output is shorter than input: " + out.length + " < " + in.length);
+        }
+        final double sourceRange = difference(upper, lower);
+        final double targetLower = target.lower;
+        final double targetRange = difference(target.upper, target.lower);
+        for (int i = 0; i < in.length; i++) {
+            out[i] = (int) (targetLower + targetRange * (difference(in[i], lower) / sourceRange));
+        }
+    }
+
+    /**
+     * Subtracts two longs exactly when the difference fits in a long, and with doubles when it overflows.
+     *
+     * @param minuend    value to subtract from.
+     * @param subtrahend value to subtract.
+     * @return difference of the values.
+     */
+    static double difference(long minuend, long subtrahend) {
+        final long difference = minuend - subtrahend;
+        // The subtraction overflows when the operands have different signs and the result has the subtrahend sign.
+        if (((minuend ^ subtrahend) & (minuend ^ difference)) < 0) {
+            return (double) minuend - (double) subtrahend;
+        }
+        return difference;
+    }
+
+    /**
+     * Boxes this interval.
+     *
+     * @return an {@link Interval} with the same bounds.
+     */
+    public Interval<Long> toInterval() {
+        return new Interval<>(lower, lowerOpen, upper, upperOpen);
+    }
+
+    @Override
+    public String toString() {
+        return (lowerOpen ? "]" : "[") + lower + ", " + upper + (upperOpen ? "[" : "]");
+    }
+}
@@ -23,7 +23,7 @@ public class Bag<K extends Comparable<K>, V> implements Iterable<Map.Entry<K, V>
     /**
      * Underlying target collection.
      */
-    private final TreeMap<K, V> target;
+    private final NavigableMap<K, V> target;
 
     /**
      * Binary operator that defines the group {@link V}.
@@ -36,8 +36,18 @@ public class Bag<K extends Comparable<K>, V> implements Iterable<Map.Entry<K, V>
      * @param add binary operator that defines the group {@link V}.
      */
     public Bag(BinaryOperator<V> add) {
+        this(add, new TreeMap<>());
+    }
+
+    /**
+     * Defines the new bag using the given binary operator and underlying target collection.
+     *
+     * @param add    binary operator that defines the group {@link V}.
+     * @param target underlying target collection.
+     */
+    protected Bag(BinaryOperator<V> add, NavigableMap<K, V> target) {
         this.add = add;
-        this.target = new TreeMap<>();
+        this.target = target;
     }
 
     /**
@@ -93,10 +103,30 @@ public class Bag<K extends Comparable<K>, V> implements Iterable<Map.Entry<K, V>
      * @return this instance.
      */
     public synchronized Bag<K, V> add(K key, V count) {
-        target.merge(key, count, add);
+        mergeCount(key, count);
         return this;
     }
 
+    /**
+     * Combines the given count with the count already associated to the key, without locking this instance.
+     *
+     * @param key   key to include
+     * @param count value to add
+     */
+    protected final void mergeCount(K key, V count) {
+        target.merge(key, count, add);
+    }
+
+    /**
+     * Copies this bag into a read-only {@link FrozenBag}, whose entries are kept in sorted arrays with their
+     * cumulative values, for bags that are only summarized after they are filled.
+     *
+     * @return frozen copy of this bag.
+     */
+    public synchronized FrozenBag<K, V> freeze() {
+        return new FrozenBag<>(add, target);
+    }
+
     /**
      * Gets the count associated with the value.
      *
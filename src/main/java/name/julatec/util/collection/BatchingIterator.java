@@ -0,0 +1,154 @@
+package name.julatec.util.collection;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Decorates an iterator to read its elements in batches into a reusable array, supporting a lookahead of up to the
+ * batch size. The elements are pulled from the underlying iterator only when the batch is drained, so the iteration
+ * itself is a read from the array. The iterator may return {@code null} elements.
+ * <p>
+ * This is a standalone utility for consumers that peek several elements ahead. The joins and merges of this package
+ * keep a {@link LookAheadIterator} of one element instead: reading a batch ahead would pull elements before they are
+ * needed, so an order violation would surface earlier, before the results of the elements preceding it are produced,
+ * and a short-circuiting consumer would read up to a batch more of its inputs.
+ *
+ * @param <T> Type of the elements.
+ */
+public final class BatchingIterator<T> implements Iterator<T> {
+
+    /**
+     * Default number of elements of a batch.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 256;
+
+    /**
+     * Underlying iterator.
+     */
+    private final Iterator<T> target;
+
+    /**
+     * Elements read from the underlying iterator.
+     */
+    private final Object[] buffer;
+
+    /**
+     * Position of the next element in the buffer.
+     */
+    private int position;
+
+    /**
+     * End of the elements in the buffer, exclusive.
+     */
+    private int limit;
+
+    /**
+     * Decorates the given target iterator with the default batch size.
+     *
+     * @param target underlying iterator.
+     */
+    public BatchingIterator(Iterator<T> target) {
+        this(target, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Decorates the given target iterator.
+     *
+     * @param target    underlying iterator.
+     * @param batchSize number of elements of a batch, and maximum lookahead.
+     */
+    public BatchingIterator(Iterator<T> target, int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.target = target;
+        this.buffer = new Object[batchSize];
+    }
+
+    @Override
+    public boolean hasNext() {
+        return position < limit || fill(1);
+    }
+
+    /**
+     * Whether the iteration has at least the given number of elements.
+     *
+     * @param count number of elements, up to the batch size.
+     * @return true if the iteration has at least {@code count} more elements.
+     */
+    public boolean hasNext(int count) {
+        checkLookahead(count - 1);
+        return limit - position >= count || fill(count);
+    }
+
+    @Override
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final T result = element(position);
+        buffer[position++] = null;
+        return result;
+    }
+
+    /**
+     * Returns the element at the given distance ahead, without advancing the iteration.
+     *
+     * @param n distance ahead of the element, zero for the next element, lower than the batch size.
+     * @return the element.
+     * @throws NoSuchElementException if the iteration has no element at the given distance.
+     */
+    public T peek(int n) {
+        checkLookahead(n);
+        if (!hasNext(n + 1)) {
+            throw new NoSuchElementException();
+        }
+        return element(position + n);
+    }
+
+    /**
+     * Drains the buffered elements into the action, then hands the action to the underlying iterator.
+     *
+     * @param action consumer of the elements.
+     */
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        while (position < limit) {
+            action.accept(next());
+        }
+        target.forEachRemaining(action);
+    }
+
+    /**
+     * Moves the buffered elements to the start of the buffer and reads elements until the buffer is full.
+     *
+     * @param count number of elements needed.
+     * @return true if at least {@code count} elements are buffered.
+     */
+    private boolean fill(int count) {
+        if (position > 0) {
+            final int remaining = limit - position;
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+            Arrays.fill(buffer, remaining, limit, null);
+            position = 0;
+            limit = remaining;
+        }
+        while (limit < buffer.length && target.hasNext()) {
+            buffer[limit++] = target.next();
+        }
+        return limit >= count;
+    }
+
+    private void checkLookahead(int n) {
+        if (n < 0 || n >= buffer.length) {
+            throw new IllegalArgumentException("Lookahead must be between 0 and " + (buffer.length - 1) + ": " + n);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T element(int index) {
+        return (T) buffer[index];
+    }
+}
@@ -0,0 +1,31 @@
+package name.julatec.util.collection;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Defines how to write a value into a binary stream and how to read it back, so the value can be spilled to disk.
+ *
+ * @param <T> Type of the value.
+ */
+public interface Codec<T> {
+
+    /**
+     * Writes the given value into the output.
+     *
+     * @param output target of the value.
+     * @param value  value to write.
+     * @throws IOException if the value cannot be written.
+     */
+    void write(DataOutput output, T value) throws IOException;
+
+    /**
+     * Reads a value written by {@link Codec#write(DataOutput, Object)} from the input.
+     *
+     * @param input source of the value.
+     * @return value read.
+     * @throws IOException if the value cannot be read.
+     */
+    T read(DataInput input) throws IOException;
+}
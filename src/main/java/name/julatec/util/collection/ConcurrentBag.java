@@ -0,0 +1,75 @@
+package name.julatec.util.collection;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.BinaryOperator;
+import java.util.stream.Collector;
+
+/**
+ * Defines a {@link Bag} that can be fed concurrently by multiple threads without serializing on a single monitor.
+ * <p>
+ * The entries are kept in a {@link ConcurrentSkipListMap}, so {@link ConcurrentBag#add(Object, Object)} merges the
+ * counts with a lock-free compare-and-set loop. Because of that, the binary operator is applied again whenever another
+ * thread replaces the same count concurrently, so it must not rely on being applied exactly once. Operators that
+ * return a new value ({@code Long::sum}) or that update and return the current value ({@code Bag::merge}) are safe.
+ *
+ * @param <K> The Key type of the collection.
+ * @param <V> Group type defined by the binary operator.
+ */
+public class ConcurrentBag<K extends Comparable<K>, V> extends Bag<K, V> {
+
+    /**
+     * Defines the new bag using the given binary operator.
+     *
+     * @param add binary operator that defines the group {@link V}.
+     */
+    public ConcurrentBag(BinaryOperator<V> add) {
+        super(add, new ConcurrentSkipListMap<>());
+    }
+
+    @Override
+    public ConcurrentBag<K, V> merge(Bag<K, V> that) {
+        super.merge(that);
+        return this;
+    }
+
+    @Override
+    public ConcurrentBag<K, V> add(Map.Entry<K, V> entry) {
+        return add(entry.getKey(), entry.getValue());
+    }
+
+    /**
+     * Adds the given entry to the bag. Unlike {@link Bag#add(Object, Object)}, this method does not lock the
+     * instance.
+     *
+     * @param key   key to include
+     * @param count value to add
+     * @return this instance.
+     */
+    @Override
+    public ConcurrentBag<K, V> add(K key, V count) {
+        mergeCount(key, count);
+        return this;
+    }
+
+    /**
+     * Creates a concurrent Bag Collector using the given binary operator. All the threads of a parallel stream
+     * accumulate into the same bag instead of merging one bag per thread.
+     *
+     * @param add operator to combine two given values.
+     * @param <K> Key type.
+     * @param <V> value type.
+     * @return a new concurrent Bag Collector.
+     */
+    public static <K extends Comparable<K>, V>
+    Collector<Map.Entry<K, V>, ?, ConcurrentBag<K, V>>
+    collectConcurrent(BinaryOperator<V> add) {
+        return Collector.of(
+                () -> new ConcurrentBag<>(add),
+                ConcurrentBag::add,
+                ConcurrentBag::merge,
+                Collector.Characteristics.CONCURRENT,
+                Collector.Characteristics.UNORDERED,
+                Collector.Characteristics.IDENTITY_FINISH);
+    }
+}
@@ -0,0 +1,410 @@
+package name.julatec.util.collection;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.util.Spliterators.spliteratorUnknownSize;
+
+/**
+ * Sorts streams that may not fit in memory. The stream is read in runs of at most {@code runSize} values, each run is
+ * sorted in memory and spilled to a temporary file with the given {@link Codec}, and the runs are merged back with a
+ * heap of their heads, so only {@code runSize} values and one value per open run are kept in memory.
+ * <p>
+ * At most {@code fanIn} runs are open at once: while there are more runs, consecutive groups of {@code fanIn} runs are
+ * merged into longer runs on disk, so a long stream does not exhaust the file handles. The buffer of a run grows with
+ * the values it holds, so a short stream does not allocate the whole run. A stream that fits in a single run is sorted
+ * in memory without touching the disk. The temporary files are deleted when the sorted stream is closed, or when the
+ * sort fails.
+ *
+ * @param <T> Type of the values.
+ */
+public final class ExternalSort<T> {
+
+    /**
+     * Default maximum number of runs merged at once.
+     */
+    public static final int DEFAULT_FAN_IN = 64;
+
+    /**
+     * Initial capacity of the buffer of a run.
+     */
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    /**
+     * Order of the values.
+     */
+    private final Comparator<? super T> comparator;
+
+    /**
+     * Writes the values to the runs and reads them back.
+     */
+    private final Codec<T> codec;
+
+    /**
+     * Maximum number of values sorted in memory.
+     */
+    private final int runSize;
+
+    /**
+     * Directory of the temporary files, or {@code null} for the default temporary directory.
+     */
+    private final Path directory;
+
+    /**
+     * Maximum number of runs merged at once.
+     */
+    private final int fanIn;
+
+    /**
+     * Defines an external sort that spills its runs to the default temporary directory.
+     *
+     * @param comparator order of the values.
+     * @param codec      writes the values to the runs and reads them back.
+     * @param runSize    maximum number of values sorted in memory.
+     */
+    public ExternalSort(Comparator<? super T> comparator, Codec<T> codec, int runSize) {
+        this(comparator, codec, runSize, null);
+    }
+
+    /**
+     * Defines an external sort that spills its runs to the given directory.
+     *
+     * @param comparator order of the values.
+     * @param codec      writes the values to the runs and reads them back.
+     * @param runSize    maximum number of values sorted in memory.
+     * @param directory  directory of the temporary files, or {@code null} for the default temporary directory.
+     */
+    public ExternalSort(Comparator<? super T> comparator, Codec<T> codec, int runSize, Path directory) {
+        this(comparator, codec, runSize, directory, DEFAULT_FAN_IN);
+    }
+
+    /**
+     * Defines an external sort that spills its runs to the given directory and merges at most the given number of runs
+     * at once.
+     *
+     * @param comparator order of the values.
+     * @param codec      writes the values to the runs and reads them back.
+     * @param runSize    maximum number of values sorted in memory.
+     * @param directory  directory of the temporary files, or {@code null} for the default temporary directory.
+     * @param fanIn      maximum number of runs merged at once, at least 2.
+     */
+    public ExternalSort(Comparator<? super T> comparator, Codec<T> codec, int runSize, Path directory, int fanIn) {
+        if (runSize <= 0) {
+            throw new IllegalArgumentException("Run size must be positive: " + runSize);
+        }
+        if (fanIn < 2) {
+            throw new IllegalArgumentException("Fan-in must be at least 2: " + fanIn);
+        }
+        this.comparator = comparator;
+        this.codec = codec;
+        this.runSize = runSize;
+        this.directory = directory;
+        this.fanIn = fanIn;
+    }
+
+    /**
+     * Sorts the given stream. The stream is fully read before the first sorted value is returned.
+     *
+     * @param stream stream to sort.
+     * @return sorted stream, that must be closed to delete its temporary files.
+     * @throws UncheckedIOException if a run cannot be written.
+     */
+    public Stream<T> sort(Stream<T> stream) {
+        List<Path> runs = new ArrayList<>();
+        Object[] buffer = new Object[Math.min(runSize, INITIAL_CAPACITY)];
+        int size = 0;
+        try {
+            final Iterator<T> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                if (size == runSize) {
+                    runs.add(spill(buffer, size));
+                    size = 0;
+                } else if (size == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, (int) Math.min(runSize, 2L * buffer.length));
+                }
+                buffer[size++] = iterator.next();
+            }
+            if (runs.isEmpty()) {
+                return StreamSupport.stream(Arrays.spliterator(sort(buffer, size), 0, size), false);
+            }
+            runs.add(spill(buffer, size));
+            buffer = null;
+            while (runs.size() > fanIn) {
+                runs = pass(runs);
+            }
+        } catch (IOException e) {
+            delete(runs);
+            throw new UncheckedIOException(e);
+        } catch (RuntimeException e) {
+            delete(runs);
+            throw e;
+        }
+        final Merge merge = new Merge(runs);
+        final Spliterator<T> spliterator = spliteratorUnknownSize(merge, Spliterator.ORDERED);
+        return StreamSupport.stream(spliterator, false).onClose(merge::close);
+    }
+
+    /**
+     * Sorts the first values of the buffer.
+     *
+     * @param buffer values to sort.
+     * @param size   number of values to sort.
+     * @return the buffer.
+     */
+    @SuppressWarnings("unchecked")
+    private T[] sort(Object[] buffer, int size) {
+        final T[] values = (T[]) buffer;
+        Arrays.sort(values, 0, size, comparator);
+        return values;
+    }
+
+    /**
+     * Sorts the first values of the buffer and writes them to a new temporary file.
+     *
+     * @param buffer values to spill.
+     * @param size   number of values to spill.
+     * @return path of the run.
+     * @throws IOException if the run cannot be written.
+     */
+    private Path spill(Object[] buffer, int size) throws IOException {
+        final T[] values = sort(buffer, size);
+        final Path run = createRun();
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run)))) {
+            output.writeLong(size);
+            for (int i = 0; i < size; i++) {
+                codec.write(output, values[i]);
+                values[i] = null;
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(run);
+            throw e;
+        }
+        return run;
+    }
+
+    /**
+     * Merges each group of {@code fanIn} consecutive runs into a single run, deleting the merged runs. The order of the
+     * runs is kept, so the sort stays stable.
+     *
+     * @param runs runs to merge.
+     * @return merged runs.
+     * @throws IOException if a run cannot be read or written.
+     */
+    private List<Path> pass(List<Path> runs) throws IOException {
+        final List<Path> merged = new ArrayList<>();
+        try {
+            for (int from = 0; from < runs.size(); from += fanIn) {
+                final List<Path> group = new ArrayList<>(runs.subList(from, Math.min(runs.size(), from + fanIn)));
+                if (group.size() == 1) {
+                    merged.add(group.get(0));
+                } else {
+                    merged.add(merge(group));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            delete(merged);
+            throw e;
+        }
+        return merged;
+    }
+
+    /**
+     * Merges the given runs into a new temporary file, deleting the given runs.
+     *
+     * @param group runs to merge.
+     * @return path of the merged run.
+     * @throws IOException if a run cannot be read or written.
+     */
+    private Path merge(List<Path> group) throws IOException {
+        try (Merge merge = new Merge(group)) {
+            final Path run = createRun();
+            try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run)))) {
+                output.writeLong(merge.size);
+                while (merge.hasNext()) {
+                    codec.write(output, merge.next());
+                }
+            } catch (IOException | RuntimeException e) {
+                Files.deleteIfExists(run);
+                throw e;
+            }
+            return run;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Creates an empty temporary file for a run.
+     *
+     * @return path of the run.
+     * @throws IOException if the file cannot be created.
+     */
+    private Path createRun() throws IOException {
+        return directory == null
+                ? Files.createTempFile("external-sort", ".run")
+                : Files.createTempFile(directory, "external-sort", ".run");
+    }
+
+    /**
+     * Deletes the given runs, ignoring the files that cannot be deleted.
+     *
+     * @param runs runs to delete.
+     */
+    private static void delete(List<Path> runs) {
+        for (Path run : runs) {
+            try {
+                Files.deleteIfExists(run);
+            } catch (IOException e) {
+                // The file is in the temporary directory, it is left for the system to clean up.
+            }
+        }
+    }
+
+    /**
+     * Sequential reader of a sorted run.
+     */
+    private final class Run {
+
+        /**
+         * Index of the run, breaks the ties between runs so the sort is stable.
+         */
+        private final int index;
+
+        /**
+         * Input of the run.
+         */
+        private final DataInputStream input;
+
+        /**
+         * Number of values left to read.
+         */
+        private long remaining;
+
+        /**
+         * Current value of the run.
+         */
+        private T head;
+
+        private Run(int index, Path path) throws IOException {
+            this.index = index;
+            this.input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+            this.remaining = input.readLong();
+        }
+
+        /**
+         * Reads the next value of the run.
+         *
+         * @return false if the run is exhausted.
+         * @throws IOException if the value cannot be read.
+         */
+        private boolean advance() throws IOException {
+            if (remaining == 0) {
+                head = null;
+                return false;
+            }
+            remaining--;
+            head = codec.read(input);
+            return true;
+        }
+    }
+
+    /**
+     * K-way merge of the sorted runs, keeping the head of each run in a heap.
+     */
+    private final class Merge implements Iterator<T>, Closeable {
+
+        /**
+         * Paths of the runs.
+         */
+        private final List<Path> paths;
+
+        /**
+         * Opened runs.
+         */
+        private final List<Run> runs = new ArrayList<>();
+
+        /**
+         * Runs with remaining values, by their head.
+         */
+        private final PriorityQueue<Run> heap;
+
+        /**
+         * Number of values of the runs.
+         */
+        private long size;
+
+        private Merge(List<Path> paths) {
+            this.paths = paths;
+            this.heap = new PriorityQueue<>(paths.size(), (a, b) -> {
+                final int comparison = comparator.compare(a.head, b.head);
+                return comparison != 0 ? comparison : Integer.compare(a.index, b.index);
+            });
+            try {
+                for (Path path : paths) {
+                    final Run run = new Run(runs.size(), path);
+                    runs.add(run);
+                    size += run.remaining;
+                    if (run.advance()) {
+                        heap.add(run);
+                    }
+                }
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !heap.isEmpty();
+        }
+
+        @Override
+        public T next() {
+            final Run run = heap.poll();
+            if (run == null) {
+                throw new NoSuchElementException();
+            }
+            final T value = run.head;
+            try {
+                if (run.advance()) {
+                    heap.add(run);
+                }
+            } catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            }
+            return value;
+        }
+
+        @Override
+        public void close() {
+            for (Run run : runs) {
+                try {
+                    run.input.close();
+                } catch (IOException e) {
+                    // The run is deleted next, a failure to close it does not leak the values.
+                }
+            }
+            heap.clear();
+            delete(paths);
+        }
+    }
+}
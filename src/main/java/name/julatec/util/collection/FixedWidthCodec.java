@@ -0,0 +1,110 @@
+package name.julatec.util.collection;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Defines how to write a value into a fixed number of bytes of a buffer and how to read it back, so values can be
+ * stored side by side out of the heap and found by position.
+ *
+ * @param <T> Type of the value.
+ */
+public interface FixedWidthCodec<T> {
+
+    /**
+     * Gets the number of bytes of every encoded value.
+     *
+     * @return width of the encoded values.
+     */
+    int width();
+
+    /**
+     * Writes the given value at the given position of the buffer, without moving the position of the buffer.
+     *
+     * @param buffer target of the value.
+     * @param index  position of the value in the buffer.
+     * @param value  value to write.
+     */
+    void write(ByteBuffer buffer, int index, T value);
+
+    /**
+     * Reads the value written by {@link FixedWidthCodec#write(ByteBuffer, int, Object)} at the given position of the
+     * buffer, without moving the position of the buffer.
+     *
+     * @param buffer source of the value.
+     * @param index  position of the value in the buffer.
+     * @return value read.
+     */
+    T read(ByteBuffer buffer, int index);
+
+    /**
+     * Codec of {@code long} values in eight bytes.
+     *
+     * @return codec of longs.
+     */
+    static FixedWidthCodec<Long> ofLong() {
+        return new FixedWidthCodec<>() {
+            @Override
+            public int width() {
+                return Long.BYTES;
+            }
+
+            @Override
+            public void write(ByteBuffer buffer, int index, Long value) {
+                buffer.putLong(index, value);
+            }
+
+            @Override
+            public Long read(ByteBuffer buffer, int index) {
+                return buffer.getLong(index);
+            }
+        };
+    }
+
+    /**
+     * Codec of {@code int} values in four bytes.
+     *
+     * @return codec of integers.
+     */
+    static FixedWidthCodec<Integer> ofInteger() {
+        return new FixedWidthCodec<>() {
+            @Override
+            public int width() {
+                return Integer.BYTES;
+            }
+
+            @Override
+            public void write(ByteBuffer buffer, int index, Integer value) {
+                buffer.putInt(index, value);
+            }
+
+            @Override
+            public Integer read(ByteBuffer buffer, int index) {
+                return buffer.getInt(index);
+            }
+        };
+    }
+
+    /**
+     * Codec of {@code double} values in eight bytes.
+     *
+     * @return codec of doubles.
+     */
+    static FixedWidthCodec<Double> ofDouble() {
+        return new FixedWidthCodec<>() {
+            @Override
+            public int width() {
+                return Double.BYTES;
+            }
+
+            @Override
+            public void write(ByteBuffer buffer, int index, Double value) {
+                buffer.putDouble(index, value);
+            }
+
+            @Override
+            public Double read(ByteBuffer buffer, int index) {
+                return buffer.getDouble(index);
+            }
+        };
+    }
+}
@@ -0,0 +1,248 @@
+package name.julatec.util.collection;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.function.BinaryOperator;
+
+/**
+ * Read-only bag whose entries are kept in parallel arrays sorted by key, returned by {@link Bag#freeze()} once a bag
+ * has been filled and is only summarized afterwards.
+ * <p>
+ * Lookups are binary searches over the keys, iteration walks the arrays in key order, and the cumulative values are
+ * computed once when the bag is frozen, so the total and the key at a given cumulative value, such as a quantile, are
+ * found in {@code O(log n)} without walking the entries. The spliterator of the bag splits its range of positions in
+ * halves, so parallel streams over the entries divide the work evenly.
+ *
+ * @param <K> The Key type of the collection.
+ * @param <V> Group type defined by the binary operator.
+ */
+public final class FrozenBag<K extends Comparable<K>, V> extends Bag<K, V> {
+
+    /**
+     * Sorted keys, values and cumulative values of the bag.
+     */
+    private final Entries<K, V> entries;
+
+    /**
+     * Read-only map over the entries.
+     */
+    private final SortedArrayMap<K, V> map;
+
+    /**
+     * Defines a frozen bag with the entries of the given map.
+     *
+     * @param add    binary operator that defines the group {@link V}.
+     * @param source entries of the bag, in ascending key order.
+     */
+    FrozenBag(BinaryOperator<V> add, NavigableMap<K, V> source) {
+        this(add, new Entries<>(add, source));
+    }
+
+    /**
+     * Defines a frozen bag over the given entries.
+     *
+     * @param add     binary operator that defines the group {@link V}.
+     * @param entries sorted entries of the bag.
+     */
+    private FrozenBag(BinaryOperator<V> add, Entries<K, V> entries) {
+        this(add, entries, new SortedArrayMap<>(entries, entries.size));
+    }
+
+    /**
+     * Defines a frozen bag over the given entries and their map.
+     *
+     * @param add     binary operator that defines the group {@link V}.
+     * @param entries sorted entries of the bag.
+     * @param map     read-only map over the entries.
+     */
+    private FrozenBag(BinaryOperator<V> add, Entries<K, V> entries, SortedArrayMap<K, V> map) {
+        super(add, map);
+        this.entries = entries;
+        this.map = map;
+    }
+
+    /**
+     * Frozen bags are read-only.
+     *
+     * @param key   key to include
+     * @param count value to add
+     * @return never returns.
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public Bag<K, V> add(K key, V count) {
+        throw new UnsupportedOperationException("Frozen bag is read-only.");
+    }
+
+    /**
+     * Frozen bags are already frozen.
+     *
+     * @return this instance.
+     */
+    @Override
+    public FrozenBag<K, V> freeze() {
+        return this;
+    }
+
+    /**
+     * Gets the lowest key of the bag.
+     *
+     * @return lowest key, or {@code null} if the bag is empty.
+     */
+    public K firstKey() {
+        return entries.size == 0 ? null : entries.keyAt(0);
+    }
+
+    /**
+     * Gets the highest key of the bag.
+     *
+     * @return highest key, or {@code null} if the bag is empty.
+     */
+    public K lastKey() {
+        return entries.size == 0 ? null : entries.keyAt(entries.size - 1);
+    }
+
+    /**
+     * Gets the sum of every value of the bag.
+     *
+     * @return sum of the values, empty if the bag is empty.
+     */
+    public Optional<V> getTotal() {
+        return entries.size == 0 ? Optional.empty() : Optional.of(entries.cumulativeAt(entries.size - 1));
+    }
+
+    /**
+     * Gets the sum of the values of the keys lower or equal than the given key.
+     *
+     * @param key key to look up.
+     * @return cumulative value of the key, empty if no key of the bag is lower or equal than the given key.
+     */
+    public Optional<V> rank(K key) {
+        final int index = entries.higherIndex(key) - 1;
+        return index < 0 ? Optional.empty() : Optional.of(entries.cumulativeAt(index));
+    }
+
+    /**
+     * Finds the lowest key whose cumulative value is greater or equal than the given target. The values are expected
+     * to be non-negative, so the cumulative values ascend.
+     *
+     * @param target     cumulative value to look up.
+     * @param comparator order of the values.
+     * @return lowest key reaching the target, or {@code null} if the total of the bag is lower than the target.
+     */
+    public K select(V target, Comparator<? super V> comparator) {
+        int low = 0;
+        int high = entries.size;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (comparator.compare(entries.cumulativeAt(middle), target) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low < entries.size ? entries.keyAt(low) : null;
+    }
+
+    @Override
+    public Spliterator<Map.Entry<K, V>> spliterator() {
+        return map.entrySet().spliterator();
+    }
+
+    /**
+     * Parallel arrays with the sorted keys, their values and the running sum of the values.
+     *
+     * @param <K> Type of the keys.
+     * @param <V> Type of the values.
+     */
+    private static final class Entries<K extends Comparable<K>, V> implements SortedArrayMap.Storage<K, V> {
+
+        /**
+         * Keys in ascending order.
+         */
+        private final Object[] keys;
+
+        /**
+         * Values of the keys.
+         */
+        private final Object[] values;
+
+        /**
+         * Sum of the values up to each key, inclusive.
+         */
+        private final Object[] cumulative;
+
+        /**
+         * Number of entries.
+         */
+        private final int size;
+
+        /**
+         * Copies the entries of the given map.
+         *
+         * @param add    binary operator that sums the values.
+         * @param source entries in ascending key order.
+         */
+        Entries(BinaryOperator<V> add, NavigableMap<K, V> source) {
+            final Object[] sourceEntries = source.entrySet().toArray();
+            this.size = sourceEntries.length;
+            this.keys = new Object[size];
+            this.values = new Object[size];
+            this.cumulative = new Object[size];
+            V sum = null;
+            for (int i = 0; i < size; i++) {
+                @SuppressWarnings("unchecked") final Map.Entry<K, V> entry = (Map.Entry<K, V>) sourceEntries[i];
+                keys[i] = entry.getKey();
+                values[i] = entry.getValue();
+                sum = sum == null ? entry.getValue() : add.apply(sum, entry.getValue());
+                cumulative[i] = sum;
+            }
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public K keyAt(int index) {
+            return (K) keys[index];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V valueAt(int index) {
+            return (V) values[index];
+        }
+
+        /**
+         * Gets the sum of the values up to the given position, inclusive.
+         *
+         * @param index position of the entry.
+         * @return cumulative value of the entry.
+         */
+        @SuppressWarnings("unchecked")
+        V cumulativeAt(int index) {
+            return (V) cumulative[index];
+        }
+
+        /**
+         * Finds the position of the lowest key greater than the given key.
+         *
+         * @param key key to look up.
+         * @return position of the higher key, or the number of entries if there is none.
+         */
+        int higherIndex(K key) {
+            int low = 0;
+            int high = size;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (keyAt(middle).compareTo(key) <= 0) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+    }
+}
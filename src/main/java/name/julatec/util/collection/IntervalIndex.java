@@ -0,0 +1,217 @@
+package name.julatec.util.collection;
+
+import name.julatec.util.algebraic.Interval;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Immutable index of intervals for stabbing and overlap queries in {@code O(log n + k)}, for {@code k} matching
+ * intervals.
+ * <p>
+ * The intervals are kept in an array sorted by their lower bound, read as an implicit balanced tree whose root is the
+ * middle of the array. Each node knows the interval with the highest upper bound of its subtree, so a query skips the
+ * subtrees that end before it, and stops at the first node that starts after it. The open bounds are honored: a
+ * closed bound is lower than an open lower bound with the same value, and higher than an open upper bound with the
+ * same value.
+ *
+ * @param <T> Type of the bounds.
+ */
+public final class IntervalIndex<T extends Comparable<T>> {
+
+    /**
+     * Intervals sorted by their lower bound.
+     */
+    private final Interval<T>[] intervals;
+
+    /**
+     * Interval with the highest upper bound of the subtree of each node.
+     */
+    private final Interval<T>[] maxUpper;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private IntervalIndex(Collection<Interval<T>> intervals) {
+        this.intervals = intervals.toArray(new Interval[0]);
+        Arrays.sort(this.intervals, Interval::compareLower);
+        this.maxUpper = new Interval[this.intervals.length];
+        build(0, this.intervals.length);
+    }
+
+    /**
+     * Indexes the given intervals.
+     *
+     * @param intervals intervals to index.
+     * @param <T>       Type of the bounds.
+     * @return new IntervalIndex instance.
+     */
+    public static <T extends Comparable<T>> IntervalIndex<T> of(Collection<Interval<T>> intervals) {
+        return new IntervalIndex<>(intervals);
+    }
+
+    /**
+     * Indexes the intervals of the given stream.
+     *
+     * @param intervals intervals to index.
+     * @param <T>       Type of the bounds.
+     * @return new IntervalIndex instance.
+     */
+    public static <T extends Comparable<T>> IntervalIndex<T> from(Stream<Interval<T>> intervals) {
+        return intervals.collect(collect());
+    }
+
+    /**
+     * Creates a collector that indexes the collected intervals.
+     *
+     * @param <T> Type of the bounds.
+     * @return a new IntervalIndex Collector.
+     */
+    public static <T extends Comparable<T>> Collector<Interval<T>, ?, IntervalIndex<T>> collect() {
+        return Collectors.collectingAndThen(Collectors.toList(), IntervalIndex::new);
+    }
+
+    /**
+     * Returns the number of indexed intervals.
+     *
+     * @return the number of indexed intervals.
+     */
+    public int size() {
+        return intervals.length;
+    }
+
+    /**
+     * Finds the intervals that contain the given value.
+     *
+     * @param value value to lookup.
+     * @return intervals that contain the value, sorted by their lower bound.
+     */
+    public List<Interval<T>> containing(T value) {
+        final List<Interval<T>> result = new ArrayList<>();
+        forEachContaining(value, result::add);
+        return result;
+    }
+
+    /**
+     * Performs the given action for each interval that contains the given value, in the order of their lower bound.
+     *
+     * @param value  value to lookup.
+     * @param action action to perform.
+     */
+    public void forEachContaining(T value, Consumer<? super Interval<T>> action) {
+        stab(0, intervals.length, value, action);
+    }
+
+    /**
+     * Finds the intervals that overlap the given interval.
+     *
+     * @param interval interval to lookup.
+     * @return intervals that overlap the given interval, sorted by their lower bound.
+     */
+    public List<Interval<T>> overlapping(Interval<T> interval) {
+        final List<Interval<T>> result = new ArrayList<>();
+        forEachOverlapping(interval, result::add);
+        return result;
+    }
+
+    /**
+     * Performs the given action for each interval that overlaps the given interval, in the order of their lower bound.
+     *
+     * @param interval interval to lookup.
+     * @param action   action to perform.
+     */
+    public void forEachOverlapping(Interval<T> interval, Consumer<? super Interval<T>> action) {
+        search(0, intervals.length, interval, action);
+    }
+
+    /**
+     * Finds the intervals of the subtree that overlap the given interval.
+     *
+     * @param from   first node of the subtree.
+     * @param to     end of the subtree, exclusive.
+     * @param query  interval to lookup.
+     * @param action action to perform on each overlapping interval.
+     */
+    private void search(int from, int to, Interval<T> query, Consumer<? super Interval<T>> action) {
+        if (from >= to || maxUpper[(from + to) >>> 1].endsBefore(query)) {
+            return;
+        }
+        final int mid = (from + to) >>> 1;
+        search(from, mid, query, action);
+        final Interval<T> interval = intervals[mid];
+        if (query.endsBefore(interval)) {
+            return;
+        }
+        if (!interval.endsBefore(query)) {
+            action.accept(interval);
+        }
+        search(mid + 1, to, query, action);
+    }
+
+    /**
+     * Finds the intervals of the subtree that contain the given value. The subtrees are pruned by the values of the
+     * bounds only, and {@link Interval#contains(Comparable)} decides on the bounds equal to the value.
+     *
+     * @param from   first node of the subtree.
+     * @param to     end of the subtree, exclusive.
+     * @param value  value to lookup.
+     * @param action action to perform on each containing interval.
+     */
+    private void stab(int from, int to, T value, Consumer<? super Interval<T>> action) {
+        if (from >= to || maxUpper[(from + to) >>> 1].upper.compareTo(value) < 0) {
+            return;
+        }
+        final int mid = (from + to) >>> 1;
+        stab(from, mid, value, action);
+        final Interval<T> interval = intervals[mid];
+        if (interval.lower.compareTo(value) > 0) {
+            return;
+        }
+        if (interval.contains(value)) {
+            action.accept(interval);
+        }
+        stab(mid + 1, to, value, action);
+    }
+
+    /**
+     * Computes the interval with the highest upper bound of each node of the subtree.
+     *
+     * @param from first node of the subtree.
+     * @param to   end of the subtree, exclusive.
+     * @return interval with the highest upper bound of the subtree, or {@code null} if the subtree is empty.
+     */
+    private Interval<T> build(int from, int to) {
+        if (from >= to) {
+            return null;
+        }
+        final int mid = (from + to) >>> 1;
+        Interval<T> max = intervals[mid];
+        final Interval<T> left = build(from, mid);
+        if (left != null && compareUpper(left, max) > 0) {
+            max = left;
+        }
+        final Interval<T> right = build(mid + 1, to);
+        if (right != null && compareUpper(right, max) > 0) {
+            max = right;
+        }
+        maxUpper[mid] = max;
+        return max;
+    }
+
+    /**
+     * Compares the upper bounds of the given intervals, an open bound is lower than a closed bound with the same value.
+     *
+     * @param a first interval.
+     * @param b second interval.
+     * @param <T> Type of the bounds.
+     * @return comparison of the upper bounds.
+     */
+    private static <T extends Comparable<T>> int compareUpper(Interval<T> a, Interval<T> b) {
+        final int comparison = a.upper.compareTo(b.upper);
+        return comparison != 0 ? comparison : Boolean.compare(b.upperOpen, a.upperOpen);
+    }
+}
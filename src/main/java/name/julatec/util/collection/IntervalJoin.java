@@ -0,0 +1,207 @@
+package name.julatec.util.collection;
+
+import name.julatec.util.algebraic.Interval;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.util.Spliterators.spliteratorUnknownSize;
+
+/**
+ * Joins sorted streams by interval containment or overlap in a single pass, sweeping a line over the values.
+ * <p>
+ * The intervals whose lower bound the sweep already passed are kept in an active set, and each value of the other side
+ * is only compared with the active intervals. An interval leaves the active set as soon as it ends before the sweep,
+ * so the active set only holds the intervals that may still match, instead of testing every pair.
+ * <p>
+ * The order of each stream is verified as it is read, an out of order value fails the traversal with an
+ * {@link IllegalStateException}.
+ */
+public final class IntervalJoin {
+
+    private IntervalJoin() {
+    }
+
+    /**
+     * Joins each point with the intervals that contain it.
+     *
+     * @param points    points sorted by their value.
+     * @param value     value of a point.
+     * @param intervals intervals sorted by their lower bound.
+     * @param interval  interval of an element.
+     * @param merge     merges a point with an interval that contains it, into a non null value.
+     * @param <T>       Type of the values.
+     * @param <P>       Type of the points.
+     * @param <I>       Type of the intervals.
+     * @param <M>       Result of the join.
+     * @return merged pairs, sorted by point, and then by the lower bound of the interval.
+     */
+    public static <T extends Comparable<T>, P, I, M> Stream<M> containing(
+            Stream<P> points,
+            Function<P, T> value,
+            Stream<I> intervals,
+            Function<I, Interval<T>> interval,
+            BiFunction<P, I, M> merge) {
+        final LookAheadIterator<P> pointIterator = new LookAheadIterator<>(new OrderCheckingIterator<>(
+                points.iterator(), Comparator.comparing(value)));
+        final LookAheadIterator<I> intervalIterator = new LookAheadIterator<>(new OrderCheckingIterator<>(
+                intervals.iterator(), (a, b) -> Interval.compareLower(interval.apply(a), interval.apply(b))));
+        final List<I> active = new ArrayList<>();
+        final Iterator<M> iterator = new BufferedIterator<>() {
+            @Override
+            boolean fill(ArrayDeque<M> pending) {
+                if (!pointIterator.hasNext()) {
+                    return false;
+                }
+                final P point = pointIterator.next();
+                final T t = value.apply(point);
+                while (intervalIterator.hasNext()
+                        && interval.apply(intervalIterator.element()).lower.compareTo(t) <= 0) {
+                    active.add(intervalIterator.next());
+                }
+                int size = 0;
+                for (I candidate : active) {
+                    final Interval<T> bounds = interval.apply(candidate);
+                    if (bounds.upper.compareTo(t) < 0) {
+                        continue;
+                    }
+                    active.set(size++, candidate);
+                    if (bounds.contains(t)) {
+                        pending.add(merge.apply(point, candidate));
+                    }
+                }
+                active.subList(size, active.size()).clear();
+                return true;
+            }
+        };
+        return stream(iterator, points, intervals);
+    }
+
+    /**
+     * Joins each interval of the left side with the intervals of the right side that overlap it.
+     *
+     * @param left          left intervals sorted by their lower bound.
+     * @param leftInterval  interval of a left element.
+     * @param right         right intervals sorted by their lower bound.
+     * @param rightInterval interval of a right element.
+     * @param merge         merges a pair of overlapping intervals, into a non null value.
+     * @param <T>           Type of the values.
+     * @param <A>           Type of the left intervals.
+     * @param <B>           Type of the right intervals.
+     * @param <M>           Result of the join.
+     * @return merged pairs, in the order the sweep finds them.
+     */
+    public static <T extends Comparable<T>, A, B, M> Stream<M> overlapping(
+            Stream<A> left,
+            Function<A, Interval<T>> leftInterval,
+            Stream<B> right,
+            Function<B, Interval<T>> rightInterval,
+            BiFunction<A, B, M> merge) {
+        final LookAheadIterator<A> leftIterator = new LookAheadIterator<>(new OrderCheckingIterator<>(
+                left.iterator(), (a, b) -> Interval.compareLower(leftInterval.apply(a), leftInterval.apply(b))));
+        final LookAheadIterator<B> rightIterator = new LookAheadIterator<>(new OrderCheckingIterator<>(
+                right.iterator(), (a, b) -> Interval.compareLower(rightInterval.apply(a), rightInterval.apply(b))));
+        final List<A> leftActive = new ArrayList<>();
+        final List<B> rightActive = new ArrayList<>();
+        final Iterator<M> iterator = new BufferedIterator<>() {
+            @Override
+            boolean fill(ArrayDeque<M> pending) {
+                final boolean leftNext;
+                if (leftIterator.hasNext() && rightIterator.hasNext()) {
+                    leftNext = Interval.compareLower(
+                            leftInterval.apply(leftIterator.element()),
+                            rightInterval.apply(rightIterator.element())) <= 0;
+                } else if (leftIterator.hasNext() || rightIterator.hasNext()) {
+                    leftNext = leftIterator.hasNext();
+                } else {
+                    return false;
+                }
+                if (leftNext) {
+                    final A a = leftIterator.next();
+                    final Interval<T> bounds = leftInterval.apply(a);
+                    rightActive.removeIf(b -> rightInterval.apply(b).endsBefore(bounds));
+                    for (B b : rightActive) {
+                        if (bounds.overlaps(rightInterval.apply(b))) {
+                            pending.add(merge.apply(a, b));
+                        }
+                    }
+                    leftActive.add(a);
+                } else {
+                    final B b = rightIterator.next();
+                    final Interval<T> bounds = rightInterval.apply(b);
+                    leftActive.removeIf(a -> leftInterval.apply(a).endsBefore(bounds));
+                    for (A a : leftActive) {
+                        if (bounds.overlaps(leftInterval.apply(a))) {
+                            pending.add(merge.apply(a, b));
+                        }
+                    }
+                    rightActive.add(b);
+                }
+                return true;
+            }
+        };
+        return stream(iterator, left, right);
+    }
+
+    /**
+     * Wraps the given iterator in a sequential stream that closes both inputs when closed.
+     *
+     * @param iterator join iterator.
+     * @param left     left input.
+     * @param right    right input.
+     * @param <M>      Result of the join.
+     * @return joined stream.
+     */
+    private static <M> Stream<M> stream(Iterator<M> iterator, Stream<?> left, Stream<?> right) {
+        final Spliterator<M> spliterator = spliteratorUnknownSize(iterator, Spliterator.ORDERED);
+        return StreamSupport.stream(spliterator, false).onClose(left::close).onClose(right::close);
+    }
+
+    /**
+     * Iterator over the values produced by each step of a sweep.
+     *
+     * @param <M> Result of the join.
+     */
+    private abstract static class BufferedIterator<M> implements Iterator<M> {
+
+        /**
+         * Values produced and not yet returned.
+         */
+        private final ArrayDeque<M> pending = new ArrayDeque<>();
+
+        /**
+         * Advances the sweep by one step.
+         *
+         * @param pending receives the values produced by the step.
+         * @return false if the sweep is over.
+         */
+        abstract boolean fill(ArrayDeque<M> pending);
+
+        @Override
+        public boolean hasNext() {
+            while (pending.isEmpty()) {
+                if (!fill(pending)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public M next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return pending.poll();
+        }
+    }
+}
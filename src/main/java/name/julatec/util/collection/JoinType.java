@@ -0,0 +1,52 @@
+package name.julatec.util.collection;
+
+/**
+ * Defines which values a {@link SortMergeJoin} returns.
+ */
+public enum JoinType {
+
+    /**
+     * Every pair of left and right values with the same key.
+     */
+    INNER(false, false),
+
+    /**
+     * Every pair of left and right values with the same key, and the left values without a right value.
+     */
+    LEFT_OUTER(true, false),
+
+    /**
+     * Every pair of left and right values with the same key, and the right values without a left value.
+     */
+    RIGHT_OUTER(false, true),
+
+    /**
+     * Every pair of left and right values with the same key, and the values without a pair on both sides.
+     */
+    FULL_OUTER(true, true),
+
+    /**
+     * The left values with at least one right value with the same key, once each.
+     */
+    SEMI(false, false),
+
+    /**
+     * The left values without a right value with the same key.
+     */
+    ANTI(true, false);
+
+    /**
+     * Whether the left values without a pair are returned.
+     */
+    final boolean unmatchedLeft;
+
+    /**
+     * Whether the right values without a pair are returned.
+     */
+    final boolean unmatchedRight;
+
+    JoinType(boolean unmatchedLeft, boolean unmatchedRight) {
+        this.unmatchedLeft = unmatchedLeft;
+        this.unmatchedRight = unmatchedRight;
+    }
+}
@@ -0,0 +1,234 @@
+package name.julatec.util.collection;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.util.Spliterators.spliteratorUnknownSize;
+
+/**
+ * Merges any number of sorted streams in a single pass. The heads of the inputs are kept in a binary heap, so each
+ * value costs {@code O(log n)} comparisons for {@code n} inputs, and no intermediate result is materialized as it
+ * would be by chaining pairwise joins.
+ * <p>
+ * The order of each input is verified as it is read, an out of order value fails the traversal with an
+ * {@link IllegalStateException}.
+ */
+public final class KWayMerge {
+
+    private KWayMerge() {
+    }
+
+    /**
+     * Merges the given sorted streams into a single sorted stream. Values with the same key are returned in the order
+     * of their inputs.
+     *
+     * @param comparator order of the values of every input.
+     * @param inputs     sorted streams to merge.
+     * @param <T>        Type of the values.
+     * @return sorted stream, that closes the inputs when closed.
+     */
+    public static <T> Stream<T> merge(Comparator<? super T> comparator, List<Stream<T>> inputs) {
+        final Heads<T> heads = new Heads<>(comparator, inputs);
+        final Iterator<T> iterator = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                if (heads.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                return heads.poll();
+            }
+        };
+        return stream(iterator, inputs);
+    }
+
+    /**
+     * Joins the given sorted streams on the key defined by the comparator. For each key, the merge function receives
+     * one list per input, in the order of the inputs, with the values of that input with the key, empty if the input
+     * has none.
+     *
+     * @param comparator order of the values of every input, values that compare equal have the same key.
+     * @param inputs     sorted streams to join.
+     * @param merge      merges the values of every input with the same key.
+     * @param <T>        Type of the values.
+     * @param <M>        Result of the join.
+     * @return stream with one merged value per key, that closes the inputs when closed.
+     */
+    public static <T, M> Stream<M> join(
+            Comparator<? super T> comparator,
+            List<Stream<T>> inputs,
+            Function<List<List<T>>, M> merge) {
+        final Heads<T> heads = new Heads<>(comparator, inputs);
+        final Iterator<M> iterator = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public M next() {
+                if (heads.isEmpty()) {
+                    throw new NoSuchElementException();
+                }
+                final List<List<T>> group = new ArrayList<>(inputs.size());
+                for (int i = 0; i < inputs.size(); i++) {
+                    group.add(new ArrayList<>(1));
+                }
+                final T key = heads.peek();
+                do {
+                    final int input = heads.peekInput();
+                    group.get(input).add(heads.poll());
+                } while (!heads.isEmpty() && comparator.compare(key, heads.peek()) == 0);
+                return merge.apply(group);
+            }
+        };
+        return stream(iterator, inputs);
+    }
+
+    /**
+     * Wraps the given iterator in a sequential stream that closes the inputs when closed.
+     *
+     * @param iterator merge iterator.
+     * @param inputs   merged streams.
+     * @param <T>      Type of the values.
+     * @param <M>      Type of the merged values.
+     * @return merged stream.
+     */
+    private static <T, M> Stream<M> stream(Iterator<M> iterator, List<Stream<T>> inputs) {
+        final Spliterator<M> spliterator = spliteratorUnknownSize(iterator, Spliterator.ORDERED);
+        return StreamSupport.stream(spliterator, false).onClose(() -> inputs.forEach(Stream::close));
+    }
+
+    /**
+     * Binary heap of the inputs with remaining values, ordered by their heads and then by their index.
+     *
+     * @param <T> Type of the values.
+     */
+    private static final class Heads<T> {
+
+        /**
+         * Order of the values.
+         */
+        private final Comparator<? super T> comparator;
+
+        /**
+         * Sorted inputs.
+         */
+        private final List<LookAheadIterator<T>> inputs;
+
+        /**
+         * Indexes of the inputs with remaining values, in heap order.
+         */
+        private final int[] heap;
+
+        /**
+         * Number of inputs in the heap.
+         */
+        private int size;
+
+        private Heads(Comparator<? super T> comparator, List<Stream<T>> streams) {
+            this.comparator = comparator;
+            this.inputs = new ArrayList<>(streams.size());
+            this.heap = new int[streams.size()];
+            for (Stream<T> stream : streams) {
+                final LookAheadIterator<T> input = new LookAheadIterator<>(
+                        new OrderCheckingIterator<>(stream.iterator(), comparator));
+                inputs.add(input);
+                if (input.hasNext()) {
+                    heap[size] = inputs.size() - 1;
+                    siftUp(size++);
+                }
+            }
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        /**
+         * Gets the lowest head without removing it.
+         *
+         * @return the lowest head.
+         */
+        private T peek() {
+            return inputs.get(heap[0]).element();
+        }
+
+        /**
+         * Gets the index of the input of the lowest head.
+         *
+         * @return index of the input.
+         */
+        private int peekInput() {
+            return heap[0];
+        }
+
+        /**
+         * Removes the lowest head, advancing its input.
+         *
+         * @return the lowest head.
+         */
+        private T poll() {
+            final LookAheadIterator<T> input = inputs.get(heap[0]);
+            final T value = input.next();
+            if (!input.hasNext()) {
+                heap[0] = heap[--size];
+            }
+            siftDown(0);
+            return value;
+        }
+
+        private void siftUp(int position) {
+            final int input = heap[position];
+            while (position > 0) {
+                final int parent = (position - 1) >>> 1;
+                if (compare(heap[parent], input) <= 0) {
+                    break;
+                }
+                heap[position] = heap[parent];
+                position = parent;
+            }
+            heap[position] = input;
+        }
+
+        private void siftDown(int position) {
+            final int input = heap[position];
+            final int half = size >>> 1;
+            while (position < half) {
+                int child = 2 * position + 1;
+                if (child + 1 < size && compare(heap[child + 1], heap[child]) < 0) {
+                    child++;
+                }
+                if (compare(input, heap[child]) <= 0) {
+                    break;
+                }
+                heap[position] = heap[child];
+                position = child;
+            }
+            heap[position] = input;
+        }
+
+        /**
+         * Compares the heads of the given inputs, breaking the ties by their index.
+         *
+         * @param a index of the first input.
+         * @param b index of the second input.
+         * @return comparison of the heads.
+         */
+        private int compare(int a, int b) {
+            final int comparison = comparator.compare(inputs.get(a).element(), inputs.get(b).element());
+            return comparison != 0 ? comparison : Integer.compare(a, b);
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package name.julatec.util.collection;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.util.*;
+import java.util.function.BinaryOperator;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Defines a collection that counts the number of times a key object appears in the collection. Unlike
+ * {@code Bag<K, Long>}, the counts are kept as primitive {@code long} values in an open addressing table, so
+ * incrementing the count of a key that is already in the bag does not allocate.
+ * <p>
+ * The keys are not kept sorted, they are sorted on demand by {@link LongCountBag#iterator()},
+ * {@link LongCountBag#forEach(ObjLongConsumer)} and {@link LongCountBag#select(long...)} into primitive arrays, and
+ * only {@link LongCountBag#toNavigableMap()} copies them into a map.
+ *
+ * @param <K> The Key type of the collection.
+ */
+public class LongCountBag<K extends Comparable<K>> implements Iterable<Map.Entry<K, Long>> {
+
+    /**
+     * Initial number of slots of the table.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Keys of the table, {@code null} marks a free slot.
+     */
+    private Object[] keys;
+
+    /**
+     * Counts of the table, aligned to {@link LongCountBag#keys}.
+     */
+    private long[] counts;
+
+    /**
+     * Number of keys in the table.
+     */
+    private int size;
+
+    /**
+     * Sum of all the counts.
+     */
+    private long totalCount;
+
+    /**
+     * Defines an empty bag.
+     */
+    public LongCountBag() {
+        this.keys = new Object[INITIAL_CAPACITY];
+        this.counts = new long[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Gets the operator that defines the counts of this instance.
+     *
+     * @return instance operator.
+     */
+    public BinaryOperator<Long> getOperator() {
+        return Long::sum;
+    }
+
+    /**
+     * Adds the given delta to the count of the given key.
+     *
+     * @param key   key to include.
+     * @param delta value to add.
+     * @return this instance.
+     */
+    public synchronized LongCountBag<K> increment(K key, long delta) {
+        int slot = slot(keys, key);
+        if (keys[slot] == null) {
+            if ((size + 1) * 4L > keys.length * 3L) {
+                resize();
+                slot = slot(keys, key);
+            }
+            keys[slot] = key;
+            size++;
+        }
+        counts[slot] += delta;
+        totalCount += delta;
+        return this;
+    }
+
+    /**
+     * Merges the this object with the given bag that.
+     *
+     * @param that bag collection with the counts to include on this bag.
+     * @return this instance.
+     */
+    public LongCountBag<K> merge(LongCountBag<K> that) {
+        that.forEach(this::increment);
+        return this;
+    }
+
+    /**
+     * Gets the count associated with the key.
+     *
+     * @param key key to lookup.
+     * @return count associated to key, or zero if the key is not in the bag.
+     */
+    public long get(K key) {
+        return getOrElse(key, 0L);
+    }
+
+    /**
+     * Returns the count associated with the key, or {@code defaultValue} if this bag contains no count for the key.
+     *
+     * @param key          the key whose associated count is to be returned.
+     * @param defaultValue the default count of the key.
+     * @return the count associated with the key, or {@code defaultValue} if this bag contains no count for the key.
+     */
+    public synchronized long getOrElse(K key, long defaultValue) {
+        final int slot = slot(keys, key);
+        return keys[slot] == null ? defaultValue : counts[slot];
+    }
+
+    /**
+     * Returns the number of keys in this bag.
+     *
+     * @return the number of keys in this bag.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the sum of all the counts in this bag.
+     *
+     * @return the sum of all the counts in this bag.
+     */
+    public synchronized long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Performs the given action for each key and count in ascending key order.
+     *
+     * @param action action to perform.
+     */
+    public void forEach(ObjLongConsumer<? super K> action) {
+        final Object[] sortedKeys;
+        final long[] sortedCounts;
+        synchronized (this) {
+            sortedKeys = sortedKeys();
+            sortedCounts = sortedCounts(sortedKeys);
+        }
+        for (int i = 0; i < sortedKeys.length; i++) {
+            action.accept(key(sortedKeys[i]), sortedCounts[i]);
+        }
+    }
+
+    /**
+     * Iterates over a sorted copy of the keys and counts, without building a map.
+     *
+     * @return iterator over the entries in ascending key order.
+     */
+    @Override
+    public Iterator<Map.Entry<K, Long>> iterator() {
+        final Object[] sortedKeys;
+        final long[] sortedCounts;
+        synchronized (this) {
+            sortedKeys = sortedKeys();
+            sortedCounts = sortedCounts(sortedKeys);
+        }
+        return new Iterator<>() {
+
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < sortedKeys.length;
+            }
+
+            @Override
+            public Map.Entry<K, Long> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final int current = index++;
+                return Map.entry(key(sortedKeys[current]), sortedCounts[current]);
+            }
+        };
+    }
+
+    /**
+     * Finds, for each of the given ranks, the lowest key whose cumulative count is greater or equal than the rank.
+     * The keys are sorted once and the cumulative counts are kept in a primitive array, so each rank is a binary
+     * search.
+     *
+     * @param ranks ranks to look up, between zero and the total count.
+     * @return keys at the given ranks, the highest key for ranks beyond the total count, or an empty list if the bag
+     * is empty.
+     */
+    public synchronized List<K> select(long... ranks) {
+        if (size == 0) {
+            return List.of();
+        }
+        final Object[] sortedKeys = sortedKeys();
+        final long[] cumulative = sortedCounts(sortedKeys);
+        for (int i = 1; i < cumulative.length; i++) {
+            cumulative[i] += cumulative[i - 1];
+        }
+        final List<K> selected = new ArrayList<>(ranks.length);
+        for (long rank : ranks) {
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (cumulative[middle] < rank) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            selected.add(key(sortedKeys[low]));
+        }
+        return selected;
+    }
+
+    /**
+     * Returns a sorted and unmodifiable copy of this bag.
+     *
+     * @return navigable version of the current bag.
+     */
+    public NavigableMap<K, Long> toNavigableMap() {
+        final TreeMap<K, Long> treeMap = new TreeMap<>();
+        forEach(treeMap::put);
+        return java.util.Collections.unmodifiableNavigableMap(treeMap);
+    }
+
+    @Override
+    public String toString() {
+        final ToStringBuilder stringBuilder = new ToStringBuilder(this, ToStringStyle.JSON_STYLE);
+        forEach((k, v) -> stringBuilder.append(String.valueOf(k), v));
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Copies the keys of the table sorted by their natural order.
+     *
+     * @return sorted keys.
+     */
+    private Object[] sortedKeys() {
+        final Object[] sortedKeys = new Object[size];
+        int index = 0;
+        for (Object key : keys) {
+            if (key != null) {
+                sortedKeys[index++] = key;
+            }
+        }
+        Arrays.sort(sortedKeys);
+        return sortedKeys;
+    }
+
+    /**
+     * Copies the counts of the given keys.
+     *
+     * @param sortedKeys keys of the table.
+     * @return counts aligned to the keys.
+     */
+    private long[] sortedCounts(Object[] sortedKeys) {
+        final long[] sortedCounts = new long[sortedKeys.length];
+        for (int i = 0; i < sortedKeys.length; i++) {
+            sortedCounts[i] = counts[slot(keys, sortedKeys[i])];
+        }
+        return sortedCounts;
+    }
+
+    /**
+     * Doubles the capacity of the table.
+     */
+    private void resize() {
+        final Object[] oldKeys = keys;
+        final long[] oldCounts = counts;
+        keys = new Object[oldKeys.length * 2];
+        counts = new long[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                final int slot = slot(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    /**
+     * Finds the slot of the given key using linear probing.
+     *
+     * @param keys table of keys.
+     * @param key  key to find.
+     * @return slot that holds the key, or the free slot where it should be inserted.
+     */
+    private static int slot(Object[] keys, Object key) {
+        final int mask = keys.length - 1;
+        final int hash = key.hashCode() * 0x9E3779B9;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        while (keys[slot] != null && !keys[slot].equals(key)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    @SuppressWarnings("unchecked")
+    private K key(Object key) {
+        return (K) key;
+    }
+}
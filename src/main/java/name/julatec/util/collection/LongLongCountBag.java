@@ -0,0 +1,324 @@
+package name.julatec.util.collection;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.util.*;
+import java.util.function.BinaryOperator;
+
+/**
+ * Defines a collection that counts the number of times a {@code long} key appears in the collection. Both keys and
+ * counts are kept as primitive values in an open addressing table, so neither incrementing the count of a key nor
+ * iterating the bag in key order boxes any value.
+ */
+public class LongLongCountBag implements Iterable<Map.Entry<Long, Long>> {
+
+    /**
+     * Represents an operation that accepts a {@code long} key and its {@code long} count.
+     */
+    @FunctionalInterface
+    public interface LongLongConsumer {
+
+        /**
+         * Performs this operation on the given key and count.
+         *
+         * @param key   the key.
+         * @param count the count of the key.
+         */
+        void accept(long key, long count);
+    }
+
+    /**
+     * Initial number of slots of the table.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Keys of the table.
+     */
+    private long[] keys;
+
+    /**
+     * Counts of the table, aligned to {@link LongLongCountBag#keys}.
+     */
+    private long[] counts;
+
+    /**
+     * Whether the slot is taken, aligned to {@link LongLongCountBag#keys}.
+     */
+    private boolean[] used;
+
+    /**
+     * Number of keys in the table.
+     */
+    private int size;
+
+    /**
+     * Sum of all the counts.
+     */
+    private long totalCount;
+
+    /**
+     * Defines an empty bag.
+     */
+    public LongLongCountBag() {
+        this.keys = new long[INITIAL_CAPACITY];
+        this.counts = new long[INITIAL_CAPACITY];
+        this.used = new boolean[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Gets the operator that defines the counts of this instance.
+     *
+     * @return instance operator.
+     */
+    public BinaryOperator<Long> getOperator() {
+        return Long::sum;
+    }
+
+    /**
+     * Adds the given delta to the count of the given key.
+     *
+     * @param key   key to include.
+     * @param delta value to add.
+     * @return this instance.
+     */
+    public synchronized LongLongCountBag increment(long key, long delta) {
+        int slot = slot(keys, used, key);
+        if (!used[slot]) {
+            if ((size + 1) * 4L > keys.length * 3L) {
+                resize();
+                slot = slot(keys, used, key);
+            }
+            keys[slot] = key;
+            used[slot] = true;
+            size++;
+        }
+        counts[slot] += delta;
+        totalCount += delta;
+        return this;
+    }
+
+    /**
+     * Merges the this object with the given bag that.
+     *
+     * @param that bag collection with the counts to include on this bag.
+     * @return this instance.
+     */
+    public LongLongCountBag merge(LongLongCountBag that) {
+        that.forEach(this::increment);
+        return this;
+    }
+
+    /**
+     * Gets the count associated with the key.
+     *
+     * @param key key to lookup.
+     * @return count associated to key, or zero if the key is not in the bag.
+     */
+    public long get(long key) {
+        return getOrElse(key, 0L);
+    }
+
+    /**
+     * Returns the count associated with the key, or {@code defaultValue} if this bag contains no count for the key.
+     *
+     * @param key          the key whose associated count is to be returned.
+     * @param defaultValue the default count of the key.
+     * @return the count associated with the key, or {@code defaultValue} if this bag contains no count for the key.
+     */
+    public synchronized long getOrElse(long key, long defaultValue) {
+        final int slot = slot(keys, used, key);
+        return used[slot] ? counts[slot] : defaultValue;
+    }
+
+    /**
+     * Returns the number of keys in this bag.
+     *
+     * @return the number of keys in this bag.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the sum of all the counts in this bag.
+     *
+     * @return the sum of all the counts in this bag.
+     */
+    public synchronized long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Returns the keys of this bag in ascending order.
+     *
+     * @return sorted keys.
+     */
+    public synchronized long[] keys() {
+        final long[] sortedKeys = new long[size];
+        int index = 0;
+        for (int i = 0; i < keys.length; i++) {
+            if (used[i]) {
+                sortedKeys[index++] = keys[i];
+            }
+        }
+        Arrays.sort(sortedKeys);
+        return sortedKeys;
+    }
+
+    /**
+     * Performs the given action for each key and count in ascending key order.
+     *
+     * @param action action to perform.
+     */
+    public void forEach(LongLongConsumer action) {
+        final long[] sortedKeys;
+        final long[] sortedCounts;
+        synchronized (this) {
+            sortedKeys = keys();
+            sortedCounts = sortedCounts(sortedKeys);
+        }
+        for (int i = 0; i < sortedKeys.length; i++) {
+            action.accept(sortedKeys[i], sortedCounts[i]);
+        }
+    }
+
+    /**
+     * Iterates over a sorted copy of the keys and counts, without building a map.
+     *
+     * @return iterator over the entries in ascending key order.
+     */
+    @Override
+    public Iterator<Map.Entry<Long, Long>> iterator() {
+        final long[] sortedKeys;
+        final long[] sortedCounts;
+        synchronized (this) {
+            sortedKeys = keys();
+            sortedCounts = sortedCounts(sortedKeys);
+        }
+        return new Iterator<>() {
+
+            private int index;
+
+            @Override
+            public boolean hasNext() {
+                return index < sortedKeys.length;
+            }
+
+            @Override
+            public Map.Entry<Long, Long> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                final int current = index++;
+                return Map.entry(sortedKeys[current], sortedCounts[current]);
+            }
+        };
+    }
+
+    /**
+     * Finds, for each of the given ranks, the lowest key whose cumulative count is greater or equal than the rank.
+     * The keys and counts are read together under the lock of the bag, sorted once and accumulated in a primitive
+     * array, so each rank is a binary search.
+     *
+     * @param ranks ranks to look up, between zero and the total count.
+     * @return keys at the given ranks, the highest key for ranks beyond the total count, or an empty array if the bag
+     * is empty.
+     */
+    public synchronized long[] select(long... ranks) {
+        if (size == 0) {
+            return new long[0];
+        }
+        final long[] sortedKeys = keys();
+        final long[] cumulative = sortedCounts(sortedKeys);
+        for (int i = 1; i < cumulative.length; i++) {
+            cumulative[i] += cumulative[i - 1];
+        }
+        final long[] selected = new long[ranks.length];
+        for (int r = 0; r < ranks.length; r++) {
+            int low = 0;
+            int high = cumulative.length - 1;
+            while (low < high) {
+                final int middle = (low + high) >>> 1;
+                if (cumulative[middle] < ranks[r]) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            selected[r] = sortedKeys[low];
+        }
+        return selected;
+    }
+
+    /**
+     * Returns a sorted and unmodifiable copy of this bag.
+     *
+     * @return navigable version of the current bag.
+     */
+    public NavigableMap<Long, Long> toNavigableMap() {
+        final TreeMap<Long, Long> treeMap = new TreeMap<>();
+        forEach(treeMap::put);
+        return java.util.Collections.unmodifiableNavigableMap(treeMap);
+    }
+
+    @Override
+    public String toString() {
+        final ToStringBuilder stringBuilder = new ToStringBuilder(this, ToStringStyle.JSON_STYLE);
+        forEach((k, v) -> stringBuilder.append(String.valueOf(k), v));
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Copies the counts of the given keys.
+     *
+     * @param sortedKeys keys of the table.
+     * @return counts aligned to the keys.
+     */
+    private long[] sortedCounts(long[] sortedKeys) {
+        final long[] sortedCounts = new long[sortedKeys.length];
+        for (int i = 0; i < sortedKeys.length; i++) {
+            sortedCounts[i] = counts[slot(keys, used, sortedKeys[i])];
+        }
+        return sortedCounts;
+    }
+
+    /**
+     * Doubles the capacity of the table.
+     */
+    private void resize() {
+        final long[] oldKeys = keys;
+        final long[] oldCounts = counts;
+        final boolean[] oldUsed = used;
+        keys = new long[oldKeys.length * 2];
+        counts = new long[oldKeys.length * 2];
+        used = new boolean[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                final int slot = slot(keys, used, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+                used[slot] = true;
+            }
+        }
+    }
+
+    /**
+     * Finds the slot of the given key using linear probing.
+     *
+     * @param keys table of keys.
+     * @param used whether the slots are taken.
+     * @param key  key to find.
+     * @return slot that holds the key, or the free slot where it should be inserted.
+     */
+    private static int slot(long[] keys, boolean[] used, long key) {
+        final int mask = keys.length - 1;
+        final long hash = key * 0x9E3779B97F4A7C15L;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (used[slot] && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
@@ -1,24 +1,33 @@
 package name.julatec.util.collection;
 
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 
 /**
- * Decorates an iterator to support one-element lookahead while iterating.
+ * Decorates an iterator to support one-element lookahead while iterating. The iterator may return {@code null}
+ * elements, a missing head is marked by a sentinel instead of {@code null}. The joins and merges of this package read
+ * their inputs through it, one element at a time; {@link BatchingIterator} reads ahead in batches for consumers that
+ * peek further.
  *
  * @param <T>
  */
 public final class LookAheadIterator<T> implements Iterator<T> {
 
+    /**
+     * Marks that the head was not read from the underlying iterator.
+     */
+    private static final Object NONE = new Object();
+
     /**
      * Underlying iterator.
      */
     private final Iterator<T> target;
 
     /**
-     * Current element.
+     * Current element, or {@link LookAheadIterator#NONE} if there is none.
      */
-    private T head;
+    private Object head = NONE;
 
     /**
      * Decorates the given target iterator.
@@ -30,7 +39,7 @@ public final class LookAheadIterator<T> implements Iterator<T> {
 
     @Override
     public boolean hasNext() {
-        if (head != null) {
+        if (head != NONE) {
             return true;
         }
         if (target.hasNext()) {
@@ -41,20 +50,41 @@ public final class LookAheadIterator<T> implements Iterator<T> {
     }
 
     /**
-     * Returns the next element in iteration without advancing the underlying iterator.
+     * Returns the next element in iteration without advancing the underlying iterator. A {@code null} element is
+     * returned as an empty optional, use {@link LookAheadIterator#element()} to tell it from the end of the iteration.
      * @return head of the underlying iterator.
      */
     public Optional<T> peek() {
         if (hasNext()) {
-            return Optional.ofNullable(head);
+            return Optional.ofNullable(head());
         }
         return Optional.empty();
     }
 
+    /**
+     * Returns the next element in iteration without advancing the underlying iterator, and without wrapping it.
+     * @return head of the underlying iterator.
+     * @throws NoSuchElementException if the iteration has no more elements.
+     */
+    public T element() {
+        if (hasNext()) {
+            return head();
+        }
+        throw new NoSuchElementException();
+    }
+
     @Override
     public T next() {
-        T result = head;
-        head = null;
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final T result = head();
+        head = NONE;
         return result;
     }
+
+    @SuppressWarnings("unchecked")
+    private T head() {
+        return (T) head;
+    }
 }
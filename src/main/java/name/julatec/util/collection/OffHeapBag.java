@@ -0,0 +1,84 @@
+package name.julatec.util.collection;
+
+import java.util.function.BinaryOperator;
+
+/**
+ * Bag whose keys and values live out of the heap, for bags with too many distinct keys to keep them in a
+ * {@link java.util.TreeMap}. Keys and values are encoded by {@link FixedWidthCodec}s into sorted runs of direct
+ * buffers, so each entry takes only the width of its key and value, and the garbage collector does not walk them.
+ * <p>
+ * Adding a key combines it in a small write buffer on heap; the runs are merged when the bag is read, after which
+ * lookups are binary searches and iteration walks the entries in key order. The bag is meant to be filled first and
+ * read afterwards: reading after each addition merges the runs every time. {@link Bag#size()} and the iteration merge
+ * all the runs into one, which takes time linear in the number of entries, and the chunks of the merged run are not
+ * reused afterwards, since a view may read them; {@link Bag#get} and {@link Bag#getOrElse} look the key up in each run
+ * instead, without merging them. The maps returned by
+ * {@link Bag#toNavigableMap()} and its views are snapshots of the entries at the time they are read.
+ *
+ * @param <K> The Key type of the collection.
+ * @param <V> Group type defined by the binary operator.
+ */
+public class OffHeapBag<K extends Comparable<K>, V> extends Bag<K, V> {
+
+    /**
+     * Default number of entries of the write buffer.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Off-heap map of the entries.
+     */
+    private final OffHeapSortedMap<K, V> map;
+
+    /**
+     * Defines the new bag using the given binary operator and codecs.
+     *
+     * @param add        binary operator that defines the group {@link V}.
+     * @param keyCodec   encodes the keys.
+     * @param valueCodec encodes the values.
+     */
+    public OffHeapBag(BinaryOperator<V> add, FixedWidthCodec<K> keyCodec, FixedWidthCodec<V> valueCodec) {
+        this(add, keyCodec, valueCodec, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Defines the new bag using the given binary operator and codecs.
+     *
+     * @param add        binary operator that defines the group {@link V}.
+     * @param keyCodec   encodes the keys.
+     * @param valueCodec encodes the values.
+     * @param bufferSize number of distinct keys combined on heap before they are written out of the heap.
+     */
+    public OffHeapBag(
+            BinaryOperator<V> add,
+            FixedWidthCodec<K> keyCodec,
+            FixedWidthCodec<V> valueCodec,
+            int bufferSize) {
+        this(add, new OffHeapSortedMap<>(add, keyCodec, valueCodec, bufferSize));
+    }
+
+    /**
+     * Defines the new bag over the given map.
+     *
+     * @param add binary operator that defines the group {@link V}.
+     * @param map off-heap map of the entries.
+     */
+    private OffHeapBag(BinaryOperator<V> add, OffHeapSortedMap<K, V> map) {
+        super(add, map);
+        this.map = map;
+    }
+
+    /**
+     * Combines the count in the off-heap map without looking up the combined count, which {@link Bag#add} would
+     * otherwise read from every run.
+     *
+     * @param key   key to add.
+     * @param count amount to increment.
+     * @return this bag.
+     */
+    @Override
+    public synchronized Bag<K, V> add(K key, V count) {
+        map.combine(key, count);
+        return this;
+    }
+}
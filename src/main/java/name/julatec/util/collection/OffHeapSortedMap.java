@@ -0,0 +1,564 @@
+package name.julatec.util.collection;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+
+/**
+ * Log-structured {@link NavigableMap} whose entries live in direct buffers, out of the heap.
+ * <p>
+ * New entries are combined in a small heap write buffer. When the buffer is full it is written as a sorted run of
+ * fixed-width entries to direct buffers, and runs of similar size are merged, combining the values of equal keys with
+ * the operator of the map, so there are only a logarithmic number of runs. Lookups of a key search each run; before
+ * any other read all the runs are merged into a single run, which is read through a {@link SortedArrayMap}. The views
+ * returned by the reads are snapshots: they do not see the entries merged after them.
+ * <p>
+ * A run is a list of chunks, direct buffers of as many entries as the write buffer. The merge keeps the head of each
+ * run decoded in a heap of cursors, and hands every chunk that it has read back to a pool, from which the merged run
+ * takes its chunks, so a merge only needs a few chunks beyond the entries it merges, and the chunks are reused instead
+ * of waiting for the garbage collector to release them. The chunks of a run that was read through a view are not
+ * reused, since the view may still read them. The map holds at most {@link Integer#MAX_VALUE} distinct keys.
+ *
+ * @param <K> Type of the keys.
+ * @param <V> Type of the values.
+ */
+final class OffHeapSortedMap<K extends Comparable<K>, V> extends AbstractMap<K, V> implements NavigableMap<K, V> {
+
+    /**
+     * Combines the values of equal keys.
+     */
+    private final BinaryOperator<V> add;
+
+    /**
+     * Encodes the keys.
+     */
+    private final FixedWidthCodec<K> keyCodec;
+
+    /**
+     * Encodes the values.
+     */
+    private final FixedWidthCodec<V> valueCodec;
+
+    /**
+     * Number of bytes of an entry.
+     */
+    private final int entryWidth;
+
+    /**
+     * Number of entries of the write buffer that triggers a new run, and of each chunk of a run.
+     */
+    private final int bufferSize;
+
+    /**
+     * Chunks that no run holds, ready to be reused.
+     */
+    private final Deque<ByteBuffer> pool = new ArrayDeque<>();
+
+    /**
+     * Entries not yet written to a run.
+     */
+    private final TreeMap<K, V> buffer = new TreeMap<>();
+
+    /**
+     * Sorted runs, from the oldest to the newest, each one at most half the size of the previous one.
+     */
+    private final List<Run> runs = new ArrayList<>();
+
+    /**
+     * View over the single run, or {@code null} if entries were merged after it.
+     */
+    private SortedArrayMap<K, V> view;
+
+    /**
+     * Defines an empty map.
+     *
+     * @param add        combines the values of equal keys.
+     * @param keyCodec   encodes the keys.
+     * @param valueCodec encodes the values.
+     * @param bufferSize number of entries of the write buffer that triggers a new run.
+     */
+    OffHeapSortedMap(
+            BinaryOperator<V> add,
+            FixedWidthCodec<K> keyCodec,
+            FixedWidthCodec<V> valueCodec,
+            int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Buffer size must be positive: " + bufferSize);
+        }
+        this.add = add;
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.entryWidth = keyCodec.width() + valueCodec.width();
+        this.bufferSize = bufferSize;
+        // Rejects chunks that do not fit in a buffer.
+        Math.multiplyExact(bufferSize, entryWidth);
+    }
+
+    /**
+     * Combines the given value with the value of the key. The runs are combined with the operator of the map, so the
+     * remapping function must combine values the same way; it is only used within the write buffer.
+     *
+     * @param key       key to include.
+     * @param value     value to combine.
+     * @param remapping function to combine the values within the write buffer.
+     * @return combined value of the key.
+     */
+    @Override
+    public synchronized V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remapping) {
+        buffer.merge(key, value, remapping);
+        final V merged = lookup(key);
+        spillIfFull();
+        return merged;
+    }
+
+    /**
+     * Combines the given value with the value of the key, like {@link OffHeapSortedMap#merge} with the operator of
+     * the map, without looking the combined value up in the runs.
+     *
+     * @param key   key to include.
+     * @param value value to combine.
+     */
+    synchronized void combine(K key, V value) {
+        buffer.merge(key, value, add);
+        spillIfFull();
+    }
+
+    /**
+     * Writes the write buffer to a new run once it is full, and merges the runs of similar size.
+     */
+    private void spillIfFull() {
+        view = null;
+        if (buffer.size() >= bufferSize) {
+            spill();
+            while (runs.size() > 1 && runs.get(runs.size() - 2).size <= 2 * runs.get(runs.size() - 1).size) {
+                compact(runs.size() - 2);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void clear() {
+        buffer.clear();
+        runs.clear();
+        pool.clear();
+        view = null;
+    }
+
+    @Override
+    public int size() {
+        return view().size();
+    }
+
+    @Override
+    public V get(Object key) {
+        return lookup(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return lookup(key) != null;
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return view().entrySet();
+    }
+
+    @Override
+    public Map.Entry<K, V> lowerEntry(K key) {
+        return view().lowerEntry(key);
+    }
+
+    @Override
+    public K lowerKey(K key) {
+        return view().lowerKey(key);
+    }
+
+    @Override
+    public Map.Entry<K, V> floorEntry(K key) {
+        return view().floorEntry(key);
+    }
+
+    @Override
+    public K floorKey(K key) {
+        return view().floorKey(key);
+    }
+
+    @Override
+    public Map.Entry<K, V> ceilingEntry(K key) {
+        return view().ceilingEntry(key);
+    }
+
+    @Override
+    public K ceilingKey(K key) {
+        return view().ceilingKey(key);
+    }
+
+    @Override
+    public Map.Entry<K, V> higherEntry(K key) {
+        return view().higherEntry(key);
+    }
+
+    @Override
+    public K higherKey(K key) {
+        return view().higherKey(key);
+    }
+
+    @Override
+    public Map.Entry<K, V> firstEntry() {
+        return view().firstEntry();
+    }
+
+    @Override
+    public Map.Entry<K, V> lastEntry() {
+        return view().lastEntry();
+    }
+
+    @Override
+    public Map.Entry<K, V> pollFirstEntry() {
+        return view().pollFirstEntry();
+    }
+
+    @Override
+    public Map.Entry<K, V> pollLastEntry() {
+        return view().pollLastEntry();
+    }
+
+    @Override
+    public NavigableMap<K, V> descendingMap() {
+        return view().descendingMap();
+    }
+
+    @Override
+    public NavigableSet<K> navigableKeySet() {
+        return view().navigableKeySet();
+    }
+
+    @Override
+    public NavigableSet<K> keySet() {
+        return view().navigableKeySet();
+    }
+
+    @Override
+    public NavigableSet<K> descendingKeySet() {
+        return view().descendingKeySet();
+    }
+
+    @Override
+    public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        return view().subMap(fromKey, fromInclusive, toKey, toInclusive);
+    }
+
+    @Override
+    public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+        return view().headMap(toKey, inclusive);
+    }
+
+    @Override
+    public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+        return view().tailMap(fromKey, inclusive);
+    }
+
+    @Override
+    public SortedMap<K, V> subMap(K fromKey, K toKey) {
+        return view().subMap(fromKey, toKey);
+    }
+
+    @Override
+    public SortedMap<K, V> headMap(K toKey) {
+        return view().headMap(toKey);
+    }
+
+    @Override
+    public SortedMap<K, V> tailMap(K fromKey) {
+        return view().tailMap(fromKey);
+    }
+
+    @Override
+    public Comparator<? super K> comparator() {
+        return null;
+    }
+
+    @Override
+    public K firstKey() {
+        return view().firstKey();
+    }
+
+    @Override
+    public K lastKey() {
+        return view().lastKey();
+    }
+
+    /**
+     * Combines the values of the key from the oldest run to the newest, and then the write buffer, by a binary search
+     * in each run, without merging them.
+     *
+     * @param key key to look up.
+     * @return combined value of the key, or {@code null} if the map does not hold the key.
+     */
+    @SuppressWarnings("unchecked")
+    private synchronized V lookup(Object key) {
+        final K target = (K) key;
+        V value = null;
+        for (Run run : runs) {
+            final int index = run.indexOf(target);
+            if (index >= 0) {
+                value = value == null ? run.valueAt(index) : add.apply(value, run.valueAt(index));
+            }
+        }
+        final V buffered = buffer.get(target);
+        return buffered == null ? value : value == null ? buffered : add.apply(value, buffered);
+    }
+
+    /**
+     * Merges every entry into a single run and provides a view over it.
+     *
+     * @return view over all the entries.
+     */
+    private synchronized SortedArrayMap<K, V> view() {
+        if (view == null) {
+            spill();
+            compact(0);
+            view = runs.isEmpty() ? new SortedArrayMap<>(new Run(), 0) : runs.get(0).view();
+        }
+        return view;
+    }
+
+    /**
+     * Writes the entries of the write buffer to a new run.
+     */
+    private void spill() {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        final Run run = new Run();
+        for (Map.Entry<K, V> entry : buffer.entrySet()) {
+            run.append(entry.getKey(), entry.getValue());
+        }
+        runs.add(run);
+        buffer.clear();
+    }
+
+    /**
+     * Merges the runs from the given one to the newest into a single run, combining the values of equal keys from the
+     * oldest to the newest. The heads of the runs are kept decoded in a heap of cursors, ordered by key and then from
+     * the oldest run to the newest.
+     *
+     * @param from first run to merge.
+     */
+    private void compact(int from) {
+        final List<Run> merged = runs.subList(from, runs.size());
+        if (merged.size() < 2) {
+            return;
+        }
+        final PriorityQueue<Cursor> heads = new PriorityQueue<>(merged.size());
+        for (int i = 0; i < merged.size(); i++) {
+            final Cursor cursor = new Cursor(merged.get(i), i);
+            if (cursor.advance()) {
+                heads.add(cursor);
+            }
+        }
+        final Run run = new Run();
+        while (!heads.isEmpty()) {
+            final Cursor first = heads.poll();
+            final K key = first.key;
+            V value = first.value;
+            if (first.advance()) {
+                heads.add(first);
+            }
+            while (!heads.isEmpty() && heads.peek().key.compareTo(key) == 0) {
+                final Cursor next = heads.poll();
+                value = add.apply(value, next.value);
+                if (next.advance()) {
+                    heads.add(next);
+                }
+            }
+            run.append(key, value);
+        }
+        merged.clear();
+        runs.add(run);
+    }
+
+    /**
+     * Takes a chunk from the pool, or allocates a new one.
+     *
+     * @return direct buffer in native byte order for {@link OffHeapSortedMap#bufferSize} entries.
+     */
+    private ByteBuffer chunk() {
+        final ByteBuffer chunk = pool.poll();
+        return chunk != null
+                ? chunk
+                : ByteBuffer.allocateDirect(bufferSize * entryWidth).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Sorted entries without repeated keys, stored in chunks of direct buffers.
+     */
+    private final class Run implements SortedArrayMap.Storage<K, V> {
+
+        /**
+         * Chunks of {@link OffHeapSortedMap#bufferSize} entries.
+         */
+        private final List<ByteBuffer> chunks = new ArrayList<>();
+
+        /**
+         * Number of entries.
+         */
+        private int size;
+
+        /**
+         * Whether a view reads the entries, so the chunks cannot be reused.
+         */
+        private boolean shared;
+
+        /**
+         * Writes an entry after the last one, taking a new chunk when the last one is full.
+         *
+         * @param key   key of the entry, greater than the last key.
+         * @param value value of the entry.
+         */
+        void append(K key, V value) {
+            if (size == Integer.MAX_VALUE) {
+                throw new IllegalStateException("Off-heap map is full: " + size + " keys.");
+            }
+            if (size % bufferSize == 0) {
+                chunks.add(chunk());
+            }
+            final ByteBuffer chunk = chunks.get(chunks.size() - 1);
+            final int offset = (size % bufferSize) * entryWidth;
+            keyCodec.write(chunk, offset, key);
+            valueCodec.write(chunk, offset + keyCodec.width(), value);
+            size++;
+        }
+
+        /**
+         * Hands the chunk of the given entry back to the pool, unless a view reads this run.
+         *
+         * @param index position of an entry of the chunk, after which no entry of the chunk is read.
+         */
+        void release(int index) {
+            if (!shared) {
+                final int chunk = index / bufferSize;
+                pool.add(chunks.get(chunk));
+                chunks.set(chunk, null);
+            }
+        }
+
+        /**
+         * Finds the position of the given key by a binary search.
+         *
+         * @param key key to find.
+         * @return position of the key, or a negative number if the run does not hold the key.
+         */
+        int indexOf(K key) {
+            int low = 0;
+            int high = size - 1;
+            while (low <= high) {
+                final int middle = (low + high) >>> 1;
+                final int comparison = keyAt(middle).compareTo(key);
+                if (comparison < 0) {
+                    low = middle + 1;
+                } else if (comparison > 0) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public K keyAt(int index) {
+            return keyCodec.read(chunks.get(index / bufferSize), (index % bufferSize) * entryWidth);
+        }
+
+        @Override
+        public V valueAt(int index) {
+            return valueCodec.read(
+                    chunks.get(index / bufferSize), (index % bufferSize) * entryWidth + keyCodec.width());
+        }
+
+        /**
+         * Provides a read-only view over the entries, after which the chunks are not reused.
+         *
+         * @return view over the entries.
+         */
+        SortedArrayMap<K, V> view() {
+            shared = true;
+            return new SortedArrayMap<>(this, size);
+        }
+    }
+
+    /**
+     * Position of a merge within a run, with the entry at the position decoded.
+     */
+    private final class Cursor implements Comparable<Cursor> {
+
+        /**
+         * Run that is merged.
+         */
+        private final Run run;
+
+        /**
+         * Age of the run, lower for older runs.
+         */
+        private final int age;
+
+        /**
+         * Position of the next entry to decode.
+         */
+        private int position;
+
+        /**
+         * Key of the current entry.
+         */
+        private K key;
+
+        /**
+         * Value of the current entry.
+         */
+        private V value;
+
+        Cursor(Run run, int age) {
+            this.run = run;
+            this.age = age;
+        }
+
+        /**
+         * Decodes the next entry of the run, handing each chunk back to the pool once all its entries are decoded.
+         *
+         * @return whether there was a next entry.
+         */
+        boolean advance() {
+            if (position > 0 && (position % bufferSize == 0 || position == run.size)) {
+                run.release(position - 1);
+            }
+            if (position == run.size) {
+                return false;
+            }
+            key = run.keyAt(position);
+            value = run.valueAt(position++);
+            return true;
+        }
+
+        @Override
+        public int compareTo(Cursor that) {
+            final int comparison = key.compareTo(that.key);
+            return comparison != 0 ? comparison : Integer.compare(age, that.age);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package name.julatec.util.collection;
+
+import java.util.Comparator;
+import java.util.Iterator;
+
+/**
+ * Decorates an iterator that is expected to be sorted, failing as soon as an element is lower than the previous one.
+ * Each element is compared once with the previous one, so the check does not buffer the elements.
+ *
+ * @param <T> Type of the elements.
+ */
+final class OrderCheckingIterator<T> implements Iterator<T> {
+
+    /**
+     * Underlying iterator.
+     */
+    private final Iterator<T> target;
+
+    /**
+     * Expected order of the elements.
+     */
+    private final Comparator<? super T> comparator;
+
+    /**
+     * Previous element.
+     */
+    private T previous;
+
+    /**
+     * Whether the previous element was returned.
+     */
+    private boolean started;
+
+    /**
+     * Decorates the given target iterator.
+     *
+     * @param target     underlying iterator.
+     * @param comparator expected order of the elements.
+     */
+    OrderCheckingIterator(Iterator<T> target, Comparator<? super T> comparator) {
+        this.target = target;
+        this.comparator = comparator;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return target.hasNext();
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException if the element is lower than the previous one.
+     */
+    @Override
+    public T next() {
+        final T next = target.next();
+        if (started && comparator.compare(previous, next) > 0) {
+            throw new IllegalStateException("Out of order element " + next + " after " + previous);
+        }
+        previous = next;
+        started = true;
+        return next;
+    }
+}
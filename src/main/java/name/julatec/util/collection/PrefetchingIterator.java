@@ -0,0 +1,229 @@
+package name.julatec.util.collection;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.util.Spliterators.spliteratorUnknownSize;
+
+/**
+ * Decorates an iterator to read its elements ahead on another thread, so a slow source, such as a file or a database
+ * cursor, is read while the consumer works on the previous elements.
+ * <p>
+ * The elements are handed over through a bounded queue: the reader blocks when the queue is full, so it is never more
+ * than {@code capacity} elements ahead. Closing the iterator stops the reader, waits until it no longer reads the
+ * underlying iterator, so the source can be closed right after, and drops the elements read ahead. The reader runs on
+ * the given {@link Executor}, such as a virtual thread per task executor where available, or on a new daemon thread by
+ * default. The iterator may return {@code null} elements.
+ *
+ * @param <T> Type of the elements.
+ */
+public final class PrefetchingIterator<T> implements Iterator<T>, AutoCloseable {
+
+    /**
+     * Stands for a {@code null} element in the queue.
+     */
+    private static final Object NULL = new Object();
+
+    /**
+     * Marks the end of the elements in the queue.
+     */
+    private static final Object END = new Object();
+
+    /**
+     * Marks that the head was not taken from the queue.
+     */
+    private static final Object NONE = new Object();
+
+    /**
+     * Elements read ahead.
+     */
+    private final BlockingQueue<Object> queue;
+
+    /**
+     * Failure of the underlying iterator, rethrown after the elements read before it.
+     */
+    private volatile RuntimeException failure;
+
+    /**
+     * Whether the iterator was closed.
+     */
+    private volatile boolean closed;
+
+    /**
+     * Released when the reader stopped reading the underlying iterator.
+     */
+    private final CountDownLatch finished = new CountDownLatch(1);
+
+    /**
+     * Thread that reads the underlying iterator, while it runs, guarded by this instance.
+     */
+    private Thread reader;
+
+    /**
+     * Next element, taken from the queue.
+     */
+    private Object head = NONE;
+
+    /**
+     * Reads the given iterator ahead on a new daemon thread.
+     *
+     * @param target   underlying iterator.
+     * @param capacity maximum number of elements read ahead.
+     */
+    public PrefetchingIterator(Iterator<T> target, int capacity) {
+        this(target, capacity, runnable -> {
+            final Thread thread = new Thread(runnable, "prefetching-iterator");
+            thread.setDaemon(true);
+            thread.start();
+        });
+    }
+
+    /**
+     * Reads the given iterator ahead on the given executor.
+     *
+     * @param target   underlying iterator.
+     * @param capacity maximum number of elements read ahead.
+     * @param executor runs the reader of the underlying iterator.
+     */
+    public PrefetchingIterator(Iterator<T> target, int capacity, Executor executor) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+        }
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        executor.execute(() -> read(target));
+    }
+
+    /**
+     * Reads the given stream ahead on the given executor.
+     *
+     * @param stream   underlying stream.
+     * @param capacity maximum number of elements read ahead.
+     * @param executor runs the reader of the underlying stream.
+     * @param <T>      Type of the elements.
+     * @return sequential stream that stops the reader and closes the underlying stream when closed.
+     */
+    public static <T> Stream<T> prefetch(Stream<T> stream, int capacity, Executor executor) {
+        final PrefetchingIterator<T> iterator = new PrefetchingIterator<>(stream.iterator(), capacity, executor);
+        final Spliterator<T> spliterator = spliteratorUnknownSize(iterator, Spliterator.ORDERED);
+        return StreamSupport.stream(spliterator, false)
+                .onClose(iterator::close)
+                .onClose(stream::close);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws IllegalStateException if the iterator was closed, or the thread was interrupted while waiting.
+     */
+    @Override
+    public boolean hasNext() {
+        if (closed) {
+            throw new IllegalStateException("Iterator is closed.");
+        }
+        if (head == NONE) {
+            try {
+                head = queue.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the next element.", e);
+            }
+        }
+        if (head == END) {
+            final RuntimeException failure = this.failure;
+            if (failure != null) {
+                this.failure = null;
+                throw failure;
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final Object result = head;
+        head = NONE;
+        return result == NULL ? null : (T) result;
+    }
+
+    /**
+     * Stops the reader, waits until it no longer reads the underlying iterator, and drops the elements read ahead,
+     * after which the iterator cannot be read. An interrupt of the calling thread does not cut the wait short, it is
+     * kept for the caller.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        synchronized (this) {
+            if (reader != null) {
+                reader.interrupt();
+            }
+        }
+        queue.clear();
+        head = NONE;
+        boolean interrupted = false;
+        while (true) {
+            try {
+                finished.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Reads the underlying iterator into the queue until it is exhausted, it fails, or this iterator is closed.
+     *
+     * @param target underlying iterator.
+     */
+    private void read(Iterator<T> target) {
+        synchronized (this) {
+            if (closed) {
+                finished.countDown();
+                return;
+            }
+            reader = Thread.currentThread();
+        }
+        try {
+            while (!closed && target.hasNext()) {
+                final T element = target.next();
+                queue.put(element == null ? NULL : element);
+            }
+        } catch (InterruptedException e) {
+            if (!closed) {
+                failure = new IllegalStateException("Interrupted while reading ahead.", e);
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        } finally {
+            synchronized (this) {
+                reader = null;
+                // The thread may belong to a pool, an interrupt from close must not leak to its next task.
+                Thread.interrupted();
+            }
+            finished.countDown();
+        }
+        if (!closed) {
+            try {
+                queue.put(END);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
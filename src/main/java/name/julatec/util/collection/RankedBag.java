@@ -0,0 +1,398 @@
+package name.julatec.util.collection;
+
+import org.apache.commons.lang3.builder.ToStringBuilder;
+import org.apache.commons.lang3.builder.ToStringStyle;
+
+import java.util.*;
+import java.util.function.BinaryOperator;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Defines a collection that counts the number of times a key object appears in the collection, and that keeps the
+ * keys sorted in an order-statistics tree. Each node of the tree knows the sum of the counts of its subtree, so the
+ * cumulative count up to a key, and the key at a cumulative count, are found in {@code O(log n)} without walking the
+ * whole collection.
+ * <p>
+ * The tree is a treap stored in parallel primitive arrays, so incrementing the count of a key that is already in the
+ * bag does not allocate.
+ *
+ * @param <K> The Key type of the collection.
+ */
+public class RankedBag<K extends Comparable<K>> implements Iterable<Map.Entry<K, Long>> {
+
+    /**
+     * Index of the missing node.
+     */
+    private static final int NIL = 0;
+
+    /**
+     * Initial number of nodes of the tree.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Keys of the nodes.
+     */
+    private Object[] keys;
+
+    /**
+     * Counts of the nodes.
+     */
+    private long[] counts;
+
+    /**
+     * Sum of the counts of the subtree of each node.
+     */
+    private long[] totals;
+
+    /**
+     * Left child of each node.
+     */
+    private int[] left;
+
+    /**
+     * Right child of each node.
+     */
+    private int[] right;
+
+    /**
+     * Heap priority of each node.
+     */
+    private int[] priorities;
+
+    /**
+     * Root of the tree.
+     */
+    private int root = NIL;
+
+    /**
+     * Number of keys, the node {@code i} is in use for {@code 0 < i <= size}.
+     */
+    private int size;
+
+    /**
+     * State of the pseudo random generator of priorities.
+     */
+    private int seed = 0x2545F491;
+
+    /**
+     * Defines an empty bag.
+     */
+    public RankedBag() {
+        keys = new Object[INITIAL_CAPACITY];
+        counts = new long[INITIAL_CAPACITY];
+        totals = new long[INITIAL_CAPACITY];
+        left = new int[INITIAL_CAPACITY];
+        right = new int[INITIAL_CAPACITY];
+        priorities = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Gets the operator that defines the counts of this instance.
+     *
+     * @return instance operator.
+     */
+    public BinaryOperator<Long> getOperator() {
+        return Long::sum;
+    }
+
+    /**
+     * Adds the given delta to the count of the given key.
+     *
+     * @param key   key to include.
+     * @param delta value to add.
+     * @return this instance.
+     */
+    public synchronized RankedBag<K> increment(K key, long delta) {
+        root = insert(root, key, delta);
+        return this;
+    }
+
+    /**
+     * Merges the this object with the given bag that.
+     *
+     * @param that bag collection with the counts to include on this bag.
+     * @return this instance.
+     */
+    public RankedBag<K> merge(RankedBag<K> that) {
+        that.forEach(this::increment);
+        return this;
+    }
+
+    /**
+     * Gets the count associated with the key.
+     *
+     * @param key key to lookup.
+     * @return count associated to key, or zero if the key is not in the bag.
+     */
+    public long get(K key) {
+        return getOrElse(key, 0L);
+    }
+
+    /**
+     * Returns the count associated with the key, or {@code defaultValue} if this bag contains no count for the key.
+     *
+     * @param key          the key whose associated count is to be returned.
+     * @param defaultValue the default count of the key.
+     * @return the count associated with the key, or {@code defaultValue} if this bag contains no count for the key.
+     */
+    public synchronized long getOrElse(K key, long defaultValue) {
+        int node = root;
+        while (node != NIL) {
+            final int comparison = key.compareTo(key(node));
+            if (comparison == 0) {
+                return counts[node];
+            }
+            node = comparison < 0 ? left[node] : right[node];
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Returns the number of keys in this bag.
+     *
+     * @return the number of keys in this bag.
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the sum of all the counts in this bag.
+     *
+     * @return the sum of all the counts in this bag.
+     */
+    public synchronized long getTotalCount() {
+        return totals[root];
+    }
+
+    /**
+     * Returns the lowest key of this bag.
+     *
+     * @return lowest key, or {@code null} if the bag is empty.
+     */
+    public synchronized K firstKey() {
+        int node = root;
+        while (node != NIL && left[node] != NIL) {
+            node = left[node];
+        }
+        return node == NIL ? null : key(node);
+    }
+
+    /**
+     * Returns the highest key of this bag.
+     *
+     * @return highest key, or {@code null} if the bag is empty.
+     */
+    public synchronized K lastKey() {
+        int node = root;
+        while (node != NIL && right[node] != NIL) {
+            node = right[node];
+        }
+        return node == NIL ? null : key(node);
+    }
+
+    /**
+     * Returns the sum of the counts of the keys that are lower or equal than the given key.
+     *
+     * @param key key to lookup.
+     * @return cumulative count up to the key.
+     */
+    public synchronized long rank(K key) {
+        long rank = 0;
+        int node = root;
+        while (node != NIL) {
+            final int comparison = key.compareTo(key(node));
+            if (comparison < 0) {
+                node = left[node];
+            } else {
+                rank += totals[left[node]] + counts[node];
+                if (comparison == 0) {
+                    break;
+                }
+                node = right[node];
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the lowest key whose cumulative count is greater or equal than the given rank.
+     *
+     * @param rank cumulative count to lookup.
+     * @return key at the rank, or {@code null} if the rank is greater than the total count.
+     */
+    public synchronized K select(long rank) {
+        long before = 0;
+        int node = root;
+        while (node != NIL) {
+            final long leftTotal = totals[left[node]];
+            if (left[node] != NIL && before + leftTotal >= rank) {
+                node = left[node];
+            } else if (before + leftTotal + counts[node] >= rank) {
+                return key(node);
+            } else {
+                before += leftTotal + counts[node];
+                node = right[node];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Performs the given action for each key and count in ascending key order.
+     *
+     * @param action action to perform.
+     */
+    public void forEach(ObjLongConsumer<? super K> action) {
+        final Object[] sortedKeys;
+        final long[] sortedCounts;
+        synchronized (this) {
+            sortedKeys = new Object[size];
+            sortedCounts = new long[size];
+            int[] stack = new int[INITIAL_CAPACITY];
+            int depth = 0;
+            int index = 0;
+            int node = root;
+            while (node != NIL || depth > 0) {
+                while (node != NIL) {
+                    if (depth == stack.length) {
+                        stack = Arrays.copyOf(stack, depth * 2);
+                    }
+                    stack[depth++] = node;
+                    node = left[node];
+                }
+                node = stack[--depth];
+                sortedKeys[index] = keys[node];
+                sortedCounts[index++] = counts[node];
+                node = right[node];
+            }
+        }
+        for (int i = 0; i < sortedKeys.length; i++) {
+            action.accept(key(sortedKeys[i]), sortedCounts[i]);
+        }
+    }
+
+    @Override
+    public Iterator<Map.Entry<K, Long>> iterator() {
+        return toNavigableMap().entrySet().iterator();
+    }
+
+    /**
+     * Returns a sorted and unmodifiable copy of this bag.
+     *
+     * @return navigable version of the current bag.
+     */
+    public NavigableMap<K, Long> toNavigableMap() {
+        final TreeMap<K, Long> treeMap = new TreeMap<>();
+        forEach(treeMap::put);
+        return java.util.Collections.unmodifiableNavigableMap(treeMap);
+    }
+
+    @Override
+    public String toString() {
+        final ToStringBuilder stringBuilder = new ToStringBuilder(this, ToStringStyle.JSON_STYLE);
+        forEach((k, v) -> stringBuilder.append(String.valueOf(k), v));
+        return stringBuilder.toString();
+    }
+
+    /**
+     * Adds the delta to the key in the given subtree, inserting the key if it is missing.
+     *
+     * @param node  root of the subtree.
+     * @param key   key to include.
+     * @param delta value to add.
+     * @return new root of the subtree.
+     */
+    private int insert(int node, K key, long delta) {
+        if (node == NIL) {
+            return create(key, delta);
+        }
+        final int comparison = key.compareTo(key(node));
+        if (comparison == 0) {
+            counts[node] += delta;
+        } else if (comparison < 0) {
+            // The arrays may grow while inserting, so the child is assigned after the recursive call returns.
+            final int child = insert(left[node], key, delta);
+            left[node] = child;
+            if (priorities[child] > priorities[node]) {
+                node = rotateRight(node);
+            }
+        } else {
+            final int child = insert(right[node], key, delta);
+            right[node] = child;
+            if (priorities[child] > priorities[node]) {
+                node = rotateLeft(node);
+            }
+        }
+        totals[node] += delta;
+        return node;
+    }
+
+    /**
+     * Creates a new leaf node.
+     *
+     * @param key   key of the node.
+     * @param count count of the node.
+     * @return the new node.
+     */
+    private int create(K key, long count) {
+        if (size + 1 == keys.length) {
+            final int capacity = keys.length * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+            totals = Arrays.copyOf(totals, capacity);
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            priorities = Arrays.copyOf(priorities, capacity);
+        }
+        final int node = ++size;
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        keys[node] = key;
+        counts[node] = count;
+        totals[node] = count;
+        priorities[node] = seed;
+        return node;
+    }
+
+    /**
+     * Rotates the given node with its left child, keeping the subtree totals.
+     *
+     * @param node node to rotate.
+     * @return new root of the subtree.
+     */
+    private int rotateRight(int node) {
+        final int pivot = left[node];
+        left[node] = right[pivot];
+        right[pivot] = node;
+        totals[pivot] = totals[node];
+        totals[node] = totals[left[node]] + totals[right[node]] + counts[node];
+        return pivot;
+    }
+
+    /**
+     * Rotates the given node with its right child, keeping the subtree totals.
+     *
+     * @param node node to rotate.
+     * @return new root of the subtree.
+     */
+    private int rotateLeft(int node) {
+        final int pivot = right[node];
+        right[node] = left[pivot];
+        left[pivot] = node;
+        totals[pivot] = totals[node];
+        totals[node] = totals[left[node]] + totals[right[node]] + counts[node];
+        return pivot;
+    }
+
+    @SuppressWarnings("unchecked")
+    private K key(Object key) {
+        return (K) key;
+    }
+
+    private K key(int node) {
+        return key(keys[node]);
+    }
+}
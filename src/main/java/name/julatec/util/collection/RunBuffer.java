@@ -0,0 +1,224 @@
+package name.julatec.util.collection;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Buffer of a run of values that is read several times, such as the values with the same key of one side of a join.
+ * The array of the buffer is reused from one run to the next. When a {@link Codec} is given, the values beyond the
+ * memory size are spilled to a temporary file, and read back from it on each replay.
+ *
+ * @param <T> Type of the values.
+ */
+final class RunBuffer<T> implements Closeable {
+
+    /**
+     * Initial capacity of the array of the buffer.
+     */
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Spills the values beyond the memory size, or {@code null} to keep all the values in memory.
+     */
+    private final Codec<T> codec;
+
+    /**
+     * Maximum number of values kept in memory when a codec is given.
+     */
+    private final int memorySize;
+
+    /**
+     * Values kept in memory.
+     */
+    private Object[] values = new Object[INITIAL_CAPACITY];
+
+    /**
+     * Number of values kept in memory.
+     */
+    private int size;
+
+    /**
+     * File of the spilled values, or {@code null} if there are none.
+     */
+    private Path file;
+
+    /**
+     * Output of the spilled values.
+     */
+    private DataOutputStream output;
+
+    /**
+     * Input of the last replay of the spilled values.
+     */
+    private DataInputStream input;
+
+    /**
+     * Number of spilled values.
+     */
+    private long spilled;
+
+    /**
+     * Defines a buffer that keeps all the values in memory.
+     */
+    RunBuffer() {
+        this(null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Defines a buffer that spills the values beyond the memory size with the given codec.
+     *
+     * @param codec      spills the values beyond the memory size, or {@code null} to keep them in memory.
+     * @param memorySize maximum number of values kept in memory.
+     */
+    RunBuffer(Codec<T> codec, int memorySize) {
+        this.codec = codec;
+        this.memorySize = memorySize;
+    }
+
+    /**
+     * Whether the buffer has no values.
+     *
+     * @return true if the buffer has no values.
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Gets the first value of the run.
+     *
+     * @return the first value of the run.
+     */
+    T first() {
+        return value(0);
+    }
+
+    /**
+     * Appends the given value to the run.
+     *
+     * @param value value to append.
+     * @throws UncheckedIOException if the value cannot be spilled.
+     */
+    void add(T value) {
+        if (codec == null || size < memorySize) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+            return;
+        }
+        try {
+            if (output == null) {
+                file = Files.createTempFile("run-buffer", ".run");
+                output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+            }
+            codec.write(output, value);
+            spilled++;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns an iterator over the values of the run, in the order they were added.
+     *
+     * @return iterator over the values of the run.
+     * @throws UncheckedIOException if the spilled values cannot be read.
+     */
+    Iterator<T> iterator() {
+        try {
+            if (output != null) {
+                output.flush();
+            }
+            closeInput();
+            if (spilled > 0) {
+                input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        final DataInputStream replay = input;
+        return new Iterator<>() {
+
+            int index;
+
+            long read;
+
+            @Override
+            public boolean hasNext() {
+                return index < size || read < spilled;
+            }
+
+            @Override
+            public T next() {
+                if (index < size) {
+                    return value(index++);
+                }
+                if (read == spilled) {
+                    throw new NoSuchElementException();
+                }
+                read++;
+                try {
+                    return codec.read(replay);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Removes the values of the run, keeping the array for the next run.
+     *
+     * @throws UncheckedIOException if the spilled values cannot be deleted.
+     */
+    void clear() {
+        Arrays.fill(values, 0, size, null);
+        size = 0;
+        if (file != null) {
+            try {
+                closeInput();
+                output.close();
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                output = null;
+                file = null;
+                spilled = 0;
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        clear();
+    }
+
+    /**
+     * Closes the input of the last replay.
+     *
+     * @throws IOException if the input cannot be closed.
+     */
+    private void closeInput() throws IOException {
+        if (input != null) {
+            input.close();
+            input = null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private T value(int index) {
+        return (T) values[index];
+    }
+}
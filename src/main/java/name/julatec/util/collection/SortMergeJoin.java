@@ -1,10 +1,13 @@
 package name.julatec.util.collection;
 
 import java.util.Comparator;
-import java.util.Iterator;
+import java.util.List;
 import java.util.Optional;
 import java.util.Spliterator;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.ToIntBiFunction;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -44,6 +47,26 @@ public interface SortMergeJoin<L, R, M> {
      */
     M leftMerge(Optional<M> merged, L left);
 
+    /**
+     * Merges the given {@code merged} value with the given {@code right value}, without wrapping the current value.
+     * @param merged current value, or {@code null} if there is none.
+     * @param right right value.
+     * @return merged result of {@code merged} and {@code right}.
+     */
+    default M rightMergeNullable(M merged, R right) {
+        return rightMerge(Optional.ofNullable(merged), right);
+    }
+
+    /**
+     * Merges the given {@code merged} value with the given {@code left value}, without wrapping the current value.
+     * @param merged current value, or {@code null} if there is none.
+     * @param left left value.
+     * @return merged result of {@code merged} and {@code left}.
+     */
+    default M leftMergeNullable(M merged, L left) {
+        return leftMerge(Optional.ofNullable(merged), left);
+    }
+
     /**
      * Compares its two arguments for order.  Returns a negative integer,
      * zero, or a positive integer as the first argument is less than, equal
@@ -75,54 +98,189 @@ public interface SortMergeJoin<L, R, M> {
      * @return merged stream.
      */
     default Stream<M> merge(Stream<L> left, Stream<R> right) {
-        final LookAheadIterator<L> lLookAheadIterator = new LookAheadIterator<>(left.sorted(this::leftCompare).iterator());
-        final LookAheadIterator<R> rLookAheadIterator = new LookAheadIterator<>(right.sorted(this::rightCompare).iterator());
-        Iterator<M> iterator = new Iterator<>() {
-
-            Optional<M> current = Optional.empty();
-
-            @Override
-            public boolean hasNext() {
-                if (current.isPresent()) {
-                    return true;
-                }
-                switch ((lLookAheadIterator.hasNext() ? 0b10 : 0) | (rLookAheadIterator.hasNext() ? 0b01 : 0)) {
-                    case 0b01:
-                        current = Optional.of(rightMerge(current, rLookAheadIterator.next()));
-                        return true;
-                    case 0b10:
-                        current = Optional.of(leftMerge(current, lLookAheadIterator.next()));
-                        return true;
-                    case 0b11:
-                        final L l = lLookAheadIterator.peek().get();
-                        final R r = rLookAheadIterator.peek().get();
-                        final int comparison = compare(l, r);
-                        if (comparison == 0) {
-                            current = Optional.empty();
-                        }
-                        if (comparison >= 0) {
-                            current = Optional.of(rightMerge(current, rLookAheadIterator.next()));
-                        }
-                        if (comparison <= 0) {
-                            current = Optional.of(leftMerge(current, lLookAheadIterator.next()));
-                        }
-
-                        return true;
-                    default:
-                        return false;
-
-                }
-            }
-
-            @Override
-            public M next() {
-                M result = current.get();
-                current = Optional.empty();
-                return result;
-            }
-        };
+        return merge(left, right, JoinType.FULL_OUTER);
+    }
+
+    /**
+     * Merges two given streams, returning the values defined by the join type. Every left value is paired with every
+     * right value with the same key.
+     * @param left the first stream to merge.
+     * @param right the second stream to merge.
+     * @param joinType values returned by the join.
+     * @return merged stream.
+     */
+    default Stream<M> merge(Stream<L> left, Stream<R> right, JoinType joinType) {
+        return stream(new SortMergeJoinIterator<>(
+                this,
+                joinType,
+                left.sorted(this::leftCompare).iterator(),
+                right.sorted(this::rightCompare).iterator(),
+                new RunBuffer<>()));
+    }
+
+    /**
+     * Merges two given streams that are already sorted, without buffering them. The values are merged as they are
+     * read, so the memory does not depend on the size of the streams. The order of each stream is verified as it is
+     * read.
+     * @param left the first stream to merge, sorted by {@link SortMergeJoin#leftCompare(Object, Object)}.
+     * @param right the second stream to merge, sorted by {@link SortMergeJoin#rightCompare(Object, Object)}.
+     * @return merged stream, whose traversal throws {@link IllegalStateException} on out of order values.
+     */
+    default Stream<M> mergeSorted(Stream<L> left, Stream<R> right) {
+        return mergeSorted(left, right, JoinType.FULL_OUTER);
+    }
+
+    /**
+     * Merges two given streams that are already sorted, returning the values defined by the join type. Only the right
+     * values with the key being merged are buffered.
+     * @param left the first stream to merge, sorted by {@link SortMergeJoin#leftCompare(Object, Object)}.
+     * @param right the second stream to merge, sorted by {@link SortMergeJoin#rightCompare(Object, Object)}.
+     * @param joinType values returned by the join.
+     * @return merged stream, whose traversal throws {@link IllegalStateException} on out of order values.
+     */
+    default Stream<M> mergeSorted(Stream<L> left, Stream<R> right, JoinType joinType) {
+        return stream(new SortMergeJoinIterator<>(
+                this,
+                joinType,
+                new OrderCheckingIterator<>(left.iterator(), this::leftCompare),
+                new OrderCheckingIterator<>(right.iterator(), this::rightCompare),
+                new RunBuffer<>()));
+    }
+
+    /**
+     * Merges two given streams that may not fit in memory. Each stream is sorted with an {@link ExternalSort} that
+     * keeps at most {@code runSize} values in memory and spills the sorted runs to temporary files, then the sorted
+     * runs are merged as they are read.
+     * @param left the first stream to merge.
+     * @param right the second stream to merge.
+     * @param leftCodec spills the left values.
+     * @param rightCodec spills the right values.
+     * @param runSize maximum number of values of each stream sorted in memory.
+     * @return merged stream, that must be closed to delete the temporary files.
+     */
+    default Stream<M> externalMerge(
+            Stream<L> left,
+            Stream<R> right,
+            Codec<L> leftCodec,
+            Codec<R> rightCodec,
+            int runSize) {
+        return externalMerge(left, right, leftCodec, rightCodec, runSize, JoinType.FULL_OUTER);
+    }
+
+    /**
+     * Merges two given streams that may not fit in memory, returning the values defined by the join type. The right
+     * values with the key being merged are spilled too when there are more than {@code runSize} of them.
+     * @param left the first stream to merge.
+     * @param right the second stream to merge.
+     * @param leftCodec spills the left values.
+     * @param rightCodec spills the right values.
+     * @param runSize maximum number of values of each stream sorted in memory.
+     * @param joinType values returned by the join.
+     * @return merged stream, that must be closed to delete the temporary files.
+     */
+    default Stream<M> externalMerge(
+            Stream<L> left,
+            Stream<R> right,
+            Codec<L> leftCodec,
+            Codec<R> rightCodec,
+            int runSize,
+            JoinType joinType) {
+        final Stream<L> sortedLeft = new ExternalSort<L>(this::leftCompare, leftCodec, runSize).sort(left);
+        final Stream<R> sortedRight;
+        try {
+            sortedRight = new ExternalSort<R>(this::rightCompare, rightCodec, runSize).sort(right);
+        } catch (RuntimeException e) {
+            sortedLeft.close();
+            throw e;
+        }
+        return stream(new SortMergeJoinIterator<>(
+                this,
+                joinType,
+                sortedLeft.iterator(),
+                sortedRight.iterator(),
+                new RunBuffer<>(rightCodec, runSize)))
+                .onClose(sortedLeft::close)
+                .onClose(sortedRight::close);
+    }
+
+    /**
+     * Merges two given streams, pushing the values defined by the join type into the given sink instead of returning
+     * a stream, so no value is buffered between the merge and the sink.
+     * @param left the first stream to merge.
+     * @param right the second stream to merge.
+     * @param joinType values returned by the join.
+     * @param sink consumer of the merged values.
+     */
+    default void mergeInto(Stream<L> left, Stream<R> right, JoinType joinType, Consumer<? super M> sink) {
+        try (SortMergeJoinIterator<L, R, M> iterator = new SortMergeJoinIterator<>(
+                this,
+                joinType,
+                left.sorted(this::leftCompare).iterator(),
+                right.sorted(this::rightCompare).iterator(),
+                new RunBuffer<>())) {
+            iterator.forEachRemaining(sink);
+        }
+    }
+
+    /**
+     * Merges two given streams that are already sorted, pushing the values defined by the join type into the given
+     * sink instead of returning a stream.
+     * @param left the first stream to merge, sorted by {@link SortMergeJoin#leftCompare(Object, Object)}.
+     * @param right the second stream to merge, sorted by {@link SortMergeJoin#rightCompare(Object, Object)}.
+     * @param joinType values returned by the join.
+     * @param sink consumer of the merged values.
+     * @throws IllegalStateException on out of order values.
+     */
+    default void mergeSortedInto(Stream<L> left, Stream<R> right, JoinType joinType, Consumer<? super M> sink) {
+        try (SortMergeJoinIterator<L, R, M> iterator = new SortMergeJoinIterator<>(
+                this,
+                joinType,
+                new OrderCheckingIterator<>(left.iterator(), this::leftCompare),
+                new OrderCheckingIterator<>(right.iterator(), this::rightCompare),
+                new RunBuffer<>())) {
+            iterator.forEachRemaining(sink);
+        }
+    }
+
+    /**
+     * Merges two given streams in parallel. Both streams are sorted in parallel, then split on the same key
+     * boundaries, so each partition is merged on its own thread of the fork-join pool, and the stream keeps the merged
+     * values in order.
+     * @param left the first stream to merge.
+     * @param right the second stream to merge.
+     * @return parallel merged stream.
+     */
+    default Stream<M> parallelMerge(Stream<L> left, Stream<R> right) {
+        return parallelMerge(left, right, JoinType.FULL_OUTER);
+    }
+
+    /**
+     * Merges two given streams in parallel, returning the values defined by the join type, like
+     * {@link #merge(Stream, Stream, JoinType)}. Both streams are sorted in parallel, then split on the same key
+     * boundaries, so each partition is merged on its own thread of the fork-join pool, and the stream keeps the merged
+     * values in order.
+     * @param left the first stream to merge.
+     * @param right the second stream to merge.
+     * @param joinType values returned by the join.
+     * @return parallel merged stream.
+     */
+    default Stream<M> parallelMerge(Stream<L> left, Stream<R> right, JoinType joinType) {
+        final List<L> sortedLeft = left.parallel().sorted(this::leftCompare).collect(Collectors.toList());
+        final List<R> sortedRight = right.parallel().sorted(this::rightCompare).collect(Collectors.toList());
+        return StreamSupport.stream(new SortMergeJoinSpliterator<>(this, joinType, sortedLeft, sortedRight), true);
+    }
+
+    /**
+     * Wraps the given merge iterator in a sequential stream that releases its run buffer when closed.
+     * @param iterator merge iterator.
+     * @param <L> Left part of the join.
+     * @param <R> Right part of the join.
+     * @param <M> Result of the join of L and R.
+     * @return merged stream.
+     */
+    private static <L, R, M> Stream<M> stream(SortMergeJoinIterator<L, R, M> iterator) {
         final Spliterator<M> spliterator = spliteratorUnknownSize(iterator, Spliterator.ORDERED);
-        return StreamSupport.stream(spliterator, false);
+        return StreamSupport.stream(spliterator, false).onClose(iterator::close);
     }
 
     static <L, R, M> SortMergeJoin<L, R, M> of(
@@ -133,6 +291,28 @@ public interface SortMergeJoin<L, R, M> {
             Comparator<R> rComparator) {
         return new SortMergeJoinImpl<>(compare, lMerge, rMerge, lComparator, rComparator);
     }
+
+    /**
+     * Defines a join that does not allocate per value: the comparison between both sides returns a primitive
+     * {@code int}, and the merge functions receive the current value, or {@code null}, instead of an {@link Optional}.
+     * @param compare compares a left value to a right value.
+     * @param lMerge merges the current value, or {@code null}, with a left value.
+     * @param rMerge merges the current value, or {@code null}, with a right value.
+     * @param lComparator order of the left values.
+     * @param rComparator order of the right values.
+     * @param <L> Left part of the join.
+     * @param <R> Right part of the join.
+     * @param <M> Result of the join of L and R.
+     * @return new SortMergeJoin instance.
+     */
+    static <L, R, M> SortMergeJoin<L, R, M> ofNullable(
+            ToIntBiFunction<L, R> compare,
+            BiFunction<M, L, M> lMerge,
+            BiFunction<M, R, M> rMerge,
+            Comparator<L> lComparator,
+            Comparator<R> rComparator) {
+        return new NullableSortMergeJoin<>(compare, lMerge, rMerge, lComparator, rComparator);
+    }
 }
 
 final class SortMergeJoinImpl<L, R, M> implements SortMergeJoin<L, R, M> {
@@ -186,3 +366,65 @@ final class SortMergeJoinImpl<L, R, M> implements SortMergeJoin<L, R, M> {
     }
 
 }
+
+final class NullableSortMergeJoin<L, R, M> implements SortMergeJoin<L, R, M> {
+
+    private final ToIntBiFunction<L, R> compare;
+
+    private final BiFunction<M, L, M> lMerge;
+
+    private final BiFunction<M, R, M> rMerge;
+
+    private final Comparator<L> lComparator;
+
+    private final Comparator<R> rComparator;
+
+    NullableSortMergeJoin(
+            ToIntBiFunction<L, R> compare,
+            BiFunction<M, L, M> lMerge,
+            BiFunction<M, R, M> rMerge,
+            Comparator<L> lComparator,
+            Comparator<R> rComparator) {
+        this.compare = compare;
+        this.lMerge = lMerge;
+        this.rMerge = rMerge;
+        this.lComparator = lComparator;
+        this.rComparator = rComparator;
+    }
+
+    @Override
+    public int compare(L left, R right) {
+        return compare.applyAsInt(left, right);
+    }
+
+    @Override
+    public M rightMerge(Optional<M> merged, R right) {
+        return rMerge.apply(merged.orElse(null), right);
+    }
+
+    @Override
+    public M leftMerge(Optional<M> merged, L left) {
+        return lMerge.apply(merged.orElse(null), left);
+    }
+
+    @Override
+    public M rightMergeNullable(M merged, R right) {
+        return rMerge.apply(merged, right);
+    }
+
+    @Override
+    public M leftMergeNullable(M merged, L left) {
+        return lMerge.apply(merged, left);
+    }
+
+    @Override
+    public int leftCompare(L a, L b) {
+        return lComparator.compare(a, b);
+    }
+
+    @Override
+    public int rightCompare(R a, R b) {
+        return rComparator.compare(a, b);
+    }
+
+}
@@ -0,0 +1,229 @@
+package name.julatec.util.collection;
+
+import java.io.Closeable;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Iterator over the merge of two sorted iterators, following the order and the merge functions of a
+ * {@link SortMergeJoin}.
+ * <p>
+ * When both sides have values with the same key, the run of right values with that key is buffered, and replayed for
+ * each left value with that key, so every pair is merged. A pair is merged as
+ * {@code leftMergeNullable(rightMergeNullable(null, right), left)}. Merged values are pushed into a sink, so the
+ * values are not wrapped, and {@link SortMergeJoinIterator#forEachRemaining(Consumer)} does not keep them at all.
+ *
+ * @param <L> Left part of the join.
+ * @param <R> Right part of the join.
+ * @param <M> Result of the join of L and R.
+ */
+final class SortMergeJoinIterator<L, R, M> implements Iterator<M>, Closeable {
+
+    /**
+     * Join that defines the order and the merge functions.
+     */
+    private final SortMergeJoin<L, R, M> join;
+
+    /**
+     * Values returned by the join.
+     */
+    private final JoinType joinType;
+
+    /**
+     * Sorted left values.
+     */
+    private final LookAheadIterator<L> left;
+
+    /**
+     * Sorted right values.
+     */
+    private final LookAheadIterator<R> right;
+
+    /**
+     * Right values with the key of the current run.
+     */
+    private final RunBuffer<R> run;
+
+    /**
+     * Left value that is being paired with the values of the run.
+     */
+    private L replayed;
+
+    /**
+     * Values of the run that are not yet paired with the replayed left value.
+     */
+    private Iterator<R> replay;
+
+    /**
+     * Merged value that is ready to be returned.
+     */
+    private M current;
+
+    /**
+     * Whether {@link SortMergeJoinIterator#current} is ready to be returned.
+     */
+    private boolean ready;
+
+    /**
+     * Keeps the merged value until it is returned, created once so pulling values does not allocate.
+     */
+    private final Consumer<M> buffer = merged -> {
+        current = merged;
+        ready = true;
+    };
+
+    /**
+     * Merges the given sorted iterators.
+     *
+     * @param join     join that defines the order and the merge functions.
+     * @param joinType values returned by the join.
+     * @param left     sorted left values.
+     * @param right    sorted right values.
+     * @param run      buffer of the runs of right values.
+     */
+    SortMergeJoinIterator(
+            SortMergeJoin<L, R, M> join,
+            JoinType joinType,
+            Iterator<L> left,
+            Iterator<R> right,
+            RunBuffer<R> run) {
+        this.join = join;
+        this.joinType = joinType;
+        this.left = new LookAheadIterator<>(left);
+        this.right = new LookAheadIterator<>(right);
+        this.run = run;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (!ready) {
+            if (!step(buffer)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public M next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        final M result = current;
+        current = null;
+        ready = false;
+        return result;
+    }
+
+    /**
+     * Pushes the remaining merged values into the action, without keeping them in this iterator.
+     *
+     * @param action consumer of the merged values.
+     */
+    @Override
+    public void forEachRemaining(Consumer<? super M> action) {
+        if (ready) {
+            action.accept(next());
+        }
+        while (step(action)) {
+            // Each step pushes at most one value into the action.
+        }
+    }
+
+    @Override
+    public void close() {
+        run.close();
+    }
+
+    /**
+     * Advances the merge by one value of either side, or by one pair of the current run.
+     *
+     * @param sink consumer of the merged value, if the step produces one.
+     * @return false if both sides are exhausted.
+     */
+    private boolean step(Consumer<? super M> sink) {
+        if (replay != null) {
+            if (replay.hasNext()) {
+                sink.accept(join.leftMergeNullable(join.rightMergeNullable(null, replay.next()), replayed));
+            } else {
+                replay = null;
+                replayed = null;
+            }
+        } else if (!run.isEmpty()) {
+            if (left.hasNext() && join.compare(left.element(), run.first()) == 0) {
+                matched(left.next(), sink);
+            } else {
+                run.clear();
+            }
+        } else {
+            switch ((left.hasNext() ? 0b10 : 0) | (right.hasNext() ? 0b01 : 0)) {
+                case 0b01:
+                    rightOnly(right.next(), sink);
+                    break;
+                case 0b10:
+                    leftOnly(left.next(), sink);
+                    break;
+                case 0b11:
+                    final L l = left.element();
+                    final int comparison = join.compare(l, right.element());
+                    if (comparison < 0) {
+                        leftOnly(left.next(), sink);
+                    } else if (comparison > 0) {
+                        rightOnly(right.next(), sink);
+                    } else {
+                        while (right.hasNext() && join.compare(l, right.element()) == 0) {
+                            run.add(right.next());
+                        }
+                    }
+                    break;
+                default:
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Handles a left value with the key of the current run.
+     *
+     * @param l    left value.
+     * @param sink consumer of the merged value.
+     */
+    private void matched(L l, Consumer<? super M> sink) {
+        switch (joinType) {
+            case SEMI:
+                sink.accept(join.leftMergeNullable(null, l));
+                break;
+            case ANTI:
+                break;
+            default:
+                replayed = l;
+                replay = run.iterator();
+        }
+    }
+
+    /**
+     * Handles a left value without right values with the same key.
+     *
+     * @param l    left value.
+     * @param sink consumer of the merged value.
+     */
+    private void leftOnly(L l, Consumer<? super M> sink) {
+        if (joinType.unmatchedLeft) {
+            sink.accept(join.leftMergeNullable(null, l));
+        }
+    }
+
+    /**
+     * Handles a right value without left values with the same key.
+     *
+     * @param r    right value.
+     * @param sink consumer of the merged value.
+     */
+    private void rightOnly(R r, Consumer<? super M> sink) {
+        if (joinType.unmatchedRight) {
+            sink.accept(join.rightMergeNullable(null, r));
+        }
+    }
+}
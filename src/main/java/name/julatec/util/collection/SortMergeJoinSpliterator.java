@@ -0,0 +1,277 @@
+package name.julatec.util.collection;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over the merge of two sorted random access lists, following the order and the merge functions of a
+ * {@link SortMergeJoin}, and returning the values defined by a {@link JoinType}.
+ * <p>
+ * The spliterator splits both lists on the same join key boundary: the median value of the larger side is located on
+ * the other side by binary search with {@link SortMergeJoin#compare(Object, Object)}, and the first value of the other
+ * side with the same join key, if any, is located back on the larger side the same way, so the values with the same
+ * join key always end in the same partition even when the order of a side is finer than the join key. Each partition
+ * is merged independently with the join type, which is correct for every type since no key spans two partitions, and
+ * the stream reassembles the partitions in order.
+ *
+ * @param <L> Left part of the join.
+ * @param <R> Right part of the join.
+ * @param <M> Result of the join of L and R.
+ */
+final class SortMergeJoinSpliterator<L, R, M> implements Spliterator<M> {
+
+    /**
+     * Partitions with fewer values than this are not split.
+     */
+    static final int MIN_SPLIT_SIZE = 1 << 10;
+
+    /**
+     * Join that defines the order and the merge functions.
+     */
+    private final SortMergeJoin<L, R, M> join;
+
+    /**
+     * Values returned by the join.
+     */
+    private final JoinType joinType;
+
+    /**
+     * Sorted left values.
+     */
+    private final List<L> left;
+
+    /**
+     * Sorted right values.
+     */
+    private final List<R> right;
+
+    /**
+     * First left value of this partition.
+     */
+    private int leftFrom;
+
+    /**
+     * End of the left values of this partition, exclusive.
+     */
+    private final int leftTo;
+
+    /**
+     * First right value of this partition.
+     */
+    private int rightFrom;
+
+    /**
+     * End of the right values of this partition, exclusive.
+     */
+    private final int rightTo;
+
+    /**
+     * Merge of this partition, created on the first traversal.
+     */
+    private Iterator<M> iterator;
+
+    /**
+     * Full outer merge of the given sorted lists.
+     *
+     * @param join  join that defines the order and the merge functions.
+     * @param left  sorted left values.
+     * @param right sorted right values.
+     */
+    SortMergeJoinSpliterator(SortMergeJoin<L, R, M> join, List<L> left, List<R> right) {
+        this(join, JoinType.FULL_OUTER, left, right);
+    }
+
+    /**
+     * Merges the given sorted lists.
+     *
+     * @param join     join that defines the order and the merge functions.
+     * @param joinType values returned by the join.
+     * @param left     sorted left values.
+     * @param right    sorted right values.
+     */
+    SortMergeJoinSpliterator(SortMergeJoin<L, R, M> join, JoinType joinType, List<L> left, List<R> right) {
+        this(join, joinType, left, 0, left.size(), right, 0, right.size());
+    }
+
+    private SortMergeJoinSpliterator(
+            SortMergeJoin<L, R, M> join,
+            JoinType joinType,
+            List<L> left,
+            int leftFrom,
+            int leftTo,
+            List<R> right,
+            int rightFrom,
+            int rightTo) {
+        this.join = join;
+        this.joinType = joinType;
+        this.left = left;
+        this.leftFrom = leftFrom;
+        this.leftTo = leftTo;
+        this.right = right;
+        this.rightFrom = rightFrom;
+        this.rightTo = rightTo;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super M> action) {
+        final Iterator<M> iterator = iterator();
+        if (iterator.hasNext()) {
+            action.accept(iterator.next());
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super M> action) {
+        iterator().forEachRemaining(action);
+    }
+
+    @Override
+    public Spliterator<M> trySplit() {
+        if (iterator != null || estimateSize() < MIN_SPLIT_SIZE) {
+            return null;
+        }
+        final int leftSplit;
+        final int rightSplit;
+        if (leftTo - leftFrom >= rightTo - rightFrom) {
+            final L key = left.get((leftFrom + leftTo) >>> 1);
+            rightSplit = rightLowerBoundOf(key);
+            leftSplit = rightSplit < rightTo && join.compare(key, right.get(rightSplit)) == 0
+                    ? leftLowerBoundOf(right.get(rightSplit))
+                    : leftLowerBound(key);
+        } else {
+            final R key = right.get((rightFrom + rightTo) >>> 1);
+            leftSplit = leftLowerBoundOf(key);
+            rightSplit = leftSplit < leftTo && join.compare(left.get(leftSplit), key) == 0
+                    ? rightLowerBoundOf(left.get(leftSplit))
+                    : rightLowerBound(key);
+        }
+        if (leftSplit == leftFrom && rightSplit == rightFrom) {
+            return null;
+        }
+        final SortMergeJoinSpliterator<L, R, M> prefix = new SortMergeJoinSpliterator<>(
+                join, joinType, left, leftFrom, leftSplit, right, rightFrom, rightSplit);
+        leftFrom = leftSplit;
+        rightFrom = rightSplit;
+        return prefix;
+    }
+
+    /**
+     * Returns the number of values of this partition, an upper bound of the number of merged values.
+     *
+     * @return number of values of this partition.
+     */
+    @Override
+    public long estimateSize() {
+        return (long) (leftTo - leftFrom) + (rightTo - rightFrom);
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED;
+    }
+
+    /**
+     * Gets the merge of this partition, creating it on the first call.
+     *
+     * @return merge of this partition.
+     */
+    private Iterator<M> iterator() {
+        if (iterator == null) {
+            iterator = new SortMergeJoinIterator<>(
+                    join,
+                    joinType,
+                    left.subList(leftFrom, leftTo).iterator(),
+                    right.subList(rightFrom, rightTo).iterator(),
+                    new RunBuffer<>());
+        }
+        return iterator;
+    }
+
+    /**
+     * Finds the first left value of this partition that is not lower than the given left key, in the order of the left
+     * side. Only used when no right value has the join key of the given key, so splitting its run of left values does
+     * not separate them from their matches.
+     *
+     * @param key key to lookup.
+     * @return index of the first left value greater or equal than the key.
+     */
+    private int leftLowerBound(L key) {
+        int low = leftFrom;
+        int high = leftTo;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (join.leftCompare(left.get(mid), key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the first left value of this partition that is not lower than the given right key.
+     *
+     * @param key key to lookup.
+     * @return index of the first left value greater or equal than the key.
+     */
+    private int leftLowerBoundOf(R key) {
+        int low = leftFrom;
+        int high = leftTo;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (join.compare(left.get(mid), key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the first right value of this partition that is not lower than the given right key, in the order of the
+     * right side. Only used when no left value has the join key of the given key, so splitting its run of right values
+     * does not separate them from their matches.
+     *
+     * @param key key to lookup.
+     * @return index of the first right value greater or equal than the key.
+     */
+    private int rightLowerBound(R key) {
+        int low = rightFrom;
+        int high = rightTo;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (join.rightCompare(right.get(mid), key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the first right value of this partition that is not lower than the given left key.
+     *
+     * @param key key to lookup.
+     * @return index of the first right value greater or equal than the key.
+     */
+    private int rightLowerBoundOf(L key) {
+        int low = rightFrom;
+        int high = rightTo;
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (join.compare(key, right.get(mid)) > 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,577 @@
+package name.julatec.util.collection;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.SortedSet;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Read-only {@link NavigableMap} view over entries stored side by side in ascending key order, such as in arrays or in
+ * a buffer. Lookups are binary searches over the positions, and the sub-map and descending views only narrow or
+ * reverse the range of positions, so no view copies the entries.
+ *
+ * @param <K> Type of the keys.
+ * @param <V> Type of the values.
+ */
+final class SortedArrayMap<K extends Comparable<K>, V> extends AbstractMap<K, V> implements NavigableMap<K, V> {
+
+    /**
+     * Provides the entries of the map by position.
+     *
+     * @param <K> Type of the keys.
+     * @param <V> Type of the values.
+     */
+    interface Storage<K, V> {
+
+        /**
+         * Gets the key at the given position.
+         *
+         * @param index position of the entry.
+         * @return key of the entry.
+         */
+        K keyAt(int index);
+
+        /**
+         * Gets the value at the given position.
+         *
+         * @param index position of the entry.
+         * @return value of the entry.
+         */
+        V valueAt(int index);
+    }
+
+    /**
+     * Entries of the map.
+     */
+    private final Storage<K, V> storage;
+
+    /**
+     * First position of the view, inclusive.
+     */
+    private final int from;
+
+    /**
+     * Last position of the view, exclusive.
+     */
+    private final int to;
+
+    /**
+     * Whether the view walks the positions backwards.
+     */
+    private final boolean descending;
+
+    /**
+     * Defines a view over the given number of entries of the storage.
+     *
+     * @param storage entries in ascending key order, without repeated keys.
+     * @param size    number of entries.
+     */
+    SortedArrayMap(Storage<K, V> storage, int size) {
+        this(storage, 0, size, false);
+    }
+
+    /**
+     * Defines a view over a range of positions of the storage.
+     *
+     * @param storage    entries in ascending key order, without repeated keys.
+     * @param from       first position of the view, inclusive.
+     * @param to         last position of the view, exclusive.
+     * @param descending whether the view walks the positions backwards.
+     */
+    private SortedArrayMap(Storage<K, V> storage, int from, int to, boolean descending) {
+        this.storage = storage;
+        this.from = from;
+        this.to = to;
+        this.descending = descending;
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        final int index = ceilingIndex((K) key);
+        return index < to && storage.keyAt(index).compareTo((K) key) == 0 ? storage.valueAt(index) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean containsKey(Object key) {
+        final int index = ceilingIndex((K) key);
+        return index < to && storage.keyAt(index).compareTo((K) key) == 0;
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Map.Entry<K, V>> iterator() {
+                return new Iterator<>() {
+
+                    private int position;
+
+                    @Override
+                    public boolean hasNext() {
+                        return position < size();
+                    }
+
+                    @Override
+                    public Map.Entry<K, V> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return entryAt(index(position++));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return SortedArrayMap.this.size();
+            }
+
+            @Override
+            public Spliterator<Map.Entry<K, V>> spliterator() {
+                return new EntrySpliterator(0, SortedArrayMap.this.size());
+            }
+        };
+    }
+
+    @Override
+    public Map.Entry<K, V> lowerEntry(K key) {
+        return entryAt(descending ? higherIndex(key) : ceilingIndex(key) - 1);
+    }
+
+    @Override
+    public K lowerKey(K key) {
+        return keyOrNull(lowerEntry(key));
+    }
+
+    @Override
+    public Map.Entry<K, V> floorEntry(K key) {
+        return entryAt(descending ? ceilingIndex(key) : higherIndex(key) - 1);
+    }
+
+    @Override
+    public K floorKey(K key) {
+        return keyOrNull(floorEntry(key));
+    }
+
+    @Override
+    public Map.Entry<K, V> ceilingEntry(K key) {
+        return entryAt(descending ? higherIndex(key) - 1 : ceilingIndex(key));
+    }
+
+    @Override
+    public K ceilingKey(K key) {
+        return keyOrNull(ceilingEntry(key));
+    }
+
+    @Override
+    public Map.Entry<K, V> higherEntry(K key) {
+        return entryAt(descending ? ceilingIndex(key) - 1 : higherIndex(key));
+    }
+
+    @Override
+    public K higherKey(K key) {
+        return keyOrNull(higherEntry(key));
+    }
+
+    @Override
+    public Map.Entry<K, V> firstEntry() {
+        return isEmpty() ? null : entryAt(index(0));
+    }
+
+    @Override
+    public Map.Entry<K, V> lastEntry() {
+        return isEmpty() ? null : entryAt(index(size() - 1));
+    }
+
+    @Override
+    public K firstKey() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return storage.keyAt(index(0));
+    }
+
+    @Override
+    public K lastKey() {
+        if (isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return storage.keyAt(index(size() - 1));
+    }
+
+    @Override
+    public Map.Entry<K, V> pollFirstEntry() {
+        throw new UnsupportedOperationException("Sorted array map is read-only.");
+    }
+
+    @Override
+    public Map.Entry<K, V> pollLastEntry() {
+        throw new UnsupportedOperationException("Sorted array map is read-only.");
+    }
+
+    @Override
+    public NavigableMap<K, V> descendingMap() {
+        return new SortedArrayMap<>(storage, from, to, !descending);
+    }
+
+    @Override
+    public NavigableSet<K> navigableKeySet() {
+        return new KeySet<>(this);
+    }
+
+    @Override
+    public NavigableSet<K> keySet() {
+        return navigableKeySet();
+    }
+
+    @Override
+    public NavigableSet<K> descendingKeySet() {
+        return descendingMap().navigableKeySet();
+    }
+
+    @Override
+    public NavigableMap<K, V> subMap(K fromKey, boolean fromInclusive, K toKey, boolean toInclusive) {
+        if (descending) {
+            return range(
+                    toInclusive ? ceilingIndex(toKey) : higherIndex(toKey),
+                    fromInclusive ? higherIndex(fromKey) : ceilingIndex(fromKey));
+        }
+        return range(
+                fromInclusive ? ceilingIndex(fromKey) : higherIndex(fromKey),
+                toInclusive ? higherIndex(toKey) : ceilingIndex(toKey));
+    }
+
+    @Override
+    public NavigableMap<K, V> headMap(K toKey, boolean inclusive) {
+        if (descending) {
+            return range(inclusive ? ceilingIndex(toKey) : higherIndex(toKey), to);
+        }
+        return range(from, inclusive ? higherIndex(toKey) : ceilingIndex(toKey));
+    }
+
+    @Override
+    public NavigableMap<K, V> tailMap(K fromKey, boolean inclusive) {
+        if (descending) {
+            return range(from, inclusive ? higherIndex(fromKey) : ceilingIndex(fromKey));
+        }
+        return range(inclusive ? ceilingIndex(fromKey) : higherIndex(fromKey), to);
+    }
+
+    @Override
+    public SortedMap<K, V> subMap(K fromKey, K toKey) {
+        return subMap(fromKey, true, toKey, false);
+    }
+
+    @Override
+    public SortedMap<K, V> headMap(K toKey) {
+        return headMap(toKey, false);
+    }
+
+    @Override
+    public SortedMap<K, V> tailMap(K fromKey) {
+        return tailMap(fromKey, true);
+    }
+
+    @Override
+    public Comparator<? super K> comparator() {
+        return descending ? java.util.Collections.reverseOrder() : null;
+    }
+
+    /**
+     * Narrows this view to the given range of positions.
+     *
+     * @param lower first position, inclusive.
+     * @param upper last position, exclusive.
+     * @return view over the range.
+     */
+    private SortedArrayMap<K, V> range(int lower, int upper) {
+        return new SortedArrayMap<>(storage, lower, Math.max(lower, upper), descending);
+    }
+
+    /**
+     * Maps a position in the order of the view to a position of the storage.
+     *
+     * @param position position in the order of the view.
+     * @return position of the storage.
+     */
+    private int index(int position) {
+        return descending ? to - 1 - position : from + position;
+    }
+
+    /**
+     * Finds the first position of the view whose key is greater or equal than the given key.
+     *
+     * @param key key to lookup.
+     * @return position of the ceiling key, or the end of the view.
+     */
+    private int ceilingIndex(K key) {
+        int lower = from;
+        int upper = to;
+        while (lower < upper) {
+            final int middle = (lower + upper) >>> 1;
+            if (storage.keyAt(middle).compareTo(key) < 0) {
+                lower = middle + 1;
+            } else {
+                upper = middle;
+            }
+        }
+        return lower;
+    }
+
+    /**
+     * Finds the first position of the view whose key is greater than the given key.
+     *
+     * @param key key to lookup.
+     * @return position of the higher key, or the end of the view.
+     */
+    private int higherIndex(K key) {
+        int lower = from;
+        int upper = to;
+        while (lower < upper) {
+            final int middle = (lower + upper) >>> 1;
+            if (storage.keyAt(middle).compareTo(key) <= 0) {
+                lower = middle + 1;
+            } else {
+                upper = middle;
+            }
+        }
+        return lower;
+    }
+
+    /**
+     * Gets the entry at the given position of the storage.
+     *
+     * @param index position of the storage.
+     * @return entry at the position, or {@code null} if the position is out of the view.
+     */
+    private Map.Entry<K, V> entryAt(int index) {
+        if (index < from || index >= to) {
+            return null;
+        }
+        return new AbstractMap.SimpleImmutableEntry<>(storage.keyAt(index), storage.valueAt(index));
+    }
+
+    /**
+     * Gets the key of the given entry.
+     *
+     * @param entry entry, or {@code null}.
+     * @return key of the entry, or {@code null} if there is no entry.
+     */
+    private static <K> K keyOrNull(Map.Entry<K, ?> entry) {
+        return entry == null ? null : entry.getKey();
+    }
+
+    /**
+     * Splits the entries of the view by halving the range of positions, so parallel streams divide the work evenly.
+     */
+    private final class EntrySpliterator implements Spliterator<Map.Entry<K, V>> {
+
+        /**
+         * Next position in the order of the view.
+         */
+        private int position;
+
+        /**
+         * Last position in the order of the view, exclusive.
+         */
+        private final int end;
+
+        EntrySpliterator(int position, int end) {
+            this.position = position;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super Map.Entry<K, V>> action) {
+            if (position >= end) {
+                return false;
+            }
+            action.accept(entryAt(index(position++)));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super Map.Entry<K, V>> action) {
+            while (position < end) {
+                action.accept(entryAt(index(position++)));
+            }
+        }
+
+        @Override
+        public Spliterator<Map.Entry<K, V>> trySplit() {
+            final int middle = (position + end) >>> 1;
+            if (middle <= position) {
+                return null;
+            }
+            final Spliterator<Map.Entry<K, V>> prefix = new EntrySpliterator(position, middle);
+            position = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - position;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | SORTED | DISTINCT | NONNULL | SIZED | SUBSIZED | IMMUTABLE;
+        }
+
+        @Override
+        public Comparator<? super Map.Entry<K, V>> getComparator() {
+            return descending
+                    ? Map.Entry.comparingByKey(java.util.Collections.reverseOrder())
+                    : Map.Entry.comparingByKey();
+        }
+    }
+
+    /**
+     * Read-only {@link NavigableSet} view over the keys of a {@link SortedArrayMap}.
+     *
+     * @param <K> Type of the keys.
+     */
+    private static final class KeySet<K extends Comparable<K>> extends AbstractSet<K> implements NavigableSet<K> {
+
+        /**
+         * Map of the keys.
+         */
+        private final SortedArrayMap<K, ?> map;
+
+        /**
+         * Defines the key view of the given map.
+         *
+         * @param map map of the keys.
+         */
+        KeySet(SortedArrayMap<K, ?> map) {
+            this.map = map;
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            final Iterator<? extends Map.Entry<K, ?>> entries = map.entrySet().iterator();
+            return new Iterator<>() {
+                @Override
+                public boolean hasNext() {
+                    return entries.hasNext();
+                }
+
+                @Override
+                public K next() {
+                    return entries.next().getKey();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return map.containsKey(o);
+        }
+
+        @Override
+        public K lower(K k) {
+            return map.lowerKey(k);
+        }
+
+        @Override
+        public K floor(K k) {
+            return map.floorKey(k);
+        }
+
+        @Override
+        public K ceiling(K k) {
+            return map.ceilingKey(k);
+        }
+
+        @Override
+        public K higher(K k) {
+            return map.higherKey(k);
+        }
+
+        @Override
+        public K pollFirst() {
+            throw new UnsupportedOperationException("Sorted array map is read-only.");
+        }
+
+        @Override
+        public K pollLast() {
+            throw new UnsupportedOperationException("Sorted array map is read-only.");
+        }
+
+        @Override
+        public NavigableSet<K> descendingSet() {
+            return map.descendingKeySet();
+        }
+
+        @Override
+        public Iterator<K> descendingIterator() {
+            return descendingSet().iterator();
+        }
+
+        @Override
+        public NavigableSet<K> subSet(K fromElement, boolean fromInclusive, K toElement, boolean toInclusive) {
+            return map.subMap(fromElement, fromInclusive, toElement, toInclusive).navigableKeySet();
+        }
+
+        @Override
+        public NavigableSet<K> headSet(K toElement, boolean inclusive) {
+            return map.headMap(toElement, inclusive).navigableKeySet();
+        }
+
+        @Override
+        public NavigableSet<K> tailSet(K fromElement, boolean inclusive) {
+            return map.tailMap(fromElement, inclusive).navigableKeySet();
+        }
+
+        @Override
+        public SortedSet<K> subSet(K fromElement, K toElement) {
+            return subSet(fromElement, true, toElement, false);
+        }
+
+        @Override
+        public SortedSet<K> headSet(K toElement) {
+            return headSet(toElement, false);
+        }
+
+        @Override
+        public SortedSet<K> tailSet(K fromElement) {
+            return tailSet(fromElement, true);
+        }
+
+        @Override
+        public Comparator<? super K> comparator() {
+            return map.comparator();
+        }
+
+        @Override
+        public K first() {
+            return map.firstKey();
+        }
+
+        @Override
+        public K last() {
+            return map.lastKey();
+        }
+    }
+}
@@ -1,28 +1,194 @@
 package name.julatec.util.statistics;
 
-import name.julatec.util.collection.Bag;
-
+import java.time.Duration;
 import java.util.Map;
 import java.util.NavigableMap;
 import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
 /**
- * @param <K>
- * @param <V>
+ * Collects the histograms of a grouped population to describe each group, and the whole population, with a
+ * five-number summary.
+ * <p>
+ * Each group keeps its own {@link Histogram} that is updated in place, so recording a value of an existing group does
+ * not allocate. The histogram of the whole population is not kept, it is merged from the group histograms when it is
+ * summarized, so threads recording values of different groups never update the same histogram.
+ *
+ * @param <K> Type of the group.
+ * @param <V> Type parameter of the Sample.
  */
 public class BoxPlot<K extends Comparable<K>, V extends Comparable<V>> {
 
     /**
-     * Histogram of the whole population.
+     * Creates the histogram that merges the groups.
+     */
+    private final Supplier<? extends Histogram<V>> factory;
+
+    /**
+     * Creates the histogram of a new group, kept as a field so the lookup of the group does not capture a lambda.
      */
-    private final Bag<V, Long> histogram = new Bag<>(Long::sum);
+    private final Function<K, Histogram<V>> groupFactory;
 
     /**
      * Histograms of the population groups.
      */
-    private final Bag<K, Bag<V, Long>> histograms = new Bag<>(Bag::merge);
+    private final ConcurrentSkipListMap<K, Histogram<V>> histograms = new ConcurrentSkipListMap<>();
+
+    /**
+     * Defines a box plot that keeps the exact count of every value.
+     */
+    public BoxPlot() {
+        this(ExactHistogram::new);
+    }
+
+    /**
+     * Defines a box plot whose groups use the histograms created by the given factory.
+     *
+     * @param factory creates the histogram of each group.
+     */
+    public BoxPlot(Supplier<? extends Histogram<V>> factory) {
+        this.factory = factory;
+        this.groupFactory = group -> factory.get();
+    }
+
+    /**
+     * Defines a box plot whose groups use the histograms provided by the given group factory, such as the histograms
+     * of a {@link MappedHistogramStore}.
+     *
+     * @param factory      creates the histogram that merges the groups.
+     * @param groupFactory provides the histogram of a new group.
+     */
+    BoxPlot(Supplier<? extends Histogram<V>> factory, Function<K, ? extends Histogram<V>> groupFactory) {
+        this.factory = factory;
+        this.groupFactory = groupFactory::apply;
+    }
+
+    /**
+     * Defines a box plot for {@code long} values that keeps the exact count of every value without boxing it.
+     *
+     * @param <K> Type of the group.
+     * @return new BoxPlot instance.
+     */
+    public static <K extends Comparable<K>> BoxPlot<K, Long> ofLong() {
+        return new BoxPlot<>(ExactLongHistogram::new);
+    }
+
+    /**
+     * Defines a box plot for {@code long} values that summarizes each group with a {@link QuantileSketch}, so the
+     * memory of each group is bounded regardless of the number of distinct values.
+     *
+     * @param relativeAccuracy relative accuracy of the quartiles, between 0 and 1 exclusive.
+     * @param <K>              Type of the group.
+     * @return new BoxPlot instance.
+     */
+    public static <K extends Comparable<K>> BoxPlot<K, Long> ofSketch(double relativeAccuracy) {
+        return new BoxPlot<>(() -> QuantileSketch.ofLong(relativeAccuracy));
+    }
+
+    /**
+     * Defines a box plot for {@code long} values that summarizes each group with a {@link LogLinearHistogram}, so
+     * recording a value takes constant time and the memory of each group is fixed. The precision is relative to the
+     * distance of each value to the lowest trackable value, see {@link LogLinearHistogram}.
+     *
+     * @param lowestValue       lowest trackable value.
+     * @param highestValue      highest trackable value.
+     * @param significantDigits number of significant decimal digits, between 0 and 5.
+     * @param <K>               Type of the group.
+     * @return new BoxPlot instance.
+     */
+    public static <K extends Comparable<K>> BoxPlot<K, Long> ofLogLinear(
+            long lowestValue,
+            long highestValue,
+            int significantDigits) {
+        return new BoxPlot<>(() -> new LogLinearHistogram(lowestValue, highestValue, significantDigits));
+    }
+
+    /**
+     * Defines a box plot that summarizes each group with a {@link DecayingHistogram}, so the summaries are biased
+     * towards the recent observations without keeping a time window.
+     *
+     * @param halfLife half-life of the observations.
+     * @param <K>      Type of the group.
+     * @param <V>      Type parameter of the Sample.
+     * @return new BoxPlot instance.
+     */
+    public static <K extends Comparable<K>, V extends Comparable<V>> BoxPlot<K, V> ofDecaying(Duration halfLife) {
+        return new BoxPlot<K, V>(() -> new DecayingHistogram<>(halfLife));
+    }
+
+    /**
+     * Records the given value in the histogram of the group.
+     *
+     * @param group group of the value.
+     * @param value value to record.
+     */
+    public void record(K group, V value) {
+        histograms.computeIfAbsent(group, groupFactory).record(value, 1L);
+    }
+
+    /**
+     * Records the given primitive value in the histogram of the group, without boxing it.
+     *
+     * @param group group of the value.
+     * @param value value to record.
+     * @throws UnsupportedOperationException if the histograms do not hold {@code long} values.
+     */
+    public void recordLong(K group, long value) {
+        histograms.computeIfAbsent(group, groupFactory).recordLong(value, 1L);
+    }
+
+    /**
+     * Adds the group with the observations its histogram already holds, such as a group of a
+     * {@link MappedHistogramStore}. Groups already in the box plot are ignored.
+     *
+     * @param group group to add.
+     */
+    void include(K group) {
+        histograms.computeIfAbsent(group, groupFactory);
+    }
+
+    /**
+     * Merges the group histograms of the given box plot into the histograms of this one.
+     *
+     * @param that box plot with the observations to include on this box plot.
+     * @return this instance.
+     */
+    public BoxPlot<K, V> merge(BoxPlot<K, V> that) {
+        that.histograms.forEach((group, histogram) -> histograms.computeIfAbsent(group, groupFactory).merge(histogram));
+        return this;
+    }
+
+    /**
+     * Merges the given histogram into the histogram of the group, such as a {@link HistogramSnapshot} received from
+     * another process.
+     *
+     * @param group     group of the histogram.
+     * @param histogram histogram with the observations to include on the group.
+     * @return this instance.
+     */
+    public BoxPlot<K, V> merge(K group, Histogram<V> histogram) {
+        histograms.computeIfAbsent(group, groupFactory).merge(histogram);
+        return this;
+    }
+
+    /**
+     * Applies the given function to the histogram of each group, such as {@link HistogramSnapshot#of(Histogram)} to
+     * ship the box plot to another process.
+     *
+     * @param function function to apply to each histogram.
+     * @param <R>      result type.
+     * @return results of each group.
+     */
+    public <R> NavigableMap<K, R> mapHistograms(Function<? super Histogram<V>, R> function) {
+        final NavigableMap<K, R> results = new TreeMap<>();
+        histograms.forEach((group, histogram) -> results.put(group, function.apply(histogram)));
+        return results;
+    }
 
     /**
      * Provides a consumer for peeking values from a stream.
@@ -34,34 +200,32 @@ public class BoxPlot<K extends Comparable<K>, V extends Comparable<V>> {
     public <T> Consumer<T> tee(Function<T, Map.Entry<K, V>> function) {
         return t -> {
             final Map.Entry<K, V> entry = function.apply(t);
-            histogram.add(entry.getValue(), 1l);
-            histograms.add(entry.getKey(),
-                    new Bag<V, Long>(Long::sum)
-                            .add(entry.getValue(), 1l));
+            record(entry.getKey(), entry.getValue());
         };
     }
 
     /**
-     * Simple linear scale function for Long
+     * Provides a consumer for peeking values from a stream, without creating a Key Value pair per value.
      *
-     * @param scalar factor to scale.
-     * @param value  value.
-     * @return scaled value.
+     * @param group function to extract the group from the given type.
+     * @param value function to extract the value from the given type.
+     * @param <T>   source type
+     * @return Consumer values to create histograms.
      */
-    private static long scaleInt(Double scalar, long value) {
-        return (long) (scalar * value);
+    public <T> Consumer<T> tee(Function<T, K> group, Function<T, V> value) {
+        return t -> record(group.apply(t), value.apply(t));
     }
 
     /**
-     * Calculate the five number summary of the given histogram.
+     * Provides a consumer for peeking primitive values from a stream, without boxing them.
      *
-     * @param histogram population sample
-     * @param <V>       sample type.
-     * @return five-number summary of the given histogram.
+     * @param group function to extract the group from the given type.
+     * @param value function to extract the value from the given type.
+     * @param <T>   source type
+     * @return Consumer values to create histograms.
      */
-    private static <V extends Comparable<V>>
-    Optional<FiveNumberSummary<V>> getSummary(Bag<V, Long> histogram) {
-        return FiveNumberSummary.from(histogram, BoxPlot::scaleInt);
+    public <T> Consumer<T> teeLong(Function<T, K> group, ToLongFunction<T> value) {
+        return t -> recordLong(group.apply(t), value.applyAsLong(t));
     }
 
     /**
@@ -70,7 +234,40 @@ public class BoxPlot<K extends Comparable<K>, V extends Comparable<V>> {
      * @return five-number summary of the whole sample.
      */
     public Optional<FiveNumberSummary<V>> getSummary() {
-        return getSummary(histogram);
+        return population().getSummary();
+    }
+
+    /**
+     * Quantiles of the whole sample at the given ranks.
+     *
+     * @param ranks ranks of the quantiles, between 0 and 1.
+     * @return quantiles of the whole sample.
+     */
+    public Optional<Quantiles<V>> getQuantiles(double... ranks) {
+        return population().getQuantiles(ranks);
+    }
+
+    /**
+     * Merges the histograms of the groups into a new histogram of the whole population.
+     *
+     * @return histogram of the whole population.
+     */
+    private Histogram<V> population() {
+        final Histogram<V> population = factory.get();
+        histograms.values().forEach(population::merge);
+        return population;
+    }
+
+    /**
+     * Quantiles of each group at the given ranks, each group is walked once for all the ranks.
+     *
+     * @param ranks ranks of the quantiles, between 0 and 1.
+     * @return quantiles of each group.
+     */
+    public NavigableMap<K, Optional<Quantiles<V>>> getGroupQuantiles(double... ranks) {
+        final NavigableMap<K, Optional<Quantiles<V>>> quantiles = new TreeMap<>();
+        histograms.forEach((group, histogram) -> quantiles.put(group, histogram.getQuantiles(ranks)));
+        return quantiles;
     }
 
     /**
@@ -79,6 +276,8 @@ public class BoxPlot<K extends Comparable<K>, V extends Comparable<V>> {
      * @return five-number summary of each group.
      */
     public NavigableMap<K, Optional<FiveNumberSummary<V>>> getSummaries() {
-        return histograms.mapValues(BoxPlot::getSummary);
+        final NavigableMap<K, Optional<FiveNumberSummary<V>>> summaries = new TreeMap<>();
+        histograms.forEach((group, histogram) -> summaries.put(group, histogram.getSummary()));
+        return summaries;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,335 @@
+package name.julatec.util.statistics;
+
+import name.julatec.util.collection.Bag;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BiFunction;
+import java.util.function.LongSupplier;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Histogram whose observations lose weight as they get older, so its quantiles describe the recent observations
+ * without keeping a time window.
+ * <p>
+ * The histogram uses forward decay: an observation recorded at time {@code t} weighs {@code exp(lambda * (t - L))},
+ * where {@code L} is a fixed landmark and {@code lambda} follows from the half-life. The weights of the recorded
+ * observations never change, only the weight of the new ones grows, so recording is a single update of a
+ * {@link Bag} of {@code Double} weights. Before the weights overflow, the landmark moves to the current time, the
+ * weights are scaled down accordingly and the observations whose weight became negligible are dropped.
+ * <p>
+ * The memory is bounded by a maximum number of distinct values. When a new value goes beyond it, the landmark moves
+ * to the current time, dropping the negligible observations, and if there are still too many values, runs of adjacent
+ * values are collapsed into the heaviest value of the run, each run holding at most {@code 4 / maxValues} of the total
+ * weight, so a quantile moves by at most that fraction of the observations. The lowest and highest values are never
+ * collapsed, and the minimum and maximum of the summary are the extreme values whose weight still rounds to at least
+ * one observation.
+ *
+ * @param <V> Type parameter of the Sample.
+ */
+public class DecayingHistogram<V extends Comparable<V>> implements Histogram<V> {
+
+    /**
+     * Exponent of the weight of a new observation that triggers the move of the landmark.
+     */
+    private static final double RESCALE_EXPONENT = 50d;
+
+    /**
+     * Weight, relative to a new observation, below which an observation is dropped when the landmark moves.
+     */
+    private static final double PRUNE_WEIGHT = 1e-9d;
+
+    /**
+     * Scales the total weight to the weight of a quantile.
+     */
+    private static final BiFunction<Double, Double, Double> SCALE = (scalar, weight) -> scalar * weight;
+
+    /**
+     * Default maximum number of distinct values.
+     */
+    public static final int DEFAULT_MAX_VALUES = 2048;
+
+    /**
+     * Maximum number of distinct values.
+     */
+    private final int maxValues;
+
+    /**
+     * Decay rate per nanosecond.
+     */
+    private final double lambda;
+
+    /**
+     * Monotonic clock in nanoseconds.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Time of the landmark, new observations weigh one at this time.
+     */
+    private long landmark;
+
+    /**
+     * Forward decayed weights of the observed values.
+     */
+    private Bag<V, Double> weights = new Bag<>(Double::sum);
+
+    /**
+     * Sum of the forward decayed weights.
+     */
+    private double totalWeight;
+
+    /**
+     * Defines a histogram whose observations lose half of their weight after the given half-life.
+     *
+     * @param halfLife half-life of the observations.
+     */
+    public DecayingHistogram(Duration halfLife) {
+        this(halfLife, System::nanoTime);
+    }
+
+    /**
+     * Defines a histogram whose observations lose half of their weight after the given half-life.
+     *
+     * @param halfLife half-life of the observations.
+     * @param clock    monotonic clock in nanoseconds.
+     */
+    public DecayingHistogram(Duration halfLife, LongSupplier clock) {
+        this(halfLife, DEFAULT_MAX_VALUES, clock);
+    }
+
+    /**
+     * Defines a histogram whose observations lose half of their weight after the given half-life, keeping at most the
+     * given number of distinct values.
+     *
+     * @param halfLife  half-life of the observations.
+     * @param maxValues maximum number of distinct values, at least 8.
+     * @param clock     monotonic clock in nanoseconds.
+     */
+    public DecayingHistogram(Duration halfLife, int maxValues, LongSupplier clock) {
+        if (halfLife.isNegative() || halfLife.isZero()) {
+            throw new IllegalArgumentException("Half-life must be positive: " + halfLife);
+        }
+        if (maxValues < 8) {
+            throw new IllegalArgumentException("Maximum number of values must be at least 8: " + maxValues);
+        }
+        this.maxValues = maxValues;
+        this.lambda = Math.log(2) / halfLife.toNanos();
+        this.clock = clock;
+        this.landmark = clock.getAsLong();
+    }
+
+    @Override
+    public synchronized void record(V value, long count) {
+        final long now = clock.getAsLong();
+        if (lambda * (now - landmark) > RESCALE_EXPONENT) {
+            rescale(now);
+        }
+        final double weight = count * Math.exp(lambda * (now - landmark));
+        weights.add(value, weight);
+        totalWeight += weight;
+        if (weights.size() > maxValues) {
+            compact(now);
+        }
+    }
+
+    /**
+     * Returns the decayed weight of the observations, rounded to the nearest observation.
+     *
+     * @return the decayed number of observations in this histogram.
+     */
+    @Override
+    public synchronized long getTotalCount() {
+        return Math.round(totalWeight * decay());
+    }
+
+    /**
+     * Performs the given action for each value and its decayed weight, rounded to the nearest observation. Values
+     * whose weight rounds to zero are skipped.
+     *
+     * @param action action to perform.
+     */
+    @Override
+    public synchronized void forEach(ObjLongConsumer<? super V> action) {
+        final double decay = decay();
+        weights.forEach(entry -> {
+            final long count = Math.round(entry.getValue() * decay);
+            if (count > 0) {
+                action.accept(entry.getKey(), count);
+            }
+        });
+    }
+
+    @Override
+    public Histogram<V> merge(Histogram<V> that) {
+        if (!(that instanceof DecayingHistogram) || ((DecayingHistogram<V>) that).lambda != lambda) {
+            return Histogram.super.merge(that);
+        }
+        final DecayingHistogram<V> histogram = (DecayingHistogram<V>) that;
+        final Bag<V, Double> thatWeights = new Bag<>(Double::sum);
+        final long thatLandmark;
+        synchronized (histogram) {
+            thatWeights.merge(histogram.weights);
+            thatLandmark = histogram.landmark;
+        }
+        synchronized (this) {
+            if (thatLandmark > landmark) {
+                rescale(thatLandmark);
+            }
+            final double scale = Math.exp(lambda * (thatLandmark - landmark));
+            thatWeights.forEach(entry -> {
+                final double weight = entry.getValue() * scale;
+                weights.add(entry.getKey(), weight);
+                totalWeight += weight;
+            });
+            if (weights.size() > maxValues) {
+                compact(clock.getAsLong());
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Quantiles of the observations at the given ranks, within the lowest and highest values whose weight still
+     * rounds to at least one observation.
+     *
+     * @param ranks ranks of the quantiles, between 0 and 1.
+     * @return quantiles of the observations, empty if no observation is left.
+     */
+    @Override
+    public synchronized Optional<Quantiles<V>> getQuantiles(double... ranks) {
+        final double decay = decay();
+        final V min = live(weights.toNavigableMap().entrySet(), decay);
+        if (min == null) {
+            Quantiles.sort(ranks);
+            return Optional.empty();
+        }
+        final V max = live(weights.toNavigableMap().descendingMap().entrySet(), decay);
+        return Quantiles.from(weights, SCALE, ranks).map(quantiles -> quantiles.map(value -> clamp(value, min, max)));
+    }
+
+    /**
+     * Five-number summary of the observations, whose minimum and maximum are the lowest and highest values whose
+     * weight still rounds to at least one observation.
+     *
+     * @return five-number summary of the observations, empty if no observation is left.
+     */
+    @Override
+    public synchronized Optional<FiveNumberSummary<V>> getSummary() {
+        return getQuantiles(0d, 0.25d, 0.50d, 0.75d, 1d).map(quantiles -> new FiveNumberSummary<>(
+                quantiles.get(0d),
+                quantiles.get(0.25d),
+                quantiles.get(0.50d),
+                quantiles.get(0.75d),
+                quantiles.get(1d)));
+    }
+
+    @Override
+    public synchronized String toString() {
+        return weights.toString();
+    }
+
+    /**
+     * Gets the factor that turns a forward decayed weight into the weight of the observation at the current time.
+     *
+     * @return decay factor at the current time.
+     */
+    private double decay() {
+        return Math.exp(-lambda * (clock.getAsLong() - landmark));
+    }
+
+    /**
+     * Finds the first value whose weight still rounds to at least one observation.
+     *
+     * @param entries weights in the order to search.
+     * @param decay   decay factor at the current time.
+     * @return first live value, or {@code null} if there is none.
+     */
+    private static <V> V live(Iterable<Map.Entry<V, Double>> entries, double decay) {
+        for (Map.Entry<V, Double> entry : entries) {
+            if (Math.round(entry.getValue() * decay) > 0) {
+                return entry.getKey();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Limits the given value to the given range.
+     *
+     * @param value value to limit.
+     * @param min   lowest value of the range.
+     * @param max   highest value of the range.
+     * @return the closest value of the range.
+     */
+    private static <V extends Comparable<V>> V clamp(V value, V min, V max) {
+        if (value.compareTo(min) < 0) {
+            return min;
+        }
+        return value.compareTo(max) > 0 ? max : value;
+    }
+
+    /**
+     * Moves the landmark to the given time and, if there are still more than the maximum number of values, collapses
+     * runs of adjacent values into their heaviest value until about a quarter of the maximum is left. The lowest and
+     * highest values are kept as they are.
+     *
+     * @param now current time.
+     */
+    private void compact(long now) {
+        rescale(now);
+        if (weights.size() <= maxValues) {
+            return;
+        }
+        final double limit = totalWeight * 4 / maxValues;
+        final Bag<V, Double> compacted = new Bag<>(Double::sum);
+        final V first = weights.toNavigableMap().firstKey();
+        final V last = weights.toNavigableMap().lastKey();
+        V heaviest = null;
+        double heaviestWeight = 0;
+        double runWeight = 0;
+        for (Map.Entry<V, Double> entry : weights) {
+            final V value = entry.getKey();
+            final double weight = entry.getValue();
+            if (heaviest != null && (runWeight + weight > limit || value.compareTo(last) == 0)) {
+                compacted.add(heaviest, runWeight);
+                heaviest = null;
+            }
+            if (value.compareTo(first) == 0 || value.compareTo(last) == 0) {
+                compacted.add(value, weight);
+            } else if (heaviest == null) {
+                heaviest = value;
+                heaviestWeight = weight;
+                runWeight = weight;
+            } else {
+                runWeight += weight;
+                if (weight > heaviestWeight) {
+                    heaviest = value;
+                    heaviestWeight = weight;
+                }
+            }
+        }
+        weights = compacted;
+    }
+
+    /**
+     * Moves the landmark to the given time, dropping the observations whose weight became negligible.
+     *
+     * @param now new landmark.
+     */
+    private void rescale(long now) {
+        final double decay = Math.exp(-lambda * (now - landmark));
+        final Bag<V, Double> rescaled = new Bag<>(Double::sum);
+        totalWeight = 0;
+        for (Map.Entry<V, Double> entry : weights) {
+            final double weight = entry.getValue() * decay;
+            if (weight >= PRUNE_WEIGHT) {
+                rescaled.add(entry.getKey(), weight);
+                totalWeight += weight;
+            }
+        }
+        weights = rescaled;
+        landmark = now;
+    }
+}
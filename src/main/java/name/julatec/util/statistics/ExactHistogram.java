@@ -0,0 +1,60 @@
+package name.julatec.util.statistics;
+
+import name.julatec.util.collection.RankedBag;
+
+import java.util.Optional;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Histogram that keeps the exact count of every distinct value, backed by a {@link RankedBag}. The bag keeps the
+ * cumulative counts up to date as values are recorded, so the summary is found in {@code O(log n)} instead of walking
+ * every distinct value.
+ *
+ * @param <V> Type parameter of the Sample.
+ */
+public class ExactHistogram<V extends Comparable<V>> implements Histogram<V> {
+
+    /**
+     * Counts of the observed values.
+     */
+    private final RankedBag<V> bag = new RankedBag<>();
+
+    @Override
+    public void record(V value, long count) {
+        bag.increment(value, count);
+    }
+
+    @Override
+    public long getTotalCount() {
+        return bag.getTotalCount();
+    }
+
+    @Override
+    public void forEach(ObjLongConsumer<? super V> action) {
+        bag.forEach(action);
+    }
+
+    @Override
+    public Histogram<V> merge(Histogram<V> that) {
+        if (that instanceof ExactHistogram) {
+            bag.merge(((ExactHistogram<V>) that).bag);
+            return this;
+        }
+        return Histogram.super.merge(that);
+    }
+
+    @Override
+    public Optional<Quantiles<V>> getQuantiles(double... ranks) {
+        return Quantiles.from(bag, ranks);
+    }
+
+    @Override
+    public Optional<FiveNumberSummary<V>> getSummary() {
+        return FiveNumberSummary.from(bag);
+    }
+
+    @Override
+    public String toString() {
+        return bag.toString();
+    }
+}
@@ -0,0 +1,57 @@
+package name.julatec.util.statistics;
+
+import name.julatec.util.collection.LongLongCountBag;
+
+import java.util.Optional;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Histogram that keeps the exact count of every distinct {@code long} value, backed by a {@link LongLongCountBag}.
+ * Values recorded through {@link ExactLongHistogram#recordLong(long, long)} are never boxed.
+ */
+public class ExactLongHistogram implements Histogram<Long> {
+
+    /**
+     * Counts of the observed values.
+     */
+    private final LongLongCountBag bag = new LongLongCountBag();
+
+    @Override
+    public void record(Long value, long count) {
+        bag.increment(value, count);
+    }
+
+    @Override
+    public void recordLong(long value, long count) {
+        bag.increment(value, count);
+    }
+
+    @Override
+    public long getTotalCount() {
+        return bag.getTotalCount();
+    }
+
+    @Override
+    public void forEach(ObjLongConsumer<? super Long> action) {
+        bag.forEach(action::accept);
+    }
+
+    @Override
+    public Histogram<Long> merge(Histogram<Long> that) {
+        if (that instanceof ExactLongHistogram) {
+            bag.merge(((ExactLongHistogram) that).bag);
+            return this;
+        }
+        return Histogram.super.merge(that);
+    }
+
+    @Override
+    public Optional<FiveNumberSummary<Long>> getSummary() {
+        return FiveNumberSummary.from(bag);
+    }
+
+    @Override
+    public String toString() {
+        return bag.toString();
+    }
+}
@@ -1,11 +1,14 @@
 package name.julatec.util.statistics;
 
 import name.julatec.util.collection.Bag;
+import name.julatec.util.collection.FrozenBag;
+import name.julatec.util.collection.LongCountBag;
+import name.julatec.util.collection.LongLongCountBag;
+import name.julatec.util.collection.RankedBag;
 
-import java.util.Map;
+import java.util.List;
 import java.util.NavigableMap;
 import java.util.Optional;
-import java.util.TreeMap;
 import java.util.function.BiFunction;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
@@ -104,9 +107,117 @@ public final class FiveNumberSummary<V> {
 
     }
 
+    /**
+     * Calculates the five-number summary of the given frozen bag using the field operator for scaling, in
+     * {@code O(log n)}, looking up each quartile in the cumulative values kept by the bag.
+     *
+     * @param bag           sample histogram.
+     * @param fieldOperator used to scale the sample type.
+     * @param <K>           key type
+     * @param <V>           value type.
+     * @return five-number summary of the given histogram.
+     */
+    public static <K extends Comparable<K>, V extends Comparable<V>>
+    Optional<FiveNumberSummary<K>> from(
+            FrozenBag<K, V> bag,
+            BiFunction<Double, V, V> fieldOperator) {
+        return Quantiles.from(bag, fieldOperator, 0.25d, 0.50d, 0.75d).map(quantiles -> new FiveNumberSummary<>(
+                bag.firstKey(),
+                quantiles.get(0.25d),
+                quantiles.get(0.50d),
+                quantiles.get(0.75d),
+                bag.lastKey()));
+    }
+
+    /**
+     * Calculates the five-number summary of the given histogram in a single pass over its values.
+     *
+     * @param histogram sample histogram.
+     * @param <V>       value type.
+     * @return five-number summary of the given histogram.
+     */
+    public static <V> Optional<FiveNumberSummary<V>> from(Histogram<V> histogram) {
+        return Quantiles.from(histogram, 0d, 0.25d, 0.50d, 0.75d, 1d).map(quantiles -> new FiveNumberSummary<>(
+                quantiles.get(0d),
+                quantiles.get(0.25d),
+                quantiles.get(0.50d),
+                quantiles.get(0.75d),
+                quantiles.get(1d)));
+    }
+
+    /**
+     * Calculates the five-number summary of the given counting bag, looking up every quartile in a single sorted copy
+     * of its keys and primitive cumulative counts.
+     *
+     * @param bag sample histogram.
+     * @param <K> key type
+     * @return five-number summary of the given histogram.
+     */
+    public static <K extends Comparable<K>>
+    Optional<FiveNumberSummary<K>> from(LongCountBag<K> bag) {
+        synchronized (bag) {
+            final long sum = bag.getTotalCount();
+            final List<K> keys = bag.select(
+                    0L,
+                    (long) (0.25d * sum),
+                    (long) (0.50d * sum),
+                    (long) (0.75d * sum),
+                    Long.MAX_VALUE);
+            if (keys.isEmpty()) {
+                return Optional.empty();
+            }
+            return Optional.of(
+                    new FiveNumberSummary<>(keys.get(0), keys.get(1), keys.get(2), keys.get(3), keys.get(4)));
+        }
+    }
+
+    /**
+     * Calculates the five-number summary of the given ranked bag in {@code O(log n)}, looking up each quartile in
+     * the cumulative counts kept by the bag.
+     *
+     * @param bag sample histogram.
+     * @param <K> key type
+     * @return five-number summary of the given histogram.
+     */
+    public static <K extends Comparable<K>>
+    Optional<FiveNumberSummary<K>> from(RankedBag<K> bag) {
+        synchronized (bag) {
+            return Quantiles.from(bag, 0.25d, 0.50d, 0.75d).map(quantiles -> new FiveNumberSummary<>(
+                    bag.firstKey(),
+                    quantiles.get(0.25d),
+                    quantiles.get(0.50d),
+                    quantiles.get(0.75d),
+                    bag.lastKey()));
+        }
+    }
+
+    /**
+     * Calculates the five-number summary of the given counting bag without boxing its keys and counts, looking up
+     * every quartile in a single consistent copy of its keys and cumulative counts.
+     *
+     * @param bag sample histogram.
+     * @return five-number summary of the given histogram.
+     */
+    public static Optional<FiveNumberSummary<Long>> from(LongLongCountBag bag) {
+        synchronized (bag) {
+            final long sum = bag.getTotalCount();
+            final long[] keys = bag.select(
+                    0L,
+                    (long) (0.25d * sum),
+                    (long) (0.50d * sum),
+                    (long) (0.75d * sum),
+                    Long.MAX_VALUE);
+            if (keys.length == 0) {
+                return Optional.empty();
+            }
+            return Optional.of(new FiveNumberSummary<>(keys[0], keys[1], keys[2], keys[3], keys[4]));
+        }
+    }
+
     /**
      * Calculates the five number summary of the given histogram using the field operator for scaling and the
-     * sum operator as the addition.
+     * sum operator as the addition. The quartiles are found together by {@link Quantiles}, without building a map of
+     * cumulative counts.
      *
      * @param navigableMap  histogram of the population.
      * @param sumOperator   operator to perform addition.
@@ -120,28 +231,13 @@ public final class FiveNumberSummary<V> {
             NavigableMap<K, V> navigableMap,
             BinaryOperator<V> sumOperator,
             BiFunction<Double, V, V> fieldOperator) {
-        if (navigableMap.isEmpty()) {
-            return Optional.empty();
-        }
-        final K min = navigableMap.firstKey();
-        final K max = navigableMap.lastKey();
-        V cumulative = navigableMap.get(min);
-        K lastKey = null;
-        final TreeMap<V, K> cumulativeMap = new TreeMap<>();
-        int count = 0;
-        for (Map.Entry<K, V> kvEntry : navigableMap.entrySet()) {
-            if (count++ > 0) {
-                cumulativeMap.put(cumulative, lastKey);
-                cumulative = sumOperator.apply(cumulative, kvEntry.getValue());
-            }
-            lastKey = kvEntry.getKey();
-        }
-        cumulativeMap.put(cumulative, lastKey);
-        final V sum = cumulative;
-        final K lowerQuartile = cumulativeMap.ceilingEntry(fieldOperator.apply(0.25d, sum)).getValue();
-        final K median = cumulativeMap.ceilingEntry(fieldOperator.apply(0.50d, sum)).getValue();
-        final K upperQuartile = cumulativeMap.ceilingEntry(fieldOperator.apply(0.75d, sum)).getValue();
-        return Optional.of(new FiveNumberSummary<>(min, lowerQuartile, median, upperQuartile, max));
+        return Quantiles.from(navigableMap, sumOperator, fieldOperator, 0.25d, 0.50d, 0.75d)
+                .map(quantiles -> new FiveNumberSummary<>(
+                        navigableMap.firstKey(),
+                        quantiles.get(0.25d),
+                        quantiles.get(0.50d),
+                        quantiles.get(0.75d),
+                        navigableMap.lastKey()));
     }
 
     @Override
@@ -0,0 +1,76 @@
+package name.julatec.util.statistics;
+
+import java.util.Optional;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Defines a histogram that records how many times each value of a sample has been observed. The histogram is updated
+ * in place, so recording a value does not need to allocate a new collection per sample.
+ *
+ * @param <V> Type parameter of the Sample.
+ */
+public interface Histogram<V> {
+
+    /**
+     * Records the given number of observations of the value.
+     *
+     * @param value observed value.
+     * @param count number of observations.
+     */
+    void record(V value, long count);
+
+    /**
+     * Records the given number of observations of the primitive value, without boxing it.
+     *
+     * @param value observed value.
+     * @param count number of observations.
+     * @throws UnsupportedOperationException if the histogram does not hold {@code long} values.
+     */
+    default void recordLong(long value, long count) {
+        throw new UnsupportedOperationException("Histogram does not support primitive long values.");
+    }
+
+    /**
+     * Returns the number of observations in this histogram.
+     *
+     * @return the number of observations in this histogram.
+     */
+    long getTotalCount();
+
+    /**
+     * Performs the given action for each value and its number of observations, in ascending value order.
+     *
+     * @param action action to perform.
+     */
+    void forEach(ObjLongConsumer<? super V> action);
+
+    /**
+     * Merges this histogram with the given histogram that.
+     *
+     * @param that histogram with the observations to include on this histogram.
+     * @return this instance.
+     */
+    default Histogram<V> merge(Histogram<V> that) {
+        that.forEach(this::record);
+        return this;
+    }
+
+    /**
+     * Quantiles of the observations at the given ranks, computed together in a single walk over the histogram.
+     *
+     * @param ranks ranks of the quantiles, between 0 and 1.
+     * @return quantiles of the observations, empty if there is none.
+     */
+    default Optional<Quantiles<V>> getQuantiles(double... ranks) {
+        return Quantiles.from(this, ranks);
+    }
+
+    /**
+     * Five-number summary of the observations.
+     *
+     * @return five-number summary of the observations, empty if there is none.
+     */
+    default Optional<FiveNumberSummary<V>> getSummary() {
+        return FiveNumberSummary.from(this);
+    }
+}
@@ -0,0 +1,460 @@
+package name.julatec.util.statistics;
+
+import name.julatec.util.collection.Bag;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Read-only histogram of {@code long} values in a compact binary form, to ship histograms between processes and merge
+ * them centrally.
+ * <p>
+ * The snapshot starts with a header of three unsigned varints: the number of distinct values, the total count and the
+ * length in bytes of the body. The body holds, in ascending value order, the first value as a zig-zag varint and each
+ * following value as the unsigned varint difference to the previous one, each value followed by its count as an
+ * unsigned varint. Close values and small counts take one or two bytes each.
+ * <p>
+ * A snapshot read from a buffer is a view over that buffer, the values are decoded as they are walked without copying
+ * the bytes nor building a map. Reading checks the body once against its header, so a corrupted snapshot is rejected
+ * before it is merged.
+ */
+public final class HistogramSnapshot implements Histogram<Long> {
+
+    /**
+     * Maximum length in bytes of a varint of a {@code long}.
+     */
+    private static final int MAX_VARINT_LENGTH = 10;
+
+    /**
+     * Encoded snapshot, header included, from position zero to the limit.
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * Number of distinct values.
+     */
+    private final int entries;
+
+    /**
+     * Number of observations.
+     */
+    private final long totalCount;
+
+    /**
+     * Position of the body in the buffer.
+     */
+    private final int body;
+
+    /**
+     * Defines a snapshot over the given encoded buffer.
+     *
+     * @param buffer     encoded snapshot, from position zero to the limit.
+     * @param entries    number of distinct values.
+     * @param totalCount number of observations.
+     * @param body       position of the body in the buffer.
+     */
+    private HistogramSnapshot(ByteBuffer buffer, int entries, long totalCount, int body) {
+        this.buffer = buffer;
+        this.entries = entries;
+        this.totalCount = totalCount;
+        this.body = body;
+    }
+
+    /**
+     * Takes a snapshot of the given histogram.
+     *
+     * @param histogram histogram to encode.
+     * @return snapshot of the histogram.
+     */
+    public static HistogramSnapshot of(Histogram<Long> histogram) {
+        final Encoder encoder = new Encoder();
+        histogram.forEach(encoder::accept);
+        return encoder.toSnapshot();
+    }
+
+    /**
+     * Takes a snapshot of the given bag of counts.
+     *
+     * @param bag bag to encode.
+     * @return snapshot of the bag.
+     */
+    public static HistogramSnapshot of(Bag<Long, Long> bag) {
+        final Encoder encoder = new Encoder();
+        for (Map.Entry<Long, Long> entry : bag) {
+            encoder.accept(entry.getKey(), entry.getValue());
+        }
+        return encoder.toSnapshot();
+    }
+
+    /**
+     * Merges the given snapshots in a single pass over their encoded values, adding the counts of the equal values
+     * like {@link Bag#merge} does.
+     *
+     * @param snapshots snapshots to merge.
+     * @return snapshot with the observations of every given snapshot.
+     */
+    public static HistogramSnapshot merge(Collection<HistogramSnapshot> snapshots) {
+        final Cursor[] cursors = snapshots.stream()
+                .map(HistogramSnapshot::cursor)
+                .filter(Cursor::next)
+                .toArray(Cursor[]::new);
+        final Encoder encoder = new Encoder();
+        int active = cursors.length;
+        while (active > 0) {
+            long value = cursors[0].value;
+            for (int i = 1; i < active; i++) {
+                value = Math.min(value, cursors[i].value);
+            }
+            long count = 0;
+            for (int i = 0; i < active; i++) {
+                final Cursor cursor = cursors[i];
+                if (cursor.value == value) {
+                    count += cursor.count;
+                    if (!cursor.next()) {
+                        cursors[i--] = cursors[--active];
+                    }
+                }
+            }
+            encoder.accept(value, count);
+        }
+        return encoder.toSnapshot();
+    }
+
+    /**
+     * Reads the snapshot at the position of the given buffer without copying it, and moves the position of the buffer
+     * to the end of the snapshot. The returned snapshot shares the content of the buffer, which must not change while
+     * the snapshot is used.
+     *
+     * @param buffer buffer with an encoded snapshot at its position.
+     * @return snapshot view over the buffer.
+     * @throws IllegalArgumentException if the buffer does not hold a whole snapshot, or the snapshot is corrupted.
+     */
+    public static HistogramSnapshot read(ByteBuffer buffer) {
+        final ByteBuffer view = buffer.slice();
+        try {
+            final long entries = readVarint(view);
+            final long totalCount = readVarint(view);
+            final long length = readVarint(view);
+            if (entries > Integer.MAX_VALUE || length > view.remaining()) {
+                throw new IllegalArgumentException("Truncated or invalid snapshot.");
+            }
+            final int body = view.position();
+            view.limit(body + (int) length);
+            validate(view, entries, totalCount);
+            view.position(0);
+            buffer.position(buffer.position() + body + (int) length);
+            return new HistogramSnapshot(view.slice(), (int) entries, totalCount, body);
+        } catch (BufferUnderflowException e) {
+            throw new IllegalArgumentException("Truncated snapshot.", e);
+        }
+    }
+
+    /**
+     * Walks the body once and checks it against the header: the values ascend without overflowing, the counts are not
+     * negative and add up to the total count without overflowing, and the declared entries take the whole body.
+     *
+     * @param body       encoded body, from its position to its limit.
+     * @param entries    declared number of distinct values.
+     * @param totalCount declared number of observations.
+     * @throws IllegalArgumentException if the body does not match the header.
+     * @throws BufferUnderflowException if the body holds fewer entries than declared.
+     */
+    private static void validate(ByteBuffer body, long entries, long totalCount) {
+        long previous = 0;
+        long sum = 0;
+        for (long i = 0; i < entries; i++) {
+            final long encoded = readVarint(body);
+            if (i == 0) {
+                previous = (encoded >>> 1) ^ -(encoded & 1);
+            } else if (encoded == 0 || Long.compareUnsigned(encoded, Long.MAX_VALUE - previous) > 0) {
+                throw new IllegalArgumentException("Value out of range after " + previous + ": +" + encoded);
+            } else {
+                previous += encoded;
+            }
+            final long count = readVarint(body);
+            if (count < 0) {
+                throw new IllegalArgumentException("Negative count of " + previous + ": " + count);
+            }
+            try {
+                sum = Math.addExact(sum, count);
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("Total count overflows at " + previous + ".", e);
+            }
+        }
+        if (sum != totalCount) {
+            throw new IllegalArgumentException("Counts add up to " + sum + ", not to " + totalCount + ".");
+        }
+        if (body.hasRemaining()) {
+            throw new IllegalArgumentException("Trailing bytes after " + entries + " entries: " + body.remaining());
+        }
+    }
+
+    /**
+     * Copies the encoded snapshot into the given buffer.
+     *
+     * @param target buffer to write to.
+     * @throws java.nio.BufferOverflowException if the buffer has less than {@link #size()} bytes remaining.
+     */
+    public void writeTo(ByteBuffer target) {
+        target.put(buffer.duplicate());
+    }
+
+    /**
+     * Writes the encoded snapshot to the given channel.
+     *
+     * @param channel channel to write to.
+     * @throws IOException if the channel fails to write.
+     */
+    public void writeTo(WritableByteChannel channel) throws IOException {
+        final ByteBuffer source = buffer.duplicate();
+        while (source.hasRemaining()) {
+            channel.write(source);
+        }
+    }
+
+    /**
+     * Gets the length of the encoded snapshot.
+     *
+     * @return number of bytes of the snapshot.
+     */
+    public int size() {
+        return buffer.limit();
+    }
+
+    /**
+     * Gets the number of distinct values of the snapshot.
+     *
+     * @return number of distinct values.
+     */
+    public int getEntryCount() {
+        return entries;
+    }
+
+    /**
+     * Snapshots are read-only.
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public void record(Long value, long count) {
+        throw new UnsupportedOperationException("Histogram snapshot is read-only.");
+    }
+
+    /**
+     * Snapshots are read-only.
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public void recordLong(long value, long count) {
+        throw new UnsupportedOperationException("Histogram snapshot is read-only.");
+    }
+
+    /**
+     * Snapshots are read-only, use {@link #merge(Collection)} to merge snapshots.
+     *
+     * @throws UnsupportedOperationException always.
+     */
+    @Override
+    public Histogram<Long> merge(Histogram<Long> that) {
+        throw new UnsupportedOperationException("Histogram snapshot is read-only.");
+    }
+
+    @Override
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    @Override
+    public void forEach(ObjLongConsumer<? super Long> action) {
+        final Cursor cursor = cursor();
+        while (cursor.next()) {
+            action.accept(cursor.value, cursor.count);
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("{");
+        forEach((value, count) -> builder.append(builder.length() > 1 ? ", " : "")
+                .append(value)
+                .append('=')
+                .append(count));
+        return builder.append('}').toString();
+    }
+
+    /**
+     * Starts a walk over the encoded values.
+     *
+     * @return cursor before the first value.
+     */
+    private Cursor cursor() {
+        final ByteBuffer view = buffer.duplicate();
+        view.position(body);
+        return new Cursor(view, entries);
+    }
+
+    /**
+     * Reads an unsigned varint.
+     *
+     * @param buffer buffer to read from.
+     * @return decoded value.
+     */
+    private static long readVarint(ByteBuffer buffer) {
+        long value = 0;
+        for (int shift = 0; shift < 7 * MAX_VARINT_LENGTH; shift += 7) {
+            final byte b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint.");
+    }
+
+    /**
+     * Walks the values of a snapshot, decoding one value and its count at a time.
+     */
+    private static final class Cursor {
+
+        /**
+         * Encoded body, positioned at the next value.
+         */
+        private final ByteBuffer buffer;
+
+        /**
+         * Number of values not yet decoded.
+         */
+        private int remaining;
+
+        /**
+         * Whether the next value is the first one.
+         */
+        private boolean first = true;
+
+        /**
+         * Current value.
+         */
+        long value;
+
+        /**
+         * Count of the current value.
+         */
+        long count;
+
+        Cursor(ByteBuffer buffer, int remaining) {
+            this.buffer = buffer;
+            this.remaining = remaining;
+        }
+
+        /**
+         * Decodes the next value and its count.
+         *
+         * @return false if there are no more values.
+         */
+        boolean next() {
+            if (remaining == 0) {
+                return false;
+            }
+            remaining--;
+            final long encoded = readVarint(buffer);
+            if (first) {
+                value = (encoded >>> 1) ^ -(encoded & 1);
+                first = false;
+            } else {
+                value += encoded;
+            }
+            count = readVarint(buffer);
+            return true;
+        }
+    }
+
+    /**
+     * Encodes values in ascending order into a growing array.
+     */
+    private static final class Encoder {
+
+        /**
+         * Encoded body.
+         */
+        private byte[] bytes = new byte[64];
+
+        /**
+         * Length of the encoded body.
+         */
+        private int length;
+
+        /**
+         * Number of encoded values.
+         */
+        private int entries;
+
+        /**
+         * Sum of the encoded counts.
+         */
+        private long totalCount;
+
+        /**
+         * Last encoded value.
+         */
+        private long previous;
+
+        /**
+         * Encodes the given value and count, values must come in ascending order.
+         *
+         * @param value value to encode.
+         * @param count count of the value.
+         */
+        void accept(long value, long count) {
+            if (entries == 0) {
+                writeVarint((value << 1) ^ (value >> 63));
+            } else if (value > previous) {
+                writeVarint(value - previous);
+            } else {
+                throw new IllegalStateException("Values are not in ascending order: " + previous + ", " + value);
+            }
+            writeVarint(count);
+            previous = value;
+            totalCount += count;
+            entries++;
+        }
+
+        /**
+         * Writes an unsigned varint.
+         *
+         * @param value value to write.
+         */
+        private void writeVarint(long value) {
+            if (length + MAX_VARINT_LENGTH > bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            while ((value & ~0x7FL) != 0) {
+                bytes[length++] = (byte) (value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        /**
+         * Prepends the header to the encoded body.
+         *
+         * @return snapshot of the encoded values.
+         */
+        HistogramSnapshot toSnapshot() {
+            final int bodyLength = length;
+            writeVarint(entries);
+            writeVarint(totalCount);
+            writeVarint(bodyLength);
+            final int headerLength = length - bodyLength;
+            final ByteBuffer buffer = ByteBuffer.allocate(length);
+            buffer.put(bytes, bodyLength, headerLength).put(bytes, 0, bodyLength).flip();
+            return new HistogramSnapshot(buffer, entries, totalCount, headerLength);
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package name.julatec.util.statistics;
+
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Histogram of {@code long} values with a fixed relative precision, organized as HdrHistogram does: the range is split
+ * into buckets whose width doubles from one to the next, and each bucket is split into linear sub-buckets. All the
+ * counts live in a single flat buffer, so recording a value is a constant time array increment and the memory
+ * of the histogram only depends on the trackable range and the number of significant digits.
+ * <p>
+ * Values are indexed by their distance to the lowest trackable value, {@code value - lowestValue}, and a value is
+ * reported as the highest value of its sub-bucket, which is within {@code 10^-significantDigits} of the recorded value
+ * relative to that distance, not to the value itself. Values are tracked exactly up to
+ * {@code 2 * 10^significantDigits} above the lowest trackable value. With a lowest trackable value of zero the
+ * precision is relative to the values; with a negative one, such as a range of {@code [-1e9, 1e9]}, values near zero
+ * are a billion away from it and get an absolute error of about {@code 1e9 * 10^-significantDigits}, so a range that
+ * spans both signs is better recorded as two histograms, or with a {@link QuantileSketch}, which keeps a relative
+ * precision on both signs. The minimum and the maximum are always exact.
+ * <p>
+ * Besides the sub-bucket counts, the histogram keeps the total of each block of sub-buckets, so a percentile is found
+ * by walking the block totals and then the sub-buckets of a single block, instead of every sub-bucket.
+ * <p>
+ * The whole state of the histogram, counts, totals and extremes, lives in a single {@link LongBuffer}, on heap by
+ * default, or mapped to a file by {@link MappedHistogramStore} so it survives restarts and stays out of the heap.
+ */
+public class LogLinearHistogram implements Histogram<Long> {
+
+    /**
+     * Slot of the number of observations in the state.
+     */
+    private static final int TOTAL_COUNT = 0;
+
+    /**
+     * Slot of the minimum observation in the state.
+     */
+    private static final int MIN = 1;
+
+    /**
+     * Slot of the maximum observation in the state.
+     */
+    private static final int MAX = 2;
+
+    /**
+     * Slot of the first block count in the state.
+     */
+    private static final int BLOCKS = 3;
+
+    /**
+     * Lowest trackable value, subtracted from every value before indexing it.
+     */
+    private final long lowestValue;
+
+    /**
+     * Highest trackable value.
+     */
+    private final long highestValue;
+
+    /**
+     * Number of significant decimal digits of the values.
+     */
+    private final int significantDigits;
+
+    /**
+     * Binary magnitude of the number of sub-buckets of each bucket.
+     */
+    private final int subBucketCountMagnitude;
+
+    /**
+     * Binary magnitude of the number of sub-buckets that each bucket after the first one adds.
+     */
+    private final int subBucketHalfCountMagnitude;
+
+    /**
+     * Number of sub-buckets that each bucket after the first one adds.
+     */
+    private final int subBucketHalfCount;
+
+    /**
+     * Mask of the values that fall in the first bucket.
+     */
+    private final long subBucketMask;
+
+    /**
+     * Number of sub-buckets.
+     */
+    private final int countLength;
+
+    /**
+     * Slot of the first sub-bucket count in the state, after the sums of the counts of each block of
+     * {@link LogLinearHistogram#subBucketHalfCount} sub-buckets.
+     */
+    private final int counts;
+
+    /**
+     * Number of observations, minimum, maximum, block counts and sub-bucket counts.
+     */
+    private final LongBuffer state;
+
+    /**
+     * Defines a histogram for the values between zero and the given highest value.
+     *
+     * @param highestValue      highest trackable value.
+     * @param significantDigits number of significant decimal digits, between 0 and 5.
+     */
+    public LogLinearHistogram(long highestValue, int significantDigits) {
+        this(0, highestValue, significantDigits);
+    }
+
+    /**
+     * Defines a histogram for the values between the given lowest and highest values.
+     *
+     * @param lowestValue       lowest trackable value.
+     * @param highestValue      highest trackable value.
+     * @param significantDigits number of significant decimal digits, between 0 and 5.
+     */
+    public LogLinearHistogram(long lowestValue, long highestValue, int significantDigits) {
+        this(lowestValue, highestValue, significantDigits, null);
+    }
+
+    /**
+     * Defines a histogram for the values between the given lowest and highest values, whose state lives in the given
+     * buffer of {@link LogLinearHistogram#stateLength} slots. A buffer without observations is initialized, unless it
+     * is read-only.
+     *
+     * @param lowestValue       lowest trackable value.
+     * @param highestValue      highest trackable value.
+     * @param significantDigits number of significant decimal digits, between 0 and 5.
+     * @param state             state of the histogram, or {@code null} to allocate it on heap.
+     */
+    LogLinearHistogram(long lowestValue, long highestValue, int significantDigits, LongBuffer state) {
+        if (significantDigits < 0 || significantDigits > 5) {
+            throw new IllegalArgumentException("Significant digits must be between 0 and 5: " + significantDigits);
+        }
+        if (highestValue <= lowestValue || highestValue - lowestValue < 0) {
+            throw new IllegalArgumentException(
+                    "Invalid trackable range: [" + lowestValue + ", " + highestValue + "]");
+        }
+        this.lowestValue = lowestValue;
+        this.highestValue = highestValue;
+        this.significantDigits = significantDigits;
+        final long largestValueWithSingleUnitResolution = 2 * (long) Math.pow(10, significantDigits);
+        this.subBucketCountMagnitude = 64 - Long.numberOfLeadingZeros(largestValueWithSingleUnitResolution - 1);
+        this.subBucketHalfCountMagnitude = subBucketCountMagnitude - 1;
+        this.subBucketHalfCount = 1 << subBucketHalfCountMagnitude;
+        this.subBucketMask = (1L << subBucketCountMagnitude) - 1;
+        this.countLength = index(highestValue - lowestValue) + 1;
+        this.counts = BLOCKS + (countLength >> subBucketHalfCountMagnitude) + 1;
+        this.state = state == null ? LongBuffer.allocate(counts + countLength) : state;
+        if (this.state.capacity() != counts + countLength) {
+            throw new IllegalArgumentException(
+                    "State of " + this.state.capacity() + " slots, expected " + (counts + countLength));
+        }
+        if (!this.state.isReadOnly() && this.state.get(TOTAL_COUNT) == 0) {
+            this.state.put(MIN, Long.MAX_VALUE);
+            this.state.put(MAX, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * Gets the number of {@code long} slots of the state of a histogram with the given layout.
+     *
+     * @param lowestValue       lowest trackable value.
+     * @param highestValue      highest trackable value.
+     * @param significantDigits number of significant decimal digits, between 0 and 5.
+     * @return number of slots of the state.
+     */
+    static int stateLength(long lowestValue, long highestValue, int significantDigits) {
+        return new LogLinearHistogram(lowestValue, highestValue, significantDigits).state.capacity();
+    }
+
+    /**
+     * Gets the lowest trackable value.
+     *
+     * @return lowest trackable value.
+     */
+    public long getLowestValue() {
+        return lowestValue;
+    }
+
+    /**
+     * Gets the highest trackable value.
+     *
+     * @return highest trackable value.
+     */
+    public long getHighestValue() {
+        return highestValue;
+    }
+
+    /**
+     * Gets the number of significant decimal digits of the values.
+     *
+     * @return number of significant decimal digits.
+     */
+    public int getSignificantDigits() {
+        return significantDigits;
+    }
+
+    @Override
+    public void record(Long value, long count) {
+        recordLong(value, count);
+    }
+
+    @Override
+    public synchronized void recordLong(long value, long count) {
+        if (value < lowestValue || value > highestValue) {
+            throw new IllegalArgumentException(
+                    "Value " + value + " out of the trackable range [" + lowestValue + ", " + highestValue + "]");
+        }
+        final int index = index(value - lowestValue);
+        add(counts + index, count);
+        add(BLOCKS + (index >> subBucketHalfCountMagnitude), count);
+        add(TOTAL_COUNT, count);
+        if (value < state.get(MIN)) {
+            state.put(MIN, value);
+        }
+        if (value > state.get(MAX)) {
+            state.put(MAX, value);
+        }
+    }
+
+    @Override
+    public synchronized long getTotalCount() {
+        return state.get(TOTAL_COUNT);
+    }
+
+    /**
+     * Gets the value at the given percentile of the observations.
+     *
+     * @param percentile percentile between 0 and 100.
+     * @return value at the percentile, or zero if there are no observations.
+     */
+    public synchronized long getValueAtPercentile(double percentile) {
+        final long totalCount = state.get(TOTAL_COUNT);
+        if (totalCount == 0) {
+            return 0;
+        }
+        return representative(select((long) Math.ceil(Math.min(percentile, 100d) / 100d * totalCount)));
+    }
+
+    @Override
+    public synchronized void forEach(ObjLongConsumer<? super Long> action) {
+        for (int index = 0; index < countLength; index++) {
+            final long count = state.get(counts + index);
+            if (count != 0) {
+                action.accept(representative(index), count);
+            }
+        }
+    }
+
+    @Override
+    public Histogram<Long> merge(Histogram<Long> that) {
+        if (!(that instanceof LogLinearHistogram) || !((LogLinearHistogram) that).hasSameLayout(this)) {
+            return Histogram.super.merge(that);
+        }
+        final LogLinearHistogram histogram = (LogLinearHistogram) that;
+        final long[] thatState = new long[state.capacity()];
+        synchronized (histogram) {
+            histogram.state.duplicate().position(0).get(thatState);
+        }
+        synchronized (this) {
+            for (int slot = BLOCKS; slot < thatState.length; slot++) {
+                add(slot, thatState[slot]);
+            }
+            add(TOTAL_COUNT, thatState[TOTAL_COUNT]);
+            state.put(MIN, Math.min(state.get(MIN), thatState[MIN]));
+            state.put(MAX, Math.max(state.get(MAX), thatState[MAX]));
+        }
+        return this;
+    }
+
+    @Override
+    public synchronized Optional<Quantiles<Long>> getQuantiles(double... ranks) {
+        final double[] sortedRanks = Quantiles.sort(ranks);
+        final long totalCount = state.get(TOTAL_COUNT);
+        if (totalCount == 0) {
+            return Optional.empty();
+        }
+        final List<Long> values = new ArrayList<>(sortedRanks.length);
+        for (double rank : sortedRanks) {
+            values.add(rank == 0d ? state.get(MIN)
+                    : rank == 1d ? state.get(MAX)
+                    : representative(select((long) (rank * totalCount))));
+        }
+        return Optional.of(new Quantiles<>(sortedRanks, values));
+    }
+
+    @Override
+    public synchronized Optional<FiveNumberSummary<Long>> getSummary() {
+        final long totalCount = state.get(TOTAL_COUNT);
+        if (totalCount == 0) {
+            return Optional.empty();
+        }
+        return Optional.of(new FiveNumberSummary<>(
+                state.get(MIN),
+                representative(select((long) (0.25d * totalCount))),
+                representative(select((long) (0.50d * totalCount))),
+                representative(select((long) (0.75d * totalCount))),
+                state.get(MAX)));
+    }
+
+    /**
+     * Finds the first non empty sub-bucket whose cumulative count is greater or equal than the given rank. The walk
+     * stops at the last block and at the last sub-bucket of the block, so a state whose total count is ahead of its
+     * block and sub-bucket counts, as a reader of a {@link MappedHistogramStore} may see while a value is recorded,
+     * selects the last sub-bucket instead of reading past the counts.
+     *
+     * @param rank cumulative count to lookup.
+     * @return index of the sub-bucket.
+     */
+    private int select(long rank) {
+        rank = Math.max(1, Math.min(rank, state.get(TOTAL_COUNT)));
+        final int lastBlock = (countLength - 1) >> subBucketHalfCountMagnitude;
+        long cumulative = 0;
+        int block = 0;
+        while (block < lastBlock && cumulative + state.get(BLOCKS + block) < rank) {
+            cumulative += state.get(BLOCKS + block++);
+        }
+        int index = block << subBucketHalfCountMagnitude;
+        final int lastIndex = Math.min(countLength, (block + 1) << subBucketHalfCountMagnitude) - 1;
+        while (index < lastIndex && cumulative + state.get(counts + index) < rank) {
+            cumulative += state.get(counts + index++);
+        }
+        return index;
+    }
+
+    /**
+     * Whether the given histogram maps the values to the same sub-buckets as this one.
+     *
+     * @param that histogram to compare.
+     * @return true if both histograms have the same layout.
+     */
+    private boolean hasSameLayout(LogLinearHistogram that) {
+        return lowestValue == that.lowestValue
+                && highestValue == that.highestValue
+                && significantDigits == that.significantDigits;
+    }
+
+    /**
+     * Maps the given value, relative to the lowest trackable value, to its sub-bucket.
+     *
+     * @param value non negative value.
+     * @return index of the sub-bucket.
+     */
+    private int index(long value) {
+        final int bucketIndex = 63 - Long.numberOfLeadingZeros(value | subBucketMask) - subBucketCountMagnitude + 1;
+        final int subBucketIndex = (int) (value >>> bucketIndex);
+        return (bucketIndex << subBucketHalfCountMagnitude) + subBucketIndex;
+    }
+
+    /**
+     * Maps the given sub-bucket to the highest value that it holds, bounded by the observed range.
+     *
+     * @param index index of the sub-bucket.
+     * @return representative value of the sub-bucket.
+     */
+    private long representative(int index) {
+        int bucketIndex = (index >> subBucketHalfCountMagnitude) - 1;
+        int subBucketIndex = (index & (subBucketHalfCount - 1)) + subBucketHalfCount;
+        if (bucketIndex < 0) {
+            subBucketIndex -= subBucketHalfCount;
+            bucketIndex = 0;
+        }
+        final long highest = lowestValue + ((long) subBucketIndex << bucketIndex) + (1L << bucketIndex) - 1;
+        return Math.max(state.get(MIN), Math.min(state.get(MAX), highest));
+    }
+
+    /**
+     * Adds the given delta to a slot of the state.
+     *
+     * @param slot  slot of the state.
+     * @param delta delta to add.
+     */
+    private void add(int slot, long delta) {
+        state.put(slot, state.get(slot) + delta);
+    }
+}
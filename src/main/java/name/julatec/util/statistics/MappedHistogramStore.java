@@ -0,0 +1,471 @@
+package name.julatec.util.statistics;
+
+import name.julatec.util.collection.Codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.NavigableMap;
+import java.util.NavigableSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Keeps the {@link LogLinearHistogram} of each group in a memory-mapped file, so the counts survive restarts, live out
+ * of the heap, and can be read by another process while they are recorded.
+ * <p>
+ * The file starts with a header holding a magic number, the layout of the histograms, the number of groups and the
+ * length of the segments. Each group follows as its key, encoded by a {@link Codec} and prefixed by its length, and
+ * the state of its histogram aligned to eight bytes. A group is appended to the end of the file, and the number of
+ * groups of the header is updated once the group is complete.
+ * <p>
+ * The file is mapped in segments of the length given in the header, and the state of each histogram is a slice of the
+ * segment that holds it, so the store takes one mapping per segment instead of one per group, and a large number of
+ * groups does not run into the limit of mappings of the process. A state that would cross the end of a segment starts
+ * at the next segment instead.
+ * <p>
+ * A store opened with {@link MappedHistogramStore#openReadOnly} sees the groups that existed when it was opened, or
+ * when it was last {@link MappedHistogramStore#refresh() refreshed}; the counts of those groups are read from the
+ * shared mapping as the writer records them, without synchronization between processes, so a summary may observe a
+ * recording half done.
+ *
+ * @param <K> Type of the group.
+ */
+public final class MappedHistogramStore<K extends Comparable<K>> implements AutoCloseable {
+
+    /**
+     * Identifies a histogram store file.
+     */
+    private static final long MAGIC = 0x4A554C4148495354L;
+
+    /**
+     * Position of the lowest trackable value in the header.
+     */
+    private static final int LOWEST_VALUE = 8;
+
+    /**
+     * Position of the highest trackable value in the header.
+     */
+    private static final int HIGHEST_VALUE = 16;
+
+    /**
+     * Position of the number of significant digits in the header.
+     */
+    private static final int SIGNIFICANT_DIGITS = 24;
+
+    /**
+     * Position of the number of groups in the header.
+     */
+    private static final int GROUPS = 28;
+
+    /**
+     * Position of the length of the segments in the header.
+     */
+    private static final int SEGMENT_LENGTH = 32;
+
+    /**
+     * Length of the header.
+     */
+    private static final int HEADER_LENGTH = 40;
+
+    /**
+     * Default length in bytes of the segments, raised to the length of a state when it is larger.
+     */
+    public static final int DEFAULT_SEGMENT_LENGTH = 1 << 26;
+
+    /**
+     * File of the store.
+     */
+    private final FileChannel channel;
+
+    /**
+     * Whether the store was opened for reading only.
+     */
+    private final boolean readOnly;
+
+    /**
+     * Encodes the groups.
+     */
+    private final Codec<K> codec;
+
+    /**
+     * Mapped header of the file.
+     */
+    private final MappedByteBuffer header;
+
+    /**
+     * Lowest trackable value of the histograms.
+     */
+    private final long lowestValue;
+
+    /**
+     * Highest trackable value of the histograms.
+     */
+    private final long highestValue;
+
+    /**
+     * Number of significant decimal digits of the histograms.
+     */
+    private final int significantDigits;
+
+    /**
+     * Length in bytes of the state of a histogram.
+     */
+    private final long stateLength;
+
+    /**
+     * Length in bytes of the segments.
+     */
+    private final long segmentLength;
+
+    /**
+     * Histograms of the groups.
+     */
+    private final NavigableMap<K, LogLinearHistogram> histograms = new TreeMap<>();
+
+    /**
+     * Mapped segments of the file, by their index.
+     */
+    private final NavigableMap<Long, MappedByteBuffer> segments = new TreeMap<>();
+
+    /**
+     * End of the last group in the file.
+     */
+    private long end = HEADER_LENGTH;
+
+    /**
+     * Defines a store over the given file and maps the groups that it holds.
+     *
+     * @param channel  file of the store.
+     * @param readOnly whether the store is read-only.
+     * @param codec    encodes the groups.
+     * @param header   mapped header, with the layout already written.
+     * @throws IOException if the groups cannot be read.
+     */
+    private MappedHistogramStore(FileChannel channel, boolean readOnly, Codec<K> codec, MappedByteBuffer header)
+            throws IOException {
+        this.channel = channel;
+        this.readOnly = readOnly;
+        this.codec = codec;
+        this.header = header;
+        this.lowestValue = header.getLong(LOWEST_VALUE);
+        this.highestValue = header.getLong(HIGHEST_VALUE);
+        this.significantDigits = header.getInt(SIGNIFICANT_DIGITS);
+        this.stateLength = (long) LogLinearHistogram.stateLength(lowestValue, highestValue, significantDigits) * 8;
+        this.segmentLength = header.getLong(SEGMENT_LENGTH);
+        if (segmentLength < stateLength || segmentLength > Integer.MAX_VALUE || segmentLength % 8 != 0) {
+            throw new IOException("Invalid segment length of histogram store: " + segmentLength);
+        }
+        readGroups();
+    }
+
+    /**
+     * Opens the store of the given file for reading and writing, creating it with segments of the default length if
+     * it does not exist.
+     *
+     * @param path              file of the store.
+     * @param codec             encodes the groups.
+     * @param lowestValue       lowest trackable value of the histograms.
+     * @param highestValue      highest trackable value of the histograms.
+     * @param significantDigits number of significant decimal digits, between 0 and 5.
+     * @param <K>               Type of the group.
+     * @return opened store.
+     * @throws IOException              if the file cannot be opened or it is not a histogram store.
+     * @throws IllegalArgumentException if the file holds histograms of another layout.
+     */
+    public static <K extends Comparable<K>> MappedHistogramStore<K> open(
+            Path path,
+            Codec<K> codec,
+            long lowestValue,
+            long highestValue,
+            int significantDigits) throws IOException {
+        return open(path, codec, lowestValue, highestValue, significantDigits, DEFAULT_SEGMENT_LENGTH);
+    }
+
+    /**
+     * Opens the store of the given file for reading and writing, creating it if it does not exist. A store that
+     * already exists keeps the length of segments it was created with.
+     *
+     * @param path              file of the store.
+     * @param codec             encodes the groups.
+     * @param lowestValue       lowest trackable value of the histograms.
+     * @param highestValue      highest trackable value of the histograms.
+     * @param significantDigits number of significant decimal digits, between 0 and 5.
+     * @param segmentLength     length in bytes of the mapped segments of a new store, raised to the length of the state
+     *                          of a histogram when it is lower, and rounded up to a multiple of eight.
+     * @param <K>               Type of the group.
+     * @return opened store.
+     * @throws IOException              if the file cannot be opened or it is not a histogram store.
+     * @throws IllegalArgumentException if the file holds histograms of another layout, or the state of a histogram
+     *                                  does not fit in a single mapping.
+     */
+    public static <K extends Comparable<K>> MappedHistogramStore<K> open(
+            Path path,
+            Codec<K> codec,
+            long lowestValue,
+            long highestValue,
+            int significantDigits,
+            int segmentLength) throws IOException {
+        // Rejects an invalid layout before the file is created.
+        final long stateLength =
+                (long) LogLinearHistogram.stateLength(lowestValue, highestValue, significantDigits) * 8;
+        final long segment = align(Math.max(segmentLength, stateLength));
+        if (segment > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Histogram state does not fit in a mapping: " + stateLength + " bytes.");
+        }
+        final FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            final boolean created = channel.size() == 0;
+            final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_LENGTH);
+            if (created) {
+                header.putLong(0, MAGIC)
+                        .putLong(LOWEST_VALUE, lowestValue)
+                        .putLong(HIGHEST_VALUE, highestValue)
+                        .putInt(SIGNIFICANT_DIGITS, significantDigits)
+                        .putInt(GROUPS, 0)
+                        .putLong(SEGMENT_LENGTH, segment);
+            } else {
+                checkMagic(header, path);
+                if (header.getLong(LOWEST_VALUE) != lowestValue
+                        || header.getLong(HIGHEST_VALUE) != highestValue
+                        || header.getInt(SIGNIFICANT_DIGITS) != significantDigits) {
+                    throw new IllegalArgumentException("Store " + path + " holds histograms of another layout.");
+                }
+            }
+            return new MappedHistogramStore<>(channel, false, codec, header);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Opens the store of the given file for reading only, such as from a reporting process.
+     *
+     * @param path  file of the store.
+     * @param codec encodes the groups.
+     * @param <K>   Type of the group.
+     * @return opened store.
+     * @throws IOException if the file cannot be opened or it is not a histogram store.
+     */
+    public static <K extends Comparable<K>> MappedHistogramStore<K> openReadOnly(Path path, Codec<K> codec)
+            throws IOException {
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            if (channel.size() < HEADER_LENGTH) {
+                throw new IOException("Not a histogram store: " + path);
+            }
+            final MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_LENGTH);
+            checkMagic(header, path);
+            return new MappedHistogramStore<>(channel, true, codec, header);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the histogram of the given group, appending the group to the store if it is new.
+     *
+     * @param group group of the histogram.
+     * @return histogram of the group.
+     * @throws UnsupportedOperationException if the group is new and the store is read-only.
+     * @throws UncheckedIOException          if the group cannot be appended.
+     */
+    public synchronized LogLinearHistogram histogram(K group) {
+        final LogLinearHistogram histogram = histograms.get(group);
+        if (histogram != null) {
+            return histogram;
+        }
+        if (readOnly) {
+            throw new UnsupportedOperationException("Histogram store is read-only.");
+        }
+        try {
+            final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            final DataOutputStream output = new DataOutputStream(bytes);
+            output.writeInt(0);
+            codec.write(output, group);
+            output.flush();
+            final ByteBuffer key = ByteBuffer.wrap(bytes.toByteArray());
+            key.putInt(0, key.capacity() - 4);
+            final long position = end;
+            while (key.hasRemaining()) {
+                channel.write(key, position + key.position());
+            }
+            final LogLinearHistogram created = map(position + key.capacity(), true);
+            histograms.put(group, created);
+            header.putInt(GROUPS, histograms.size());
+            return created;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Gets the groups of the store.
+     *
+     * @return groups in ascending order.
+     */
+    public synchronized NavigableSet<K> groups() {
+        return Collections.unmodifiableNavigableSet(new TreeSet<>(histograms.keySet()));
+    }
+
+    /**
+     * Provides a box plot whose group histograms live in this store, starting with the groups already stored. The
+     * whole population is merged from those groups when it is summarized, so it sees the counts recorded since; a
+     * reader provides a new box plot to see the groups added to the store afterwards.
+     *
+     * @return box plot backed by this store.
+     */
+    public BoxPlot<K, Long> boxPlot() {
+        final BoxPlot<K, Long> boxPlot = new BoxPlot<>(
+                () -> new LogLinearHistogram(lowestValue, highestValue, significantDigits),
+                this::histogram);
+        groups().forEach(boxPlot::include);
+        return boxPlot;
+    }
+
+    /**
+     * Maps the groups appended to the file since the store was opened or last refreshed, such as the groups added by
+     * the writer of a store opened with {@link MappedHistogramStore#openReadOnly}.
+     *
+     * @throws IOException if the groups cannot be read.
+     */
+    public synchronized void refresh() throws IOException {
+        readGroups();
+    }
+
+    /**
+     * Writes the recorded counts to the file.
+     */
+    public synchronized void force() {
+        if (!readOnly) {
+            segments.values().forEach(MappedByteBuffer::force);
+            header.force();
+        }
+    }
+
+    /**
+     * Writes the recorded counts to the file and closes it. The mapped histograms stay readable until they are
+     * collected, but no group can be added.
+     *
+     * @throws IOException if the file cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        force();
+        channel.close();
+    }
+
+    /**
+     * Maps the groups of the header that are not mapped yet, which follow the end of the last mapped group.
+     *
+     * @throws IOException if the groups cannot be read.
+     */
+    private void readGroups() throws IOException {
+        final int groups = header.getInt(GROUPS);
+        while (histograms.size() < groups) {
+            final ByteBuffer length = ByteBuffer.allocate(4);
+            readFully(length, end);
+            final ByteBuffer key = ByteBuffer.allocate(length.flip().getInt());
+            readFully(key, end + 4);
+            final K group = codec.read(new DataInputStream(new ByteArrayInputStream(key.array())));
+            histograms.put(group, map(end + 4 + key.capacity(), false));
+        }
+    }
+
+    /**
+     * Slices the state of a histogram after the given position, from the segment that holds it, and moves the end of
+     * the store after it. The state is aligned to eight bytes, and starts at the next segment if it would cross the
+     * end of the segment.
+     *
+     * @param position end of the key of the group.
+     * @param created  whether the state is new, the content of a mapping that extends the file is unspecified.
+     * @return histogram whose state is mapped.
+     * @throws IOException if the segment cannot be mapped.
+     */
+    private LogLinearHistogram map(long position, boolean created) throws IOException {
+        long start = align(position);
+        if (start / segmentLength != (start + stateLength - 1) / segmentLength) {
+            start = (start / segmentLength + 1) * segmentLength;
+        }
+        final int offset = (int) (start % segmentLength);
+        final ByteBuffer state = segment(start / segmentLength).duplicate();
+        state.position(offset).limit(offset + (int) stateLength);
+        if (created) {
+            for (int index = offset; index < offset + stateLength; index += 8) {
+                state.putLong(index, 0L);
+            }
+        }
+        end = start + stateLength;
+        return new LogLinearHistogram(lowestValue, highestValue, significantDigits, state.slice().asLongBuffer());
+    }
+
+    /**
+     * Gets the segment of the given index, mapping it on first use. A writable store extends the file to the end of
+     * the segment, so a reader can map the segments of every group in the header.
+     *
+     * @param index index of the segment.
+     * @return mapped segment.
+     * @throws IOException if the segment cannot be mapped.
+     */
+    private MappedByteBuffer segment(long index) throws IOException {
+        MappedByteBuffer segment = segments.get(index);
+        if (segment == null) {
+            segment = channel.map(
+                    readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE,
+                    index * segmentLength,
+                    segmentLength);
+            segments.put(index, segment);
+        }
+        return segment;
+    }
+
+    /**
+     * Reads the given buffer from the file, starting at the given position.
+     *
+     * @param buffer   buffer to fill.
+     * @param position position of the file.
+     * @throws IOException if the file ends before the buffer is full.
+     */
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Truncated histogram store.");
+            }
+        }
+    }
+
+    /**
+     * Rounds the given position up to a multiple of eight.
+     *
+     * @param position position of the file.
+     * @return aligned position.
+     */
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    /**
+     * Checks that the given header belongs to a histogram store.
+     *
+     * @param header mapped header.
+     * @param path   file of the store.
+     * @throws IOException if the file is not a histogram store.
+     */
+    private static void checkMagic(MappedByteBuffer header, Path path) throws IOException {
+        if (header.getLong(0) != MAGIC) {
+            throw new IOException("Not a histogram store: " + path);
+        }
+    }
+}
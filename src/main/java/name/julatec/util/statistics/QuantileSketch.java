@@ -0,0 +1,371 @@
+package name.julatec.util.statistics;
+
+import java.util.Optional;
+import java.util.function.DoubleFunction;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Approximate histogram that maps the observed values into logarithmic buckets, as described by the DDSketch quantile
+ * sketch. The sketch is mergeable and its memory only depends on the range of the observed values, not on their
+ * number.
+ * <p>
+ * Error bounds: every value reported by {@link QuantileSketch#forEach(ObjLongConsumer)}, and therefore every quartile
+ * of {@link QuantileSketch#getSummary()}, is within a relative error {@code relativeAccuracy} of an observed value of
+ * the same rank, that is {@code |reported - observed| <= relativeAccuracy * |observed|}, plus the rounding of the
+ * mapping function (at most 0.5 for {@link QuantileSketch#ofLong(double)}). The minimum and the maximum of the summary
+ * are exact. The guarantee holds as long as the values span at most {@code maxBuckets} buckets on each sign; beyond
+ * that, the buckets closest to zero are collapsed, which keeps the memory bounded at the cost of the accuracy of the
+ * values closest to zero.
+ *
+ * @param <V> Type parameter of the Sample.
+ */
+public class QuantileSketch<V extends Number & Comparable<V>> implements Histogram<V> {
+
+    /**
+     * Default number of buckets of each sign.
+     */
+    public static final int DEFAULT_MAX_BUCKETS = 2048;
+
+    /**
+     * Smallest magnitude that is not counted as zero.
+     */
+    private static final double MIN_INDEXABLE_VALUE = Double.MIN_NORMAL;
+
+    /**
+     * Relative accuracy of the sketch.
+     */
+    private final double relativeAccuracy;
+
+    /**
+     * Ratio between the bounds of a bucket.
+     */
+    private final double gamma;
+
+    /**
+     * Natural logarithm of {@link QuantileSketch#gamma}.
+     */
+    private final double logGamma;
+
+    /**
+     * Maps the representative value of a bucket into the sample type.
+     */
+    private final DoubleFunction<V> mapping;
+
+    /**
+     * Buckets of the positive values.
+     */
+    private final Store positive;
+
+    /**
+     * Buckets of the magnitudes of the negative values.
+     */
+    private final Store negative;
+
+    /**
+     * Number of observations whose magnitude is smaller than {@link QuantileSketch#MIN_INDEXABLE_VALUE}.
+     */
+    private long zeroCount;
+
+    /**
+     * Number of observations.
+     */
+    private long totalCount;
+
+    /**
+     * Minimum observation.
+     */
+    private double min = Double.POSITIVE_INFINITY;
+
+    /**
+     * Maximum observation.
+     */
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Defines a sketch with the given relative accuracy.
+     *
+     * @param relativeAccuracy relative accuracy of the values, between 0 and 1 exclusive.
+     * @param maxBuckets       maximum number of buckets of each sign.
+     * @param mapping          maps the representative value of a bucket into the sample type.
+     */
+    public QuantileSketch(double relativeAccuracy, int maxBuckets, DoubleFunction<V> mapping) {
+        if (!(relativeAccuracy > 0 && relativeAccuracy < 1)) {
+            throw new IllegalArgumentException("Relative accuracy must be between 0 and 1: " + relativeAccuracy);
+        }
+        if (maxBuckets < 1) {
+            throw new IllegalArgumentException("Maximum number of buckets must be positive: " + maxBuckets);
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+        this.mapping = mapping;
+        this.positive = new Store(maxBuckets);
+        this.negative = new Store(maxBuckets);
+    }
+
+    /**
+     * Defines a sketch of {@code long} values with the given relative accuracy.
+     *
+     * @param relativeAccuracy relative accuracy of the values, between 0 and 1 exclusive.
+     * @return new QuantileSketch instance.
+     */
+    public static QuantileSketch<Long> ofLong(double relativeAccuracy) {
+        return new QuantileSketch<>(relativeAccuracy, DEFAULT_MAX_BUCKETS, Math::round);
+    }
+
+    /**
+     * Defines a sketch of {@code double} values with the given relative accuracy.
+     *
+     * @param relativeAccuracy relative accuracy of the values, between 0 and 1 exclusive.
+     * @return new QuantileSketch instance.
+     */
+    public static QuantileSketch<Double> ofDouble(double relativeAccuracy) {
+        return new QuantileSketch<>(relativeAccuracy, DEFAULT_MAX_BUCKETS, Double::valueOf);
+    }
+
+    /**
+     * Gets the relative accuracy of this sketch.
+     *
+     * @return relative accuracy.
+     */
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    @Override
+    public void record(V value, long count) {
+        record(value.doubleValue(), count);
+    }
+
+    @Override
+    public void recordLong(long value, long count) {
+        record((double) value, count);
+    }
+
+    /**
+     * Records the given number of observations of the primitive value, without boxing it.
+     *
+     * @param value observed value.
+     * @param count number of observations.
+     */
+    public synchronized void record(double value, long count) {
+        if (Double.isNaN(value)) {
+            throw new IllegalArgumentException("Cannot record NaN.");
+        }
+        if (value >= MIN_INDEXABLE_VALUE) {
+            positive.add(index(value), count);
+        } else if (value <= -MIN_INDEXABLE_VALUE) {
+            negative.add(index(-value), count);
+        } else {
+            zeroCount += count;
+        }
+        totalCount += count;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    @Override
+    public synchronized long getTotalCount() {
+        return totalCount;
+    }
+
+    @Override
+    public synchronized void forEach(ObjLongConsumer<? super V> action) {
+        for (int index = negative.maxIndex; index >= negative.minIndex; index--) {
+            final long count = negative.get(index);
+            if (count != 0) {
+                action.accept(representative(-value(index)), count);
+            }
+        }
+        if (zeroCount != 0) {
+            action.accept(representative(0), zeroCount);
+        }
+        for (int index = positive.minIndex; index <= positive.maxIndex; index++) {
+            final long count = positive.get(index);
+            if (count != 0) {
+                action.accept(representative(value(index)), count);
+            }
+        }
+    }
+
+    @Override
+    public Histogram<V> merge(Histogram<V> that) {
+        if (!(that instanceof QuantileSketch) || ((QuantileSketch<V>) that).gamma != gamma) {
+            return Histogram.super.merge(that);
+        }
+        final QuantileSketch<V> sketch = ((QuantileSketch<V>) that).copy();
+        synchronized (this) {
+            positive.merge(sketch.positive);
+            negative.merge(sketch.negative);
+            zeroCount += sketch.zeroCount;
+            totalCount += sketch.totalCount;
+            min = Math.min(min, sketch.min);
+            max = Math.max(max, sketch.max);
+        }
+        return this;
+    }
+
+    /**
+     * Copies this sketch.
+     *
+     * @return a new sketch with the same observations.
+     */
+    public synchronized QuantileSketch<V> copy() {
+        final QuantileSketch<V> copy = new QuantileSketch<>(relativeAccuracy, positive.maxBuckets, mapping);
+        copy.positive.merge(positive);
+        copy.negative.merge(negative);
+        copy.zeroCount = zeroCount;
+        copy.totalCount = totalCount;
+        copy.min = min;
+        copy.max = max;
+        return copy;
+    }
+
+    /**
+     * Five-number summary of the observations, whose minimum and maximum are exact, and whose quartiles are within
+     * the relative accuracy of the sketch.
+     *
+     * @return five-number summary of the observations, empty if there is none.
+     */
+    @Override
+    public synchronized Optional<FiveNumberSummary<V>> getSummary() {
+        return FiveNumberSummary.from(this).map(summary -> new FiveNumberSummary<>(
+                mapping.apply(min),
+                summary.lowerQuartile,
+                summary.median,
+                summary.upperQuartile,
+                mapping.apply(max)));
+    }
+
+    /**
+     * Maps the given value to its bucket.
+     *
+     * @param value positive value.
+     * @return bucket index.
+     */
+    private int index(double value) {
+        return (int) Math.ceil(Math.log(value) / logGamma);
+    }
+
+    /**
+     * Maps the given bucket to the value that minimizes the relative error of the bucket.
+     *
+     * @param index bucket index.
+     * @return representative value of the bucket.
+     */
+    private double value(int index) {
+        return 2 * Math.pow(gamma, index) / (gamma + 1);
+    }
+
+    /**
+     * Maps the given value into the sample type, bounded by the observed range.
+     *
+     * @param value representative value.
+     * @return representative value in the sample type.
+     */
+    private V representative(double value) {
+        return mapping.apply(Math.max(min, Math.min(max, value)));
+    }
+
+    /**
+     * Dense array of bucket counts that grows to cover the range of indexes, up to the maximum number of buckets.
+     */
+    private static final class Store {
+
+        /**
+         * Maximum number of buckets.
+         */
+        private final int maxBuckets;
+
+        /**
+         * Bucket counts, {@code counts[i]} is the count of the bucket {@code offset + i}.
+         */
+        private long[] counts = new long[0];
+
+        /**
+         * Index of the first element of {@link Store#counts}.
+         */
+        private int offset;
+
+        /**
+         * Lowest non empty index.
+         */
+        private int minIndex = Integer.MAX_VALUE;
+
+        /**
+         * Highest non empty index.
+         */
+        private int maxIndex = Integer.MIN_VALUE;
+
+        private Store(int maxBuckets) {
+            this.maxBuckets = maxBuckets;
+        }
+
+        private long get(int index) {
+            return counts[index - offset];
+        }
+
+        private void add(int index, long count) {
+            if (minIndex > maxIndex) {
+                extend(index, index);
+            } else if (index < minIndex) {
+                index = Math.max(index, maxIndex - maxBuckets + 1);
+                extend(Math.min(index, minIndex), maxIndex);
+            } else if (index > maxIndex) {
+                collapse(index - maxBuckets + 1);
+                extend(minIndex, index);
+            }
+            counts[index - offset] += count;
+        }
+
+        private void merge(Store that) {
+            for (int index = that.minIndex; index <= that.maxIndex; index++) {
+                final long count = that.get(index);
+                if (count != 0) {
+                    add(index, count);
+                }
+            }
+        }
+
+        /**
+         * Moves the counts of the buckets below the given index into the bucket of the index.
+         *
+         * @param lowest lowest index to keep.
+         */
+        private void collapse(int lowest) {
+            if (lowest <= minIndex) {
+                return;
+            }
+            long collapsed = 0;
+            for (int index = minIndex; index <= Math.min(maxIndex, lowest - 1); index++) {
+                collapsed += get(index);
+                counts[index - offset] = 0;
+            }
+            minIndex = lowest;
+            extend(lowest, Math.max(lowest, maxIndex));
+            counts[lowest - offset] += collapsed;
+        }
+
+        /**
+         * Ensures the counts cover the given range of indexes, and updates the non empty range.
+         *
+         * @param low  lowest index.
+         * @param high highest index.
+         */
+        private void extend(int low, int high) {
+            if (low < offset || high >= offset + counts.length) {
+                final int slack = Math.min(maxBuckets, high - low + 1) / 2 + 1;
+                final long[] extended = new long[high - low + 1 + 2 * slack];
+                final int extendedOffset = low - slack;
+                if (minIndex <= maxIndex) {
+                    System.arraycopy(counts, minIndex - offset, extended, minIndex - extendedOffset,
+                            maxIndex - minIndex + 1);
+                }
+                counts = extended;
+                offset = extendedOffset;
+            }
+            minIndex = Math.min(minIndex, low);
+            maxIndex = Math.max(maxIndex, high);
+        }
+    }
+}
@@ -0,0 +1,307 @@
+package name.julatec.util.statistics;
+
+import name.julatec.util.collection.Bag;
+import name.julatec.util.collection.FrozenBag;
+import name.julatec.util.collection.RankedBag;
+
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Set of sample quantiles, such as the median or the 99th percentile, computed together in a single walk over a
+ * histogram.
+ * <p>
+ * The quantile of rank {@code r} is the lowest value whose cumulative count is greater or equal than {@code r} times
+ * the total count, as {@link FiveNumberSummary} defines its quartiles.
+ *
+ * @param <V> Type parameter of the Sample.
+ */
+public final class Quantiles<V> {
+
+    /**
+     * Ranks of the quantiles in ascending order.
+     */
+    private final double[] ranks;
+
+    /**
+     * Values of the quantiles, aligned to {@link Quantiles#ranks}.
+     */
+    private final List<V> values;
+
+    /**
+     * Constructor.
+     *
+     * @param ranks  ranks of the quantiles in ascending order.
+     * @param values values of the quantiles, aligned to the ranks.
+     */
+    Quantiles(double[] ranks, List<V> values) {
+        this.ranks = ranks;
+        this.values = Collections.unmodifiableList(values);
+    }
+
+    /**
+     * Gets the value of the quantile of the given rank.
+     *
+     * @param rank rank between 0 and 1.
+     * @return value of the quantile.
+     * @throws IllegalArgumentException if the rank was not computed.
+     */
+    public V get(double rank) {
+        final int index = Arrays.binarySearch(ranks, rank);
+        if (index < 0) {
+            throw new IllegalArgumentException("Quantile of rank " + rank + " was not computed.");
+        }
+        return values.get(index);
+    }
+
+    /**
+     * Gets the ranks of the quantiles in ascending order.
+     *
+     * @return ranks of the quantiles.
+     */
+    public double[] getRanks() {
+        return ranks.clone();
+    }
+
+    /**
+     * Gets the values of the quantiles in ascending rank order.
+     *
+     * @return values of the quantiles.
+     */
+    public List<V> getValues() {
+        return values;
+    }
+
+    /**
+     * Returns the quantiles indexed by their rank.
+     *
+     * @return navigable version of the quantiles.
+     */
+    public NavigableMap<Double, V> toNavigableMap() {
+        final TreeMap<Double, V> treeMap = new TreeMap<>();
+        for (int i = 0; i < ranks.length; i++) {
+            treeMap.put(ranks[i], values.get(i));
+        }
+        return Collections.unmodifiableNavigableMap(treeMap);
+    }
+
+    /**
+     * Applies the given function to the values of these quantiles.
+     *
+     * @param function Function to apply
+     * @param <R>      Type of the new sample
+     * @return new quantiles after mapping.
+     */
+    public <R> Quantiles<R> map(Function<V, R> function) {
+        final List<R> mapped = new ArrayList<>(values.size());
+        values.forEach(value -> mapped.add(function.apply(value)));
+        return new Quantiles<>(ranks, mapped);
+    }
+
+    /**
+     * Calculates the quantiles of the given bag using the field operator for scaling.
+     *
+     * @param bag           sample histogram.
+     * @param fieldOperator used to scale the sample type.
+     * @param ranks         ranks of the quantiles, between 0 and 1.
+     * @param <K>           key type
+     * @param <V>           value type.
+     * @return quantiles of the given histogram.
+     */
+    public static <K extends Comparable<K>, V extends Comparable<V>>
+    Optional<Quantiles<K>> from(
+            Bag<K, V> bag,
+            BiFunction<Double, V, V> fieldOperator,
+            double... ranks) {
+        return from(bag.toNavigableMap(), bag.getOperator(), fieldOperator, ranks);
+    }
+
+    /**
+     * Calculates the quantiles of the given histogram using the field operator for scaling and the sum operator as
+     * the addition. The histogram is walked once to find its total, and once more, up to the highest rank, to find
+     * all the quantiles.
+     *
+     * @param navigableMap  histogram of the population.
+     * @param sumOperator   operator to perform addition.
+     * @param fieldOperator operator to perform scaling.
+     * @param ranks         ranks of the quantiles, between 0 and 1.
+     * @param <K>           type type.
+     * @param <V>           value type
+     * @return quantiles of the given histogram.
+     */
+    public static <K extends Comparable<K>, V extends Comparable<V>>
+    Optional<Quantiles<K>> from(
+            NavigableMap<K, V> navigableMap,
+            BinaryOperator<V> sumOperator,
+            BiFunction<Double, V, V> fieldOperator,
+            double... ranks) {
+        final double[] sortedRanks = sort(ranks);
+        if (navigableMap.isEmpty()) {
+            return Optional.empty();
+        }
+        V sum = null;
+        for (V value : navigableMap.values()) {
+            sum = sum == null ? value : sumOperator.apply(sum, value);
+        }
+        final List<V> targets = new ArrayList<>(sortedRanks.length);
+        for (double rank : sortedRanks) {
+            targets.add(fieldOperator.apply(rank, sum));
+        }
+        final List<K> values = new ArrayList<>(sortedRanks.length);
+        V cumulative = null;
+        for (Map.Entry<K, V> entry : navigableMap.entrySet()) {
+            cumulative = cumulative == null ? entry.getValue() : sumOperator.apply(cumulative, entry.getValue());
+            while (values.size() < sortedRanks.length && cumulative.compareTo(targets.get(values.size())) >= 0) {
+                values.add(entry.getKey());
+            }
+            if (values.size() == sortedRanks.length) {
+                break;
+            }
+        }
+        while (values.size() < sortedRanks.length) {
+            values.add(navigableMap.lastKey());
+        }
+        return Optional.of(new Quantiles<>(sortedRanks, values));
+    }
+
+    /**
+     * Calculates the quantiles of the given histogram in a single walk over its values.
+     *
+     * @param histogram sample histogram.
+     * @param ranks     ranks of the quantiles, between 0 and 1.
+     * @param <V>       value type.
+     * @return quantiles of the given histogram.
+     */
+    public static <V> Optional<Quantiles<V>> from(Histogram<V> histogram, double... ranks) {
+        final double[] sortedRanks = sort(ranks);
+        final long totalCount = histogram.getTotalCount();
+        if (totalCount <= 0) {
+            return Optional.empty();
+        }
+        final Accumulator<V> accumulator = new Accumulator<>(sortedRanks, totalCount);
+        histogram.forEach(accumulator);
+        while (accumulator.values.size() < sortedRanks.length) {
+            accumulator.values.add(accumulator.last);
+        }
+        return Optional.of(new Quantiles<>(sortedRanks, accumulator.values));
+    }
+
+    /**
+     * Calculates the quantiles of the given ranked bag in {@code O(log n)} per quantile, looking up each rank in the
+     * cumulative counts kept by the bag.
+     *
+     * @param bag   sample histogram.
+     * @param ranks ranks of the quantiles, between 0 and 1.
+     * @param <K>   key type
+     * @return quantiles of the given histogram.
+     */
+    public static <K extends Comparable<K>> Optional<Quantiles<K>> from(RankedBag<K> bag, double... ranks) {
+        final double[] sortedRanks = sort(ranks);
+        synchronized (bag) {
+            final long totalCount = bag.getTotalCount();
+            if (bag.size() == 0) {
+                return Optional.empty();
+            }
+            final List<K> values = new ArrayList<>(sortedRanks.length);
+            for (double rank : sortedRanks) {
+                final K value = bag.select((long) (rank * totalCount));
+                values.add(value == null ? bag.lastKey() : value);
+            }
+            return Optional.of(new Quantiles<>(sortedRanks, values));
+        }
+    }
+
+    /**
+     * Calculates the quantiles of the given frozen bag using the field operator for scaling, in {@code O(log n)} per
+     * quantile, looking up each rank in the cumulative values kept by the bag.
+     *
+     * @param bag           sample histogram.
+     * @param fieldOperator used to scale the sample type.
+     * @param ranks         ranks of the quantiles, between 0 and 1.
+     * @param <K>           key type
+     * @param <V>           value type.
+     * @return quantiles of the given histogram.
+     */
+    public static <K extends Comparable<K>, V extends Comparable<V>>
+    Optional<Quantiles<K>> from(
+            FrozenBag<K, V> bag,
+            BiFunction<Double, V, V> fieldOperator,
+            double... ranks) {
+        final double[] sortedRanks = sort(ranks);
+        final Optional<V> total = bag.getTotal();
+        if (total.isEmpty()) {
+            return Optional.empty();
+        }
+        final List<K> values = new ArrayList<>(sortedRanks.length);
+        for (double rank : sortedRanks) {
+            final K value = bag.select(fieldOperator.apply(rank, total.get()), Comparator.naturalOrder());
+            values.add(value == null ? bag.lastKey() : value);
+        }
+        return Optional.of(new Quantiles<>(sortedRanks, values));
+    }
+
+    /**
+     * Validates and sorts the given ranks.
+     *
+     * @param ranks ranks of the quantiles.
+     * @return sorted copy of the ranks.
+     */
+    static double[] sort(double... ranks) {
+        final double[] sortedRanks = ranks.clone();
+        for (double rank : sortedRanks) {
+            if (!(rank >= 0 && rank <= 1)) {
+                throw new IllegalArgumentException("Rank must be between 0 and 1: " + rank);
+            }
+        }
+        Arrays.sort(sortedRanks);
+        return sortedRanks;
+    }
+
+    /**
+     * Walks an ascending histogram and keeps the values at the given ranks.
+     *
+     * @param <V> value type.
+     */
+    private static final class Accumulator<V> implements ObjLongConsumer<V> {
+
+        private final long[] targets;
+
+        private final List<V> values;
+
+        private long cumulative;
+
+        private V last;
+
+        private Accumulator(double[] ranks, long totalCount) {
+            this.targets = new long[ranks.length];
+            for (int i = 0; i < ranks.length; i++) {
+                targets[i] = (long) (ranks[i] * totalCount);
+            }
+            this.values = new ArrayList<>(ranks.length);
+        }
+
+        @Override
+        public void accept(V value, long count) {
+            cumulative += count;
+            while (values.size() < targets.length && cumulative >= targets[values.size()]) {
+                values.add(value);
+            }
+            last = value;
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder stringBuilder = new StringBuilder().append("{");
+        for (int i = 0; i < ranks.length; i++) {
+            if (i > 0) {
+                stringBuilder.append(", ");
+            }
+            stringBuilder.append(ranks[i]).append("=").append(values.get(i));
+        }
+        return stringBuilder.append("}").toString();
+    }
+}
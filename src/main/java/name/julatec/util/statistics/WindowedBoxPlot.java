@@ -0,0 +1,248 @@
+package name.julatec.util.statistics;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+/**
+ * Box plot of the observations of a sliding time window, such as the last minute of a stream that is tailed for hours.
+ * <p>
+ * The window is split into a ring of slices, each one a {@link BoxPlot} of the observations of a fixed time interval.
+ * When the clock moves into a new interval, the slice of the oldest interval is replaced by an empty one with a single
+ * compare and set, so recording never takes a lock and the memory is bounded by the number of slices. The summaries
+ * of the window are built by merging the live slices.
+ *
+ * @param <K> Type of the group.
+ * @param <V> Type parameter of the Sample.
+ */
+public class WindowedBoxPlot<K extends Comparable<K>, V extends Comparable<V>> {
+
+    /**
+     * Creates the histogram of each group.
+     */
+    private final Supplier<? extends Histogram<V>> factory;
+
+    /**
+     * Monotonic clock in nanoseconds.
+     */
+    private final LongSupplier clock;
+
+    /**
+     * Duration of each slice in nanoseconds.
+     */
+    private final long sliceNanos;
+
+    /**
+     * Ring of slices, the slice of the interval {@code epoch} lives at {@code epoch mod slices}.
+     */
+    private final AtomicReferenceArray<Slice<K, V>> slices;
+
+    /**
+     * Defines a windowed box plot that keeps the exact count of every value.
+     *
+     * @param sliceDuration duration of each slice.
+     * @param slices        number of slices of the window.
+     */
+    public WindowedBoxPlot(Duration sliceDuration, int slices) {
+        this(sliceDuration, slices, ExactHistogram::new, System::nanoTime);
+    }
+
+    /**
+     * Defines a windowed box plot whose groups use the histograms created by the given factory.
+     *
+     * @param sliceDuration duration of each slice.
+     * @param slices        number of slices of the window.
+     * @param factory       creates the histogram of each group.
+     * @param clock         monotonic clock in nanoseconds.
+     */
+    public WindowedBoxPlot(
+            Duration sliceDuration,
+            int slices,
+            Supplier<? extends Histogram<V>> factory,
+            LongSupplier clock) {
+        if (sliceDuration.isNegative() || sliceDuration.isZero()) {
+            throw new IllegalArgumentException("Slice duration must be positive: " + sliceDuration);
+        }
+        if (slices <= 0) {
+            throw new IllegalArgumentException("Number of slices must be positive: " + slices);
+        }
+        this.factory = factory;
+        this.clock = clock;
+        this.sliceNanos = sliceDuration.toNanos();
+        this.slices = new AtomicReferenceArray<>(slices);
+    }
+
+    /**
+     * Gets the duration of the window.
+     *
+     * @return duration of the window.
+     */
+    public Duration getWindow() {
+        return Duration.ofNanos(sliceNanos * slices.length());
+    }
+
+    /**
+     * Records the given value in the histogram of the group, for the current slice.
+     *
+     * @param group group of the value.
+     * @param value value to record.
+     */
+    public void record(K group, V value) {
+        current().boxPlot.record(group, value);
+    }
+
+    /**
+     * Records the given primitive value in the histogram of the group, for the current slice, without boxing it.
+     *
+     * @param group group of the value.
+     * @param value value to record.
+     * @throws UnsupportedOperationException if the histograms do not hold {@code long} values.
+     */
+    public void recordLong(K group, long value) {
+        current().boxPlot.recordLong(group, value);
+    }
+
+    /**
+     * Provides a consumer for peeking values from a stream.
+     *
+     * @param function function to convert the given type into a Key Value pair.
+     * @param <T>      source type
+     * @return Consumer values to create histograms.
+     */
+    public <T> Consumer<T> tee(Function<T, Map.Entry<K, V>> function) {
+        return t -> {
+            final Map.Entry<K, V> entry = function.apply(t);
+            record(entry.getKey(), entry.getValue());
+        };
+    }
+
+    /**
+     * Provides a consumer for peeking values from a stream, without creating a Key Value pair per value.
+     *
+     * @param group function to extract the group from the given type.
+     * @param value function to extract the value from the given type.
+     * @param <T>   source type
+     * @return Consumer values to create histograms.
+     */
+    public <T> Consumer<T> tee(Function<T, K> group, Function<T, V> value) {
+        return t -> record(group.apply(t), value.apply(t));
+    }
+
+    /**
+     * Provides a consumer for peeking primitive values from a stream, without boxing them.
+     *
+     * @param group function to extract the group from the given type.
+     * @param value function to extract the value from the given type.
+     * @param <T>   source type
+     * @return Consumer values to create histograms.
+     */
+    public <T> Consumer<T> teeLong(Function<T, K> group, ToLongFunction<T> value) {
+        return t -> recordLong(group.apply(t), value.applyAsLong(t));
+    }
+
+    /**
+     * Merges the live slices into a box plot of the current window.
+     *
+     * @return box plot of the current window.
+     */
+    public BoxPlot<K, V> snapshot() {
+        final BoxPlot<K, V> boxPlot = new BoxPlot<>(factory);
+        final long oldest = epoch() - slices.length();
+        for (int i = 0; i < slices.length(); i++) {
+            final Slice<K, V> slice = slices.get(i);
+            if (slice != null && slice.epoch > oldest) {
+                boxPlot.merge(slice.boxPlot);
+            }
+        }
+        return boxPlot;
+    }
+
+    /**
+     * Five-number summary of the sample of the current window.
+     *
+     * @return five-number summary of the sample of the current window.
+     */
+    public Optional<FiveNumberSummary<V>> getSummary() {
+        return snapshot().getSummary();
+    }
+
+    /**
+     * Quantiles of the sample of the current window at the given ranks.
+     *
+     * @param ranks ranks of the quantiles, between 0 and 1.
+     * @return quantiles of the sample of the current window.
+     */
+    public Optional<Quantiles<V>> getQuantiles(double... ranks) {
+        return snapshot().getQuantiles(ranks);
+    }
+
+    /**
+     * Five-number summary of each group of the current window.
+     *
+     * @return five-number summary of each group of the current window.
+     */
+    public NavigableMap<K, Optional<FiveNumberSummary<V>>> getSummaries() {
+        return snapshot().getSummaries();
+    }
+
+    /**
+     * Gets the interval of the current time.
+     *
+     * @return epoch of the current slice.
+     */
+    private long epoch() {
+        return Math.floorDiv(clock.getAsLong(), sliceNanos);
+    }
+
+    /**
+     * Gets the slice of the current interval, replacing the expired slice of its position in the ring.
+     *
+     * @return slice of the current interval.
+     */
+    private Slice<K, V> current() {
+        final long epoch = epoch();
+        final int index = (int) Math.floorMod(epoch, (long) slices.length());
+        while (true) {
+            final Slice<K, V> slice = slices.get(index);
+            // A slice newer than the epoch means another thread read the clock later, the value is kept in it.
+            if (slice != null && slice.epoch >= epoch) {
+                return slice;
+            }
+            final Slice<K, V> next = new Slice<>(epoch, new BoxPlot<K, V>(factory));
+            if (slices.compareAndSet(index, slice, next)) {
+                return next;
+            }
+        }
+    }
+
+    /**
+     * Observations of a single interval of the window.
+     *
+     * @param <K> Type of the group.
+     * @param <V> Type parameter of the Sample.
+     */
+    private static final class Slice<K extends Comparable<K>, V extends Comparable<V>> {
+
+        /**
+         * Interval of the slice.
+         */
+        private final long epoch;
+
+        /**
+         * Observations of the interval.
+         */
+        private final BoxPlot<K, V> boxPlot;
+
+        private Slice(long epoch, BoxPlot<K, V> boxPlot) {
+            this.epoch = epoch;
+            this.boxPlot = boxPlot;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package name.julatec.util.algebraic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.function.DoubleUnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DoubleIntervalTest {
+
+    @Test
+    void contains() {
+        assertFalse(DoubleInterval.of(5, true, 7, true).contains(5));
+        assertTrue(DoubleInterval.of(5, false, 7, true).contains(5));
+        assertTrue(DoubleInterval.of(5, true, 7, true).contains(6.5));
+        assertFalse(DoubleInterval.of(5, true, 7, true).contains(7));
+        assertTrue(DoubleInterval.of(5, true, 7, false).contains(7));
+        assertFalse(DoubleInterval.of(5, 7).contains(7.5));
+        assertFalse(DoubleInterval.of(5, 7).contains(Double.NaN));
+    }
+
+    @Test
+    void scale() {
+        final DoubleInterval source = DoubleInterval.from(Interval.of(-1, 1));
+        final DoubleUnaryOperator scale = source.scale(DoubleInterval.of(0, 100));
+        assertEquals(0, scale.applyAsDouble(-1));
+        assertEquals(50, scale.applyAsDouble(0));
+        assertEquals(75, scale.applyAsDouble(0.5));
+        final double[] values = {-1, 0, 0.5, 1};
+        source.scaleAll(DoubleInterval.of(0, 100), values, values);
+        assertArrayEquals(new double[]{0, 50, 75, 100}, values);
+    }
+
+    @Test
+    void testToString() {
+        assertEquals("[0.5, 1.5[", DoubleInterval.of(0.5, false, 1.5, true).toString());
+        assertEquals("[0.5, 1.5[", DoubleInterval.of(0.5, false, 1.5, true).toInterval().toString());
+    }
+}
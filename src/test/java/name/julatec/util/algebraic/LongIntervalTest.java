@@ -0,0 +1,82 @@
+package name.julatec.util.algebraic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.function.Function;
+import java.util.function.LongToIntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongIntervalTest {
+
+    @Test
+    void contains() {
+        for (long value = 3; value <= 9; value++) {
+            for (int open = 0; open < 4; open++) {
+                final boolean lowerOpen = (open & 1) != 0;
+                final boolean upperOpen = (open & 2) != 0;
+                assertEquals(
+                        new Interval<>(5L, lowerOpen, 7L, upperOpen).contains(value),
+                        LongInterval.of(5, lowerOpen, 7, upperOpen).contains(value),
+                        value + " in " + LongInterval.of(5, lowerOpen, 7, upperOpen));
+            }
+        }
+    }
+
+    @Test
+    void scale() {
+        final LongInterval source = LongInterval.of(-504, 602);
+        final LongInterval target = LongInterval.of(10, 75);
+        final LongToIntFunction scale = source.scale(target);
+        final Function<Long, Integer> boxed =
+                Interval.scale(source.toInterval(), Interval.of(10, 75), Number::intValue);
+        final long[] in = new long[(int) (source.upper - source.lower + 1)];
+        for (int i = 0; i < in.length; i++) {
+            in[i] = source.lower + i;
+        }
+        final int[] out = new int[in.length];
+        source.scaleAll(target, in, out);
+        for (int i = 0; i < in.length; i++) {
+            assertEquals(boxed.apply(in[i]), scale.applyAsInt(in[i]));
+            assertEquals(scale.applyAsInt(in[i]), out[i]);
+        }
+        assertEquals(10, out[0]);
+        assertEquals(75, out[out.length - 1]);
+    }
+
+    @Test
+    void scaleLarge() {
+        final long lower = 1L << 60;
+        final LongInterval source = LongInterval.of(lower, lower + 1000);
+        assertEquals(50, source.scale(LongInterval.of(0, 100)).applyAsInt(lower + 500));
+    }
+
+    @Test
+    void scaleWide() {
+        final LongInterval source = LongInterval.of(Long.MIN_VALUE, Long.MAX_VALUE);
+        final LongInterval target = LongInterval.of(0, 100);
+        final LongToIntFunction scale = source.scale(target);
+        final long[] in = {Long.MIN_VALUE, -1L << 62, 0, 1L << 62, Long.MAX_VALUE};
+        final int[] out = new int[in.length];
+        source.scaleAll(target, in, out);
+        assertArrayEquals(new int[]{0, 25, 50, 75, 100}, out);
+        for (int i = 0; i < in.length; i++) {
+            assertEquals(out[i], scale.applyAsInt(in[i]));
+        }
+        assertEquals(0x1p64, LongInterval.difference(Long.MAX_VALUE, Long.MIN_VALUE));
+        assertEquals(-0x1p64, LongInterval.difference(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(-3d, LongInterval.difference(-1, 2));
+    }
+
+    @Test
+    void scaleAllShortOutput() {
+        assertThrows(IllegalArgumentException.class,
+                () -> LongInterval.of(0, 10).scaleAll(LongInterval.of(0, 1), new long[3], new int[2]));
+    }
+
+    @Test
+    void testToString() {
+        assertEquals("]5, 7[", LongInterval.of(5, true, 7, true).toString());
+        assertEquals("[5, 7]", LongInterval.from(Interval.of(5L, 7L)).toString());
+    }
+}
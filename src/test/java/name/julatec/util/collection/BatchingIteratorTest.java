@@ -0,0 +1,57 @@
+package name.julatec.util.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchingIteratorTest {
+
+    @Test
+    void iterate() {
+        final List<Integer> values = IntStream.range(0, 1_000).boxed().collect(Collectors.toList());
+        final BatchingIterator<Integer> iterator = new BatchingIterator<>(values.iterator(), 7);
+        final List<Integer> result = new ArrayList<>();
+        while (iterator.hasNext()) {
+            result.add(iterator.next());
+        }
+        assertEquals(values, result);
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+
+    @Test
+    void peek() {
+        final BatchingIterator<String> iterator = new BatchingIterator<>(
+                Arrays.asList("a", null, "c", "d", "e").iterator(), 3);
+        assertEquals("a", iterator.peek(0));
+        assertNull(iterator.peek(1));
+        assertEquals("c", iterator.peek(2));
+        assertEquals("a", iterator.next());
+        assertEquals("d", iterator.peek(2));
+        assertTrue(iterator.hasNext(3));
+        assertNull(iterator.next());
+        assertEquals("c", iterator.next());
+        assertFalse(iterator.hasNext(3));
+        assertTrue(iterator.hasNext(2));
+        assertThrows(NoSuchElementException.class, () -> iterator.peek(2));
+        assertThrows(IllegalArgumentException.class, () -> iterator.peek(3));
+    }
+
+    @Test
+    void forEachRemaining() {
+        final BatchingIterator<Integer> iterator = new BatchingIterator<>(
+                IntStream.range(0, 100).boxed().iterator(), 16);
+        assertEquals(0, iterator.next());
+        assertEquals(1, iterator.peek(0));
+        final List<Integer> result = new ArrayList<>();
+        iterator.forEachRemaining(result::add);
+        assertEquals(IntStream.range(1, 100).boxed().collect(Collectors.toList()), result);
+        assertFalse(iterator.hasNext());
+    }
+}
@@ -0,0 +1,46 @@
+package name.julatec.util.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentBagTest {
+
+    @Test
+    void add() {
+        final ConcurrentBag<Integer, Long> bag = new ConcurrentBag<>(Long::sum);
+        IntStream.range(0, 100_000)
+                .parallel()
+                .forEach(i -> bag.add(i % 10, 1L));
+        assertEquals(10, bag.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(10_000L, bag.get(i));
+        }
+    }
+
+    @Test
+    void collectConcurrent() {
+        final ConcurrentBag<Integer, Long> bag = IntStream.range(0, 100_000)
+                .parallel()
+                .mapToObj(i -> Map.entry(i % 7, (long) i))
+                .collect(ConcurrentBag.collectConcurrent(Long::sum));
+        assertEquals(7, bag.size());
+        assertEquals(IntStream.range(0, 100_000).filter(i -> i % 7 == 3).asLongStream().sum(), bag.get(3));
+    }
+
+    @Test
+    void merge() {
+        final Bag<String, Long> bag = new Bag<String, Long>(Long::sum)
+                .add("a", 2L)
+                .add("b", 3L);
+        final ConcurrentBag<String, Long> concurrentBag = new ConcurrentBag<String, Long>(Long::sum)
+                .add("b", 5L)
+                .add("c", 7L)
+                .merge(bag);
+        assertEquals(Map.of("a", 2L, "b", 8L, "c", 7L), concurrentBag.toNavigableMap());
+        assertEquals("a", concurrentBag.toNavigableMap().firstKey());
+    }
+}
@@ -0,0 +1,116 @@
+package name.julatec.util.collection;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ExternalSortTest {
+
+    static final Codec<Pair<String, Integer>> CODEC = new Codec<>() {
+        @Override
+        public void write(DataOutput output, Pair<String, Integer> value) throws IOException {
+            output.writeUTF(value.getKey());
+            output.writeInt(value.getValue());
+        }
+
+        @Override
+        public Pair<String, Integer> read(DataInput input) throws IOException {
+            return Pair.of(input.readUTF(), input.readInt());
+        }
+    };
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void sort() throws IOException {
+        final Random random = new Random(5);
+        final List<Pair<String, Integer>> values = Stream.generate(() -> Pair.of(
+                String.valueOf((char) ('A' + random.nextInt(26))),
+                random.nextInt()))
+                .limit(10_000)
+                .collect(Collectors.toList());
+        final Comparator<Pair<String, Integer>> comparator = Comparator.comparing(Pair::getKey);
+        final ExternalSort<Pair<String, Integer>> externalSort =
+                new ExternalSort<>(comparator, CODEC, 1_000, directory);
+        try (Stream<Pair<String, Integer>> sorted = externalSort.sort(values.stream())) {
+            assertEquals(10, Files.list(directory).count());
+            assertEquals(
+                    values.stream().sorted(comparator).collect(Collectors.toList()),
+                    sorted.collect(Collectors.toList()));
+        }
+        assertEquals(0, Files.list(directory).count());
+    }
+
+    @Test
+    void passes() throws IOException {
+        final Random random = new Random(5);
+        final List<Pair<String, Integer>> values = Stream.generate(() -> Pair.of(
+                String.valueOf((char) ('A' + random.nextInt(26))),
+                random.nextInt()))
+                .limit(10_000)
+                .collect(Collectors.toList());
+        final Comparator<Pair<String, Integer>> comparator = Comparator.comparing(Pair::getKey);
+        final ExternalSort<Pair<String, Integer>> externalSort =
+                new ExternalSort<>(comparator, CODEC, 100, directory, 3);
+        try (Stream<Pair<String, Integer>> sorted = externalSort.sort(values.stream())) {
+            assertEquals(2, Files.list(directory).count());
+            assertEquals(
+                    values.stream().sorted(comparator).collect(Collectors.toList()),
+                    sorted.collect(Collectors.toList()));
+        }
+        assertEquals(0, Files.list(directory).count());
+        assertThrows(IllegalArgumentException.class, () -> new ExternalSort<>(comparator, CODEC, 100, directory, 1));
+    }
+
+    @Test
+    void readFailure() throws IOException {
+        final AtomicInteger reads = new AtomicInteger();
+        final Codec<Integer> codec = new Codec<>() {
+            @Override
+            public void write(DataOutput output, Integer value) throws IOException {
+                output.writeInt(value);
+            }
+
+            @Override
+            public Integer read(DataInput input) throws IOException {
+                if (reads.incrementAndGet() > 50) {
+                    throw new IOException("Broken run");
+                }
+                return input.readInt();
+            }
+        };
+        final ExternalSort<Integer> externalSort = new ExternalSort<>(Comparator.naturalOrder(), codec, 10, directory);
+        final Stream<Integer> sorted = externalSort.sort(IntStream.range(0, 100).map(i -> 99 - i).boxed());
+        assertThrows(UncheckedIOException.class, () -> sorted.collect(Collectors.toList()));
+        assertEquals(0, Files.list(directory).count());
+    }
+
+    @Test
+    void inMemory() throws IOException {
+        final Comparator<Pair<String, Integer>> comparator = Comparator.comparing(Pair::getKey);
+        final ExternalSort<Pair<String, Integer>> externalSort = new ExternalSort<>(comparator, CODEC, 4, directory);
+        try (Stream<Pair<String, Integer>> sorted = externalSort.sort(Stream.of(Pair.of("B", 1), Pair.of("A", 2)))) {
+            assertEquals(List.of(Pair.of("A", 2), Pair.of("B", 1)), sorted.collect(Collectors.toList()));
+            assertEquals(0, Files.list(directory).count());
+        }
+        assertEquals(List.of(), externalSort.sort(Stream.empty()).collect(Collectors.toList()));
+        assertThrows(IllegalArgumentException.class, () -> new ExternalSort<>(comparator, CODEC, 0));
+    }
+}
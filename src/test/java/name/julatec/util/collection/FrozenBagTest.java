@@ -0,0 +1,109 @@
+package name.julatec.util.collection;
+
+import name.julatec.util.statistics.FiveNumberSummary;
+import name.julatec.util.statistics.Quantiles;
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrozenBagTest {
+
+    @Test
+    void freeze() {
+        final Random random = new Random(47);
+        final Bag<Long, Long> bag = new Bag<>(Long::sum);
+        for (int i = 0; i < 10_000; i++) {
+            bag.add((long) (random.nextGaussian() * 1_000), 1L);
+        }
+        final FrozenBag<Long, Long> frozen = bag.freeze();
+        assertEquals(bag.size(), frozen.size());
+        assertEquals(bag.toString(), frozen.toString());
+        assertEquals(bag.toNavigableMap(), frozen.toNavigableMap());
+        assertEquals(bag.get(0L), frozen.get(0L));
+        assertNull(frozen.get(1_000_000L));
+        assertEquals(-1L, frozen.getOrElse(1_000_000L, -1L));
+        assertEquals(bag.toNavigableMap().firstKey(), frozen.firstKey());
+        assertEquals(bag.toNavigableMap().lastKey(), frozen.lastKey());
+        assertEquals(Optional.of(10_000L), frozen.getTotal());
+        assertEquals(bag.mapValues(count -> count * 2), frozen.mapValues(count -> count * 2));
+        assertEquals(
+                FiveNumberSummary.from(bag, (scalar, count) -> (long) (scalar * count)).toString(),
+                FiveNumberSummary.from(frozen, (scalar, count) -> (long) (scalar * count)).toString());
+        assertEquals(
+                Quantiles.from(bag, (scalar, count) -> (long) (scalar * count), 0d, 0.1d, 0.99d, 1d)
+                        .map(Quantiles::getValues),
+                Quantiles.from(frozen, (scalar, count) -> (long) (scalar * count), 0d, 0.1d, 0.99d, 1d)
+                        .map(Quantiles::getValues));
+        bag.add(0L, 1L);
+        assertEquals(bag.get(0L) - 1, frozen.get(0L));
+    }
+
+    @Test
+    void rankAndSelect() {
+        final FrozenBag<String, Long> frozen = new Bag<String, Long>(Long::sum)
+                .add("b", 2L)
+                .add("d", 3L)
+                .add("f", 5L)
+                .freeze();
+        assertEquals(Optional.empty(), frozen.rank("a"));
+        assertEquals(Optional.of(2L), frozen.rank("b"));
+        assertEquals(Optional.of(2L), frozen.rank("c"));
+        assertEquals(Optional.of(10L), frozen.rank("z"));
+        assertEquals("b", frozen.select(0L, Comparator.naturalOrder()));
+        assertEquals("b", frozen.select(2L, Comparator.naturalOrder()));
+        assertEquals("d", frozen.select(3L, Comparator.naturalOrder()));
+        assertEquals("f", frozen.select(10L, Comparator.naturalOrder()));
+        assertNull(frozen.select(11L, Comparator.naturalOrder()));
+    }
+
+    @Test
+    void empty() {
+        final FrozenBag<Long, Long> frozen = new Bag<Long, Long>(Long::sum).freeze();
+        assertEquals(0, frozen.size());
+        assertNull(frozen.firstKey());
+        assertNull(frozen.lastKey());
+        assertEquals(Optional.empty(), frozen.getTotal());
+        assertEquals(Optional.empty(), FiveNumberSummary.from(frozen, (scalar, count) -> (long) (scalar * count)));
+    }
+
+    @Test
+    void readOnly() {
+        final FrozenBag<Long, Long> frozen = new Bag<Long, Long>(Long::sum).add(1L, 1L).freeze();
+        assertSame(frozen, frozen.freeze());
+        assertThrows(UnsupportedOperationException.class, () -> frozen.add(1L, 1L));
+        assertThrows(UnsupportedOperationException.class, () -> frozen.add(Map.entry(2L, 1L)));
+        assertThrows(UnsupportedOperationException.class, () -> frozen.merge(frozen));
+        assertEquals(Long.valueOf(1L), frozen.get(1L));
+    }
+
+    @Test
+    void spliterator() {
+        final Bag<Long, Long> bag = new Bag<>(Long::sum);
+        for (long i = 0; i < 1_000; i++) {
+            bag.add(i, i);
+        }
+        final FrozenBag<Long, Long> frozen = bag.freeze();
+        final Spliterator<Map.Entry<Long, Long>> spliterator = frozen.spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.SORTED));
+        assertEquals(1_000, spliterator.getExactSizeIfKnown());
+        final Spliterator<Map.Entry<Long, Long>> prefix = spliterator.trySplit();
+        assertNotNull(prefix);
+        assertEquals(500, prefix.getExactSizeIfKnown());
+        assertEquals(500, spliterator.getExactSizeIfKnown());
+        assertEquals(
+                bag.collect(Collectors.summingLong(Map.Entry::getValue)),
+                frozen.toNavigableMap().entrySet().parallelStream().mapToLong(Map.Entry::getValue).sum());
+        assertEquals(
+                frozen.toNavigableMap().keySet().stream().collect(Collectors.toList()),
+                frozen.toNavigableMap().entrySet().parallelStream()
+                        .map(Map.Entry::getKey)
+                        .collect(Collectors.toList()));
+    }
+}
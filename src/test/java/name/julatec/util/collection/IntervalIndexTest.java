@@ -0,0 +1,63 @@
+package name.julatec.util.collection;
+
+import name.julatec.util.algebraic.Interval;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervalIndexTest {
+
+    private static final Comparator<Interval<Integer>> ORDER = Comparator.<Interval<Integer>, Integer>comparing(
+            interval -> interval.lower)
+            .thenComparing(interval -> interval.lowerOpen)
+            .thenComparing(interval -> interval.upper)
+            .thenComparing(interval -> interval.upperOpen);
+
+    @Test
+    void queries() {
+        final Random random = new Random(11);
+        final List<Interval<Integer>> intervals = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            final int lower = random.nextInt(1_000);
+            intervals.add(new Interval<>(lower, random.nextBoolean(), lower + random.nextInt(50),
+                    random.nextBoolean()));
+        }
+        final IntervalIndex<Integer> index = IntervalIndex.from(intervals.stream());
+        assertEquals(intervals.size(), index.size());
+        for (int value = -10; value < 1_060; value++) {
+            final int v = value;
+            assertEquals(
+                    intervals.stream().filter(interval -> interval.contains(v)).sorted(ORDER)
+                            .collect(Collectors.toList()),
+                    index.containing(value).stream().sorted(ORDER).collect(Collectors.toList()));
+        }
+        for (int i = 0; i < 500; i++) {
+            final int lower = random.nextInt(1_000);
+            final Interval<Integer> query = new Interval<>(lower, random.nextBoolean(), lower + random.nextInt(20),
+                    random.nextBoolean());
+            assertEquals(
+                    intervals.stream().filter(query::overlaps).sorted(ORDER).collect(Collectors.toList()),
+                    index.overlapping(query).stream().sorted(ORDER).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void bounds() {
+        final IntervalIndex<Integer> index = Stream.of(
+                new Interval<>(1, false, 3, true),
+                new Interval<>(3, true, 5, false),
+                Interval.of(3, 3))
+                .collect(IntervalIndex.collect());
+        assertEquals("[[3, 3]]", index.containing(3).toString());
+        assertEquals("[[1, 3[, [3, 3], ]3, 5]]", index.overlapping(Interval.of(2, 4)).toString());
+        assertEquals("[[1, 3[]", index.overlapping(new Interval<>(0, false, 3, true)).toString());
+        assertEquals("[]", IntervalIndex.<Integer>of(List.of()).containing(1).toString());
+    }
+}
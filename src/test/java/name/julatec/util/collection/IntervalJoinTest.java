@@ -0,0 +1,71 @@
+package name.julatec.util.collection;
+
+import name.julatec.util.algebraic.Interval;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntervalJoinTest {
+
+    private static List<Interval<Integer>> intervals(Random random, int count) {
+        final List<Interval<Integer>> intervals = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final int lower = random.nextInt(1_000);
+            intervals.add(new Interval<>(lower, random.nextBoolean(), lower + 1 + random.nextInt(30),
+                    random.nextBoolean()));
+        }
+        intervals.sort(Interval::compareLower);
+        return intervals;
+    }
+
+    @Test
+    void containing() {
+        final Random random = new Random(13);
+        final List<Interval<Integer>> intervals = intervals(random, 1_000);
+        final List<Integer> points = random.ints(2_000, -10, 1_050).sorted().boxed().collect(Collectors.toList());
+        final List<String> expected = new ArrayList<>();
+        for (Integer point : points) {
+            intervals.stream().filter(interval -> interval.contains(point))
+                    .forEach(interval -> expected.add(point + " in " + interval));
+        }
+        final List<String> result = IntervalJoin.containing(
+                points.stream(), Function.identity(),
+                intervals.stream(), Function.identity(),
+                (point, interval) -> point + " in " + interval)
+                .collect(Collectors.toList());
+        assertEquals(expected, result);
+    }
+
+    @Test
+    void overlapping() {
+        final Random random = new Random(19);
+        final List<Interval<Integer>> left = intervals(random, 500);
+        final List<Interval<Integer>> right = intervals(random, 500);
+        final List<String> expected = new ArrayList<>();
+        for (Interval<Integer> a : left) {
+            right.stream().filter(a::overlaps).forEach(b -> expected.add(a + " x " + b));
+        }
+        final List<String> result = IntervalJoin.overlapping(
+                left.stream(), Function.identity(),
+                right.stream(), Function.identity(),
+                (a, b) -> a + " x " + b)
+                .sorted()
+                .collect(Collectors.toList());
+        assertEquals(expected.stream().sorted().collect(Collectors.toList()), result);
+    }
+
+    @Test
+    void outOfOrder() {
+        final Stream<Interval<Integer>> intervals = Stream.of(Interval.of(5, 6), Interval.of(1, 2));
+        assertThrows(IllegalStateException.class, () -> IntervalJoin.containing(
+                Stream.of(1, 5), Function.identity(), intervals, Function.identity(), (p, i) -> p)
+                .collect(Collectors.toList()));
+    }
+}
@@ -3,6 +3,8 @@ package name.julatec.util.collection;
 import name.julatec.util.algebraic.Interval;
 import org.junit.jupiter.api.Test;
 
+import java.util.function.Function;
+
 import static java.math.BigInteger.valueOf;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -35,4 +37,23 @@ class IntervalTest {
         assertEquals("[5, 7[", new Interval<>(valueOf(5), false, valueOf(7), true).toString());
         assertEquals("[5, 7]", new Interval<>(valueOf(5), false, valueOf(7), false).toString());
     }
-}
\ No newline at end of file
+
+    @Test
+    void overlaps() {
+        assertTrue(new Interval<>(valueOf(5), false, valueOf(7), false).overlaps(Interval.of(valueOf(6), valueOf(9))));
+        assertTrue(new Interval<>(valueOf(5), false, valueOf(7), false).overlaps(Interval.of(valueOf(7), valueOf(9))));
+        assertTrue(Interval.of(valueOf(7), valueOf(9)).overlaps(new Interval<>(valueOf(5), false, valueOf(7), false)));
+        assertFalse(new Interval<>(valueOf(5), false, valueOf(7), true).overlaps(Interval.of(valueOf(7), valueOf(9))));
+        assertFalse(Interval.of(valueOf(5), valueOf(7)).overlaps(new Interval<>(valueOf(7), true, valueOf(9), false)));
+        assertFalse(Interval.of(valueOf(5), valueOf(6)).overlaps(Interval.of(valueOf(7), valueOf(9))));
+        assertTrue(Interval.of(valueOf(1), valueOf(9)).overlaps(new Interval<>(valueOf(5), true, valueOf(6), true)));
+    }
+
+    @Test
+    void scale() {
+        final Interval<Long> source = Interval.of(16_777_217L, 16_777_317L);
+        final Function<Long, Integer> scale = Interval.scale(source, Interval.of(0, 100), Number::intValue);
+        assertEquals(Integer.valueOf(0), scale.apply(16_777_217L));
+        assertEquals(Integer.valueOf(50), scale.apply(16_777_267L));
+    }
+}
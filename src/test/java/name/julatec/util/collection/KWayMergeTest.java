@@ -0,0 +1,55 @@
+package name.julatec.util.collection;
+
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KWayMergeTest {
+
+    @Test
+    void merge() {
+        final Random random = new Random(3);
+        final List<List<Integer>> inputs = IntStream.range(0, 12)
+                .mapToObj(i -> random.ints(random.nextInt(500), 0, 1_000).sorted().boxed()
+                        .collect(Collectors.toList()))
+                .collect(Collectors.toList());
+        final List<Integer> expected = inputs.stream().flatMap(List::stream).sorted().collect(Collectors.toList());
+        final List<Stream<Integer>> streams = inputs.stream().map(List::stream).collect(Collectors.toList());
+        assertEquals(expected, KWayMerge.merge(Comparator.naturalOrder(), streams).collect(Collectors.toList()));
+        assertEquals(List.of(), KWayMerge.merge(Comparator.<Integer>naturalOrder(), List.of())
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void join() {
+        final List<Stream<Pair<String, Integer>>> inputs = List.of(
+                Stream.of(Pair.of("A", 1), Pair.of("C", 2)),
+                Stream.empty(),
+                Stream.of(Pair.of("A", 3), Pair.of("A", 4), Pair.of("B", 5)));
+        final List<String> result = KWayMerge.join(
+                Comparator.comparing(Pair::getKey),
+                inputs,
+                group -> group.stream()
+                        .map(values -> values.stream().map(Pair::getValue).collect(Collectors.toList()).toString())
+                        .collect(Collectors.joining(""))).collect(Collectors.toList());
+        assertEquals(List.of("[1][][3, 4]", "[][][5]", "[2][][]"), result);
+    }
+
+    @Test
+    void outOfOrder() {
+        final List<Stream<Integer>> inputs = new ArrayList<>();
+        inputs.add(Stream.of(1, 3, 2));
+        inputs.add(Stream.of(2));
+        assertThrows(IllegalStateException.class,
+                () -> KWayMerge.merge(Comparator.naturalOrder(), inputs).collect(Collectors.toList()));
+    }
+}
@@ -0,0 +1,91 @@
+package name.julatec.util.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongCountBagTest {
+
+    @Test
+    void increment() {
+        final LongCountBag<String> bag = new LongCountBag<String>()
+                .increment("a", 2)
+                .increment("c", 3)
+                .increment("b", 5)
+                .increment("c", 6);
+        assertEquals(3, bag.size());
+        assertEquals(16, bag.getTotalCount());
+        assertEquals(9, bag.get("c"));
+        assertEquals(0, bag.get("d"));
+        assertEquals(7, bag.getOrElse("d", 7));
+    }
+
+    @Test
+    void resize() {
+        final LongCountBag<Integer> bag = new LongCountBag<>();
+        IntStream.range(0, 10_000).forEach(i -> bag.increment(i % 1_000, i));
+        assertEquals(1_000, bag.size());
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(10 * i + 1_000 * 45, bag.get(i));
+        }
+    }
+
+    @Test
+    void forEach() {
+        final LongCountBag<String> bag = new LongCountBag<String>()
+                .increment("d", 1)
+                .increment("a", 2)
+                .increment("c", 3)
+                .increment("b", 4);
+        final List<String> keys = new ArrayList<>();
+        final List<Long> counts = new ArrayList<>();
+        bag.forEach((key, count) -> {
+            keys.add(key);
+            counts.add(count);
+        });
+        assertEquals(List.of("a", "b", "c", "d"), keys);
+        assertEquals(List.of(2L, 4L, 3L, 1L), counts);
+        assertEquals(Map.of("a", 2L, "b", 4L, "c", 3L, "d", 1L), bag.toNavigableMap());
+        assertEquals(Map.entry("a", 2L), bag.iterator().next());
+    }
+
+    @Test
+    void iterator() {
+        final LongCountBag<String> bag = new LongCountBag<String>()
+                .increment("c", 3)
+                .increment("a", 2)
+                .increment("b", 4);
+        final List<Map.Entry<String, Long>> entries = new ArrayList<>();
+        bag.iterator().forEachRemaining(entries::add);
+        assertEquals(List.of(Map.entry("a", 2L), Map.entry("b", 4L), Map.entry("c", 3L)), entries);
+        assertThrows(NoSuchElementException.class, () -> new LongCountBag<String>().iterator().next());
+    }
+
+    @Test
+    void select() {
+        final LongCountBag<String> bag = new LongCountBag<String>()
+                .increment("b", 2)
+                .increment("d", 3)
+                .increment("f", 5);
+        assertEquals(List.of("b", "b", "d", "d", "f", "f"), bag.select(0, 2, 3, 5, 6, Long.MAX_VALUE));
+        assertTrue(new LongCountBag<String>().select(0).isEmpty());
+    }
+
+    @Test
+    void merge() {
+        final LongCountBag<String> bag = new LongCountBag<String>()
+                .increment("a", 2)
+                .increment("b", 3)
+                .merge(new LongCountBag<String>()
+                        .increment("b", 4)
+                        .increment("c", 5));
+        assertEquals(Map.of("a", 2L, "b", 7L, "c", 5L), bag.toNavigableMap());
+        assertEquals("{\"a\":2,\"b\":7,\"c\":5}", bag.toString().substring(bag.toString().indexOf('{')));
+    }
+}
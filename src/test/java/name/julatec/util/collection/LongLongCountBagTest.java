@@ -0,0 +1,68 @@
+package name.julatec.util.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongLongCountBagTest {
+
+    @Test
+    void increment() {
+        final LongLongCountBag bag = new LongLongCountBag()
+                .increment(0, 2)
+                .increment(-3, 3)
+                .increment(Long.MAX_VALUE, 5)
+                .increment(-3, 6);
+        assertEquals(3, bag.size());
+        assertEquals(16, bag.getTotalCount());
+        assertEquals(9, bag.get(-3));
+        assertEquals(2, bag.get(0));
+        assertEquals(0, bag.get(1));
+        assertEquals(7, bag.getOrElse(1, 7));
+    }
+
+    @Test
+    void resize() {
+        final LongLongCountBag bag = new LongLongCountBag();
+        IntStream.range(0, 10_000).forEach(i -> bag.increment(i % 1_000 - 500, 1));
+        assertEquals(1_000, bag.size());
+        assertEquals(10_000, bag.getTotalCount());
+        for (int i = 0; i < 1_000; i++) {
+            assertEquals(10, bag.get(i - 500));
+        }
+    }
+
+    @Test
+    void keys() {
+        final LongLongCountBag bag = new LongLongCountBag()
+                .increment(7, 1)
+                .increment(-7, 2)
+                .increment(0, 3);
+        assertArrayEquals(new long[]{-7, 0, 7}, bag.keys());
+        assertEquals(Map.of(-7L, 2L, 0L, 3L, 7L, 1L), bag.toNavigableMap());
+    }
+
+    @Test
+    void select() {
+        final LongLongCountBag bag = new LongLongCountBag()
+                .increment(5, 2)
+                .increment(-1, 3)
+                .increment(9, 5);
+        assertArrayEquals(new long[]{-1, -1, 5, 9, 9, 9}, bag.select(0, 3, 4, 6, 10, Long.MAX_VALUE));
+        assertArrayEquals(new long[0], new LongLongCountBag().select(0, 1));
+    }
+
+    @Test
+    void merge() {
+        final LongLongCountBag bag = new LongLongCountBag()
+                .increment(1, 2)
+                .increment(2, 3)
+                .merge(new LongLongCountBag()
+                        .increment(2, 4)
+                        .increment(3, 5));
+        assertEquals(Map.of(1L, 2L, 2L, 7L, 3L, 5L), bag.toNavigableMap());
+    }
+}
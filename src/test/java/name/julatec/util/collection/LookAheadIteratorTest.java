@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 
 import java.sql.Array;
 import java.util.Arrays;
+import java.util.NoSuchElementException;
 import java.util.Optional;
 
 import static java.util.Optional.ofNullable;
@@ -34,4 +35,28 @@ class LookAheadIteratorTest {
         assertEquals(Optional.empty(), iterator.peek());
         assertFalse(iterator.hasNext());
     }
-}
\ No newline at end of file
+
+    @Test
+    void element() {
+        assertEquals("a", iterator.element());
+        assertEquals("a", iterator.next());
+        assertEquals("b", iterator.element());
+        assertEquals("b", iterator.next());
+        assertEquals("c", iterator.element());
+        assertEquals("c", iterator.next());
+        assertThrows(NoSuchElementException.class, iterator::element);
+    }
+
+    @Test
+    void nullElement() {
+        final LookAheadIterator<String> iterator = new LookAheadIterator<>(Arrays.asList("a", null, "c").iterator());
+        assertEquals("a", iterator.next());
+        assertTrue(iterator.hasNext());
+        assertEquals(Optional.empty(), iterator.peek());
+        assertNull(iterator.element());
+        assertNull(iterator.next());
+        assertEquals("c", iterator.next());
+        assertFalse(iterator.hasNext());
+        assertThrows(NoSuchElementException.class, iterator::next);
+    }
+}
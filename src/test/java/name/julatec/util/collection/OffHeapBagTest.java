@@ -0,0 +1,165 @@
+package name.julatec.util.collection;
+
+import name.julatec.util.statistics.FiveNumberSummary;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapBagTest {
+
+    @Test
+    void add() {
+        final Random random = new Random(47);
+        final Bag<Long, Long> expected = new Bag<>(Long::sum);
+        final OffHeapBag<Long, Long> bag = new OffHeapBag<>(
+                Long::sum,
+                FixedWidthCodec.ofLong(),
+                FixedWidthCodec.ofLong(),
+                16);
+        for (int i = 0; i < 10_000; i++) {
+            final long key = (long) (random.nextGaussian() * 1_000);
+            expected.add(key, 1L);
+            bag.add(key, 1L);
+            if (i % 3_333 == 0) {
+                assertEquals(expected.toString(), bag.toString());
+            }
+        }
+        assertEquals(expected.size(), bag.size());
+        assertEquals(expected.toString(), bag.toString());
+        assertEquals(expected.get(0L), bag.get(0L));
+        assertNull(bag.get(1_000_000L));
+        assertEquals(-1L, bag.getOrElse(1_000_000L, -1L));
+        assertEquals(
+                FiveNumberSummary.from(expected, (scalar, count) -> (long) (scalar * count)).toString(),
+                FiveNumberSummary.from(bag, (scalar, count) -> (long) (scalar * count)).toString());
+        assertEquals(expected.mapValues(count -> count * 2), bag.mapValues(count -> count * 2));
+    }
+
+    @Test
+    void merge() {
+        final OffHeapBag<Integer, Double> bag = new OffHeapBag<>(
+                Double::sum,
+                FixedWidthCodec.ofInteger(),
+                FixedWidthCodec.ofDouble(),
+                2);
+        final Bag<Integer, Double> that = new Bag<>(Double::sum);
+        that.add(3, 0.5).add(1, 1.5).add(2, 1d);
+        bag.add(1, 1d).add(2, 2d).add(4, 4d).merge(that);
+        assertEquals("{1=2.5, 2=3.0, 3=0.5, 4=4.0}", bag.toNavigableMap().toString());
+        assertEquals(List.of(1, 2, 3, 4), bag.collect(Collectors.mapping(Map.Entry::getKey, Collectors.toList())));
+    }
+
+    @Test
+    void mergeReturnsCombinedValue() {
+        final OffHeapSortedMap<Integer, Long> map = new OffHeapSortedMap<>(
+                Long::sum,
+                FixedWidthCodec.ofInteger(),
+                FixedWidthCodec.ofLong(),
+                2);
+        final TreeMap<Integer, Long> expected = new TreeMap<>();
+        for (int i = 0; i < 100; i++) {
+            final int key = i % 7;
+            assertEquals(expected.merge(key, (long) i, Long::sum), map.merge(key, (long) i, Long::sum), "merge " + i);
+            assertEquals(expected.get(key), map.get(key), "get " + i);
+        }
+        assertTrue(map.containsKey(3));
+        assertFalse(map.containsKey(7));
+        assertNull(map.get(7));
+        assertEquals(expected, map);
+    }
+
+    @Test
+    void navigableMap() {
+        final Random random = new Random(47);
+        final TreeMap<Long, Long> expected = new TreeMap<>();
+        final OffHeapBag<Long, Long> bag = new OffHeapBag<>(
+                Long::sum,
+                FixedWidthCodec.ofLong(),
+                FixedWidthCodec.ofLong(),
+                8);
+        for (int i = 0; i < 200; i++) {
+            final long key = 2L * random.nextInt(100);
+            expected.merge(key, 1L, Long::sum);
+            bag.add(key, 1L);
+        }
+        final NavigableMap<Long, Long> map = bag.toNavigableMap();
+        assertEquals(expected, map);
+        assertEquals(expected.firstEntry(), map.firstEntry());
+        assertEquals(expected.lastKey(), map.lastKey());
+        final List<NavigableMap<Long, Long>> views = new ArrayList<>();
+        final List<NavigableMap<Long, Long>> expectedViews = new ArrayList<>();
+        views.add(map);
+        expectedViews.add(expected);
+        views.add(map.descendingMap());
+        expectedViews.add(expected.descendingMap());
+        views.add(map.subMap(20L, false, 150L, true));
+        expectedViews.add(expected.subMap(20L, false, 150L, true));
+        views.add(map.descendingMap().subMap(151L, true, 20L, false));
+        expectedViews.add(expected.descendingMap().subMap(151L, true, 20L, false));
+        views.add(map.headMap(41L, true).tailMap(10L, true));
+        expectedViews.add(expected.headMap(41L, true).tailMap(10L, true));
+        views.add(map.descendingMap().headMap(100L, false).tailMap(150L, false));
+        expectedViews.add(expected.descendingMap().headMap(100L, false).tailMap(150L, false));
+        for (int v = 0; v < views.size(); v++) {
+            final NavigableMap<Long, Long> view = views.get(v);
+            final NavigableMap<Long, Long> expectedView = expectedViews.get(v);
+            assertEquals(new ArrayList<>(expectedView.entrySet()), new ArrayList<>(view.entrySet()), "view " + v);
+            assertEquals(new ArrayList<>(expectedView.navigableKeySet().descendingSet()),
+                    new ArrayList<>(view.navigableKeySet().descendingSet()), "view " + v);
+            for (long key = -1; key <= 201; key++) {
+                assertEquals(expectedView.get(key), view.get(key), "view " + v + " get " + key);
+                assertEquals(expectedView.lowerEntry(key), view.lowerEntry(key), "view " + v + " lower " + key);
+                assertEquals(expectedView.floorKey(key), view.floorKey(key), "view " + v + " floor " + key);
+                assertEquals(expectedView.ceilingEntry(key), view.ceilingEntry(key), "view " + v + " ceiling " + key);
+                assertEquals(expectedView.higherKey(key), view.higherKey(key), "view " + v + " higher " + key);
+            }
+        }
+        assertThrows(UnsupportedOperationException.class, map::pollFirstEntry);
+    }
+
+    @Test
+    void snapshots() {
+        final Random random = new Random(47);
+        final TreeMap<Integer, Long> expected = new TreeMap<>();
+        final OffHeapBag<Integer, Long> bag = new OffHeapBag<>(
+                Long::sum,
+                FixedWidthCodec.ofInteger(),
+                FixedWidthCodec.ofLong(),
+                4);
+        final List<NavigableMap<Integer, Long>> snapshots = new ArrayList<>();
+        final List<TreeMap<Integer, Long>> expectedSnapshots = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            final int key = random.nextInt(1_000);
+            expected.merge(key, 1L, Long::sum);
+            bag.add(key, 1L);
+            if (i % 700 == 0) {
+                snapshots.add(bag.toNavigableMap().tailMap(0, true));
+                expectedSnapshots.add(new TreeMap<>(expected));
+            }
+        }
+        assertEquals(expected, bag.toNavigableMap());
+        for (int s = 0; s < snapshots.size(); s++) {
+            assertEquals(expectedSnapshots.get(s), snapshots.get(s), "snapshot " + s);
+        }
+    }
+
+    @Test
+    void empty() {
+        final OffHeapBag<Long, Long> bag = new OffHeapBag<>(
+                Long::sum,
+                FixedWidthCodec.ofLong(),
+                FixedWidthCodec.ofLong());
+        assertEquals(0, bag.size());
+        assertTrue(bag.toNavigableMap().isEmpty());
+        assertNull(bag.toNavigableMap().firstEntry());
+        assertFalse(FiveNumberSummary.from(bag, (scalar, count) -> (long) (scalar * count)).isPresent());
+    }
+}
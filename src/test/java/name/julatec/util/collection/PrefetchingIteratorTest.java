@@ -0,0 +1,114 @@
+package name.julatec.util.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PrefetchingIteratorTest {
+
+    @Test
+    void iterate() {
+        final List<Integer> values = IntStream.range(0, 10_000).boxed().collect(Collectors.toList());
+        final List<Integer> result = new ArrayList<>();
+        try (PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(values.iterator(), 16)) {
+            iterator.forEachRemaining(result::add);
+            assertThrows(NoSuchElementException.class, iterator::next);
+        }
+        assertEquals(values, result);
+    }
+
+    @Test
+    void nullElement() {
+        try (PrefetchingIterator<String> iterator =
+                     new PrefetchingIterator<>(Arrays.asList("a", null, "c").iterator(), 1)) {
+            assertEquals("a", iterator.next());
+            assertNull(iterator.next());
+            assertEquals("c", iterator.next());
+            assertFalse(iterator.hasNext());
+        }
+    }
+
+    @Test
+    void failure() {
+        final Iterator<Integer> failing = Stream.of(1, 2, 0).map(i -> 2 / i).iterator();
+        try (PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(failing, 4)) {
+            assertEquals(2, iterator.next());
+            assertEquals(1, iterator.next());
+            assertThrows(ArithmeticException.class, iterator::hasNext);
+        }
+    }
+
+    @Test
+    void close() throws InterruptedException {
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        final AtomicInteger read = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(1);
+        final Stream<Integer> source = Stream.iterate(0, i -> i + 1).peek(i -> read.incrementAndGet())
+                .onClose(done::countDown);
+        try (Stream<Integer> stream = PrefetchingIterator.prefetch(source, 8, executor)) {
+            assertEquals(List.of(0, 1, 2), stream.limit(3).collect(Collectors.toList()));
+        }
+        assertTrue(done.await(1, TimeUnit.SECONDS));
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.SECONDS));
+        assertTrue(read.get() <= 3 + 8 + 1, () -> "read " + read.get());
+    }
+
+    @Test
+    void closeWaitsForReader() throws InterruptedException {
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicBoolean reading = new AtomicBoolean();
+        final CountDownLatch slowRead = new CountDownLatch(1);
+        final Iterator<Integer> source = new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return true;
+            }
+
+            @Override
+            public Integer next() {
+                if (calls.incrementAndGet() == 1) {
+                    return 0;
+                }
+                reading.set(true);
+                slowRead.countDown();
+                // Ignores interrupts, like a blocking read of a file.
+                final long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+                while (System.nanoTime() < end) {
+                    Thread.onSpinWait();
+                }
+                reading.set(false);
+                return 1;
+            }
+        };
+        final PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(source, 4);
+        assertEquals(0, iterator.next());
+        assertTrue(slowRead.await(1, TimeUnit.SECONDS));
+        iterator.close();
+        assertFalse(reading.get());
+    }
+
+    @Test
+    void closed() {
+        final PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(List.of(1, 2, 3).iterator(), 2);
+        assertEquals(1, iterator.next());
+        iterator.close();
+        assertThrows(IllegalStateException.class, iterator::hasNext);
+        assertThrows(IllegalStateException.class, iterator::next);
+    }
+}
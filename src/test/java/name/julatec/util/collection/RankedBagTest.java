@@ -0,0 +1,79 @@
+package name.julatec.util.collection;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RankedBagTest {
+
+    @Test
+    void increment() {
+        final RankedBag<String> bag = new RankedBag<String>()
+                .increment("a", 2)
+                .increment("c", 3)
+                .increment("b", 5)
+                .increment("c", 6);
+        assertEquals(3, bag.size());
+        assertEquals(16, bag.getTotalCount());
+        assertEquals(9, bag.get("c"));
+        assertEquals(0, bag.get("d"));
+        assertEquals(7, bag.getOrElse("d", 7));
+        assertEquals("a", bag.firstKey());
+        assertEquals("c", bag.lastKey());
+        assertEquals(Map.of("a", 2L, "b", 5L, "c", 9L), bag.toNavigableMap());
+    }
+
+    @Test
+    void select() {
+        final RankedBag<String> bag = new RankedBag<String>()
+                .increment("a", 2)
+                .increment("b", 5)
+                .increment("c", 9);
+        assertEquals("a", bag.select(0));
+        assertEquals("a", bag.select(2));
+        assertEquals("b", bag.select(3));
+        assertEquals("b", bag.select(7));
+        assertEquals("c", bag.select(8));
+        assertEquals("c", bag.select(16));
+        assertNull(bag.select(17));
+        assertEquals(0, bag.rank("0"));
+        assertEquals(2, bag.rank("a"));
+        assertEquals(7, bag.rank("bb"));
+        assertEquals(16, bag.rank("z"));
+    }
+
+    @Test
+    void randomized() {
+        final Random random = new Random(43);
+        final RankedBag<Integer> bag = new RankedBag<>();
+        final TreeMap<Integer, Long> expected = new TreeMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            final int key = random.nextInt(5_000);
+            final long delta = 1 + random.nextInt(10);
+            bag.increment(key, delta);
+            expected.merge(key, delta, Long::sum);
+        }
+        assertEquals(expected, bag.toNavigableMap());
+        long cumulative = 0;
+        for (Map.Entry<Integer, Long> entry : expected.entrySet()) {
+            assertEquals(entry.getKey(), bag.select(cumulative + 1));
+            cumulative += entry.getValue();
+            assertEquals(entry.getKey(), bag.select(cumulative));
+            assertEquals(cumulative, bag.rank(entry.getKey()));
+        }
+        assertEquals(cumulative, bag.getTotalCount());
+    }
+
+    @Test
+    void empty() {
+        final RankedBag<String> bag = new RankedBag<>();
+        assertNull(bag.firstKey());
+        assertNull(bag.lastKey());
+        assertNull(bag.select(0));
+        assertEquals(0, bag.getTotalCount());
+    }
+}
@@ -5,6 +5,9 @@ import org.apache.commons.lang3.tuple.Triple;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.math.BigInteger;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -16,6 +19,19 @@ import static org.junit.jupiter.api.Assertions.*;
 
 class SortMergeJoinTest {
 
+    private static final Codec<Pair<String, BigInteger>> RIGHT_CODEC = new Codec<>() {
+        @Override
+        public void write(DataOutput output, Pair<String, BigInteger> value) throws IOException {
+            output.writeUTF(value.getKey());
+            output.writeLong(value.getValue().longValue());
+        }
+
+        @Override
+        public Pair<String, BigInteger> read(DataInput input) throws IOException {
+            return Pair.of(input.readUTF(), valueOf(input.readLong()));
+        }
+    };
+
     private SortMergeJoin<Pair<String, Integer>, Pair<String, BigInteger>, Triple<Integer, String, BigInteger>> merger =
             SortMergeJoin.of(
                     (l, r) -> l.getKey().compareTo(r.getKey()),
@@ -71,4 +87,228 @@ class SortMergeJoinTest {
                 },
                 result.toArray());
     }
-}
\ No newline at end of file
+
+    @Test
+    void parallelMerge() {
+        final Random random = new Random(17);
+        final List<Pair<String, Integer>> left = new ArrayList<>();
+        final List<Pair<String, BigInteger>> right = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            left.add(Pair.of(String.format("%06d", random.nextInt(40_000)), i));
+            right.add(Pair.of(String.format("%06d", random.nextInt(40_000)), valueOf(i)));
+        }
+        final List<Triple<Integer, String, BigInteger>> expected = merger.merge(left.stream(), right.stream())
+                .collect(Collectors.toList());
+        final Stream<Triple<Integer, String, BigInteger>> parallel =
+                merger.parallelMerge(left.stream(), right.stream());
+        assertTrue(parallel.isParallel());
+        assertEquals(expected, parallel.collect(Collectors.toList()));
+    }
+
+    @Test
+    void parallelMergeJoinTypes() {
+        final Random random = new Random(19);
+        final List<Pair<String, Integer>> left = new ArrayList<>();
+        final List<Pair<String, BigInteger>> right = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            left.add(Pair.of(String.format("%06d", random.nextInt(30_000)), i));
+            right.add(Pair.of(String.format("%06d", random.nextInt(30_000)), valueOf(i)));
+        }
+        for (JoinType joinType : JoinType.values()) {
+            final List<Triple<Integer, String, BigInteger>> expected =
+                    merger.merge(left.stream(), right.stream(), joinType).collect(Collectors.toList());
+            final Stream<Triple<Integer, String, BigInteger>> parallel =
+                    merger.parallelMerge(left.stream(), right.stream(), joinType);
+            assertTrue(parallel.isParallel());
+            assertEquals(expected, parallel.collect(Collectors.toList()), joinType.name());
+        }
+    }
+
+    @Test
+    void split() {
+        final List<Pair<String, Integer>> left = new ArrayList<>();
+        final List<Pair<String, BigInteger>> right = new ArrayList<>();
+        for (int i = 0; i < 2 * SortMergeJoinSpliterator.MIN_SPLIT_SIZE; i++) {
+            left.add(Pair.of(String.format("%06d", i / 4), i));
+            right.add(Pair.of(String.format("%06d", i / 2), valueOf(i)));
+        }
+        final Spliterator<Triple<Integer, String, BigInteger>> suffix =
+                new SortMergeJoinSpliterator<>(merger, left, right);
+        final Spliterator<Triple<Integer, String, BigInteger>> prefix = suffix.trySplit();
+        assertNotNull(prefix);
+        final List<Triple<Integer, String, BigInteger>> result = new ArrayList<>();
+        prefix.forEachRemaining(result::add);
+        final String last = result.get(result.size() - 1).getMiddle();
+        suffix.tryAdvance(triple -> assertTrue(triple.getMiddle().compareTo(last) > 0));
+        assertNull(suffix.trySplit());
+    }
+
+    @Test
+    void splitFinerOrder() {
+        final SortMergeJoin<Pair<String, Integer>, Pair<String, BigInteger>, Triple<Integer, String, BigInteger>>
+                finer = SortMergeJoin.of(
+                        (l, r) -> l.getKey().compareTo(r.getKey()),
+                        (m, l) -> m.map(v -> Triple.of(l.getValue(), v.getMiddle(), v.getRight()))
+                                .orElse(Triple.of(l.getValue(), l.getKey(), null)),
+                        (m, r) -> m.map(v -> Triple.of(v.getLeft(), v.getMiddle(), r.getRight()))
+                                .orElse(Triple.of(null, r.getKey(), r.getRight())),
+                        Comparator.<Pair<String, Integer>, String>comparing(Pair::getKey).thenComparing(Pair::getValue),
+                        Comparator.<Pair<String, BigInteger>, String>comparing(Pair::getKey)
+                                .thenComparing(Pair::getValue));
+        for (int keys : new int[]{15, 61}) {
+            final List<Pair<String, Integer>> left = new ArrayList<>();
+            final List<Pair<String, BigInteger>> right = new ArrayList<>();
+            for (int i = 0; i < 2 * SortMergeJoinSpliterator.MIN_SPLIT_SIZE; i++) {
+                left.add(Pair.of(String.format("%06d", i % keys), i));
+                right.add(Pair.of(String.format("%06d", (i / 3) % keys), valueOf(i)));
+            }
+            left.sort(finer::leftCompare);
+            right.sort(finer::rightCompare);
+            final List<Triple<Integer, String, BigInteger>> expected = finer.mergeSorted(left.stream(), right.stream())
+                    .collect(Collectors.toList());
+            final Spliterator<Triple<Integer, String, BigInteger>> suffix =
+                    new SortMergeJoinSpliterator<>(finer, left, right);
+            final Spliterator<Triple<Integer, String, BigInteger>> prefix = suffix.trySplit();
+            final List<Triple<Integer, String, BigInteger>> result = new ArrayList<>();
+            if (prefix != null) {
+                prefix.forEachRemaining(result::add);
+            }
+            suffix.forEachRemaining(result::add);
+            assertEquals(expected, result);
+            assertEquals(expected, finer.parallelMerge(left.stream(), right.stream()).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void mergeSorted() {
+        final Stream<Pair<String, Integer>> left = Stream.iterate(0, i -> i + 2)
+                .map(i -> Pair.of(String.format("%09d", i), i));
+        final Stream<Pair<String, BigInteger>> right = Stream.iterate(0, i -> i + 3)
+                .map(i -> Pair.of(String.format("%09d", i), valueOf(i)));
+        final List<Triple<Integer, String, BigInteger>> result = merger.mergeSorted(left, right)
+                .limit(5)
+                .collect(Collectors.toList());
+        assertArrayEquals(
+                new Triple[]{
+                        Triple.of(0, "000000000", valueOf(0)),
+                        Triple.of(2, "000000002", null),
+                        Triple.of(null, "000000003", valueOf(3)),
+                        Triple.of(4, "000000004", null),
+                        Triple.of(6, "000000006", valueOf(6)),
+                },
+                result.toArray());
+    }
+
+    @Test
+    void mergeSortedOutOfOrder() {
+        final Stream<Pair<String, Integer>> left = Stream.of(Pair.of("A", 1), Pair.of("C", 2), Pair.of("B", 3));
+        final Stream<Pair<String, BigInteger>> right = Stream.of(Pair.of("A", valueOf(1)));
+        final Iterator<Triple<Integer, String, BigInteger>> iterator = merger.mergeSorted(left, right).iterator();
+        assertEquals(Triple.of(1, "A", valueOf(1)), iterator.next());
+        assertEquals(Triple.of(2, "C", null), iterator.next());
+        assertThrows(IllegalStateException.class, iterator::next);
+    }
+
+    @Test
+    void externalMerge() {
+        final Random random = new Random(29);
+        final List<Pair<String, Integer>> left = new ArrayList<>();
+        final List<Pair<String, BigInteger>> right = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            left.add(Pair.of(String.format("%06d", random.nextInt(4_000)), i));
+            right.add(Pair.of(String.format("%06d", random.nextInt(4_000)), valueOf(i)));
+        }
+        final List<Triple<Integer, String, BigInteger>> expected = merger.merge(left.stream(), right.stream())
+                .collect(Collectors.toList());
+        try (Stream<Triple<Integer, String, BigInteger>> merged =
+                     merger.externalMerge(left.stream(), right.stream(), ExternalSortTest.CODEC, RIGHT_CODEC, 256)) {
+            assertEquals(expected, merged.collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    void manyToMany() {
+        final List<Pair<String, Integer>> left = List.of(
+                Pair.of("A", 1), Pair.of("B", 2), Pair.of("B", 3), Pair.of("D", 4));
+        final List<Pair<String, BigInteger>> right = List.of(
+                Pair.of("B", valueOf(5)), Pair.of("B", valueOf(6)), Pair.of("C", valueOf(7)), Pair.of("D", valueOf(8)));
+        final Triple<Integer, String, BigInteger> a = Triple.of(1, "A", null);
+        final Triple<Integer, String, BigInteger> c = Triple.of(null, "C", valueOf(7));
+        final List<Triple<Integer, String, BigInteger>> pairs = List.of(
+                Triple.of(2, "B", valueOf(5)),
+                Triple.of(2, "B", valueOf(6)),
+                Triple.of(3, "B", valueOf(5)),
+                Triple.of(3, "B", valueOf(6)),
+                Triple.of(4, "D", valueOf(8)));
+        assertEquals(pairs, join(left, right, JoinType.INNER));
+        assertEquals(List.of(a, pairs.get(0), pairs.get(1), pairs.get(2), pairs.get(3), pairs.get(4)),
+                join(left, right, JoinType.LEFT_OUTER));
+        assertEquals(List.of(pairs.get(0), pairs.get(1), pairs.get(2), pairs.get(3), c, pairs.get(4)),
+                join(left, right, JoinType.RIGHT_OUTER));
+        assertEquals(List.of(a, pairs.get(0), pairs.get(1), pairs.get(2), pairs.get(3), c, pairs.get(4)),
+                join(left, right, JoinType.FULL_OUTER));
+        assertEquals(List.of(a, pairs.get(0), pairs.get(1), pairs.get(2), pairs.get(3), c, pairs.get(4)),
+                merger.merge(left.stream(), right.stream()).collect(Collectors.toList()));
+        assertEquals(List.of(Triple.of(2, "B", null), Triple.of(3, "B", null), Triple.of(4, "D", null)),
+                join(left, right, JoinType.SEMI));
+        assertEquals(List.of(a), join(left, right, JoinType.ANTI));
+    }
+
+    @Test
+    void spilledRun() {
+        final List<Pair<String, Integer>> left = new ArrayList<>();
+        final List<Pair<String, BigInteger>> right = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            left.add(Pair.of(i < 3 ? "A" : "B", i));
+            right.add(Pair.of(i < 50 ? "A" : "C", valueOf(i)));
+        }
+        final List<Triple<Integer, String, BigInteger>> expected = merger.merge(left.stream(), right.stream())
+                .collect(Collectors.toList());
+        assertEquals(3 * 50 + 97 + 50, expected.size());
+        try (Stream<Triple<Integer, String, BigInteger>> merged = merger.externalMerge(
+                left.stream(), right.stream(), ExternalSortTest.CODEC, RIGHT_CODEC, 8, JoinType.FULL_OUTER)) {
+            assertEquals(expected, merged.collect(Collectors.toList()));
+        }
+    }
+
+    private List<Triple<Integer, String, BigInteger>> join(
+            List<Pair<String, Integer>> left,
+            List<Pair<String, BigInteger>> right,
+            JoinType joinType) {
+        final List<Triple<Integer, String, BigInteger>> result = merger.merge(left.stream(), right.stream(), joinType)
+                .collect(Collectors.toList());
+        assertEquals(result, merger.mergeSorted(left.stream(), right.stream(), joinType).collect(Collectors.toList()));
+        return result;
+    }
+
+    @Test
+    void ofNullable() {
+        final SortMergeJoin<Pair<String, Integer>, Pair<String, BigInteger>, Triple<Integer, String, BigInteger>>
+                nullable = SortMergeJoin.ofNullable(
+                        (l, r) -> l.getKey().compareTo(r.getKey()),
+                        (m, l) -> m == null
+                                ? Triple.of(l.getValue(), l.getKey(), null)
+                                : Triple.of(l.getValue(), m.getMiddle(), m.getRight()),
+                        (m, r) -> m == null
+                                ? Triple.of(null, r.getKey(), r.getRight())
+                                : Triple.of(m.getLeft(), m.getMiddle(), r.getRight()),
+                        comparing(Pair::getKey),
+                        comparing(Pair::getKey));
+        final List<Pair<String, Integer>> left = List.of(
+                Pair.of("A", 1), Pair.of("B", 2), Pair.of("B", 3), Pair.of("D", 4));
+        final List<Pair<String, BigInteger>> right = List.of(
+                Pair.of("B", valueOf(5)), Pair.of("B", valueOf(6)), Pair.of("C", valueOf(7)), Pair.of("D", valueOf(8)));
+        for (JoinType joinType : JoinType.values()) {
+            final List<Triple<Integer, String, BigInteger>> expected = merger.merge(left.stream(), right.stream(),
+                    joinType).collect(Collectors.toList());
+            assertEquals(expected, nullable.merge(left.stream(), right.stream(), joinType)
+                    .collect(Collectors.toList()));
+            final List<Triple<Integer, String, BigInteger>> pushed = new ArrayList<>();
+            nullable.mergeInto(left.stream(), right.stream(), joinType, pushed::add);
+            assertEquals(expected, pushed);
+            pushed.clear();
+            merger.mergeSortedInto(left.stream(), right.stream(), joinType, pushed::add);
+            assertEquals(expected, pushed);
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package name.julatec.util.statistics;
 
-import name.julatec.util.algebraic.Interval;
+import name.julatec.util.algebraic.LongInterval;
 
 import java.io.PrintStream;
 import java.util.Map;
@@ -8,7 +8,6 @@ import java.util.NavigableMap;
 import java.util.Optional;
 import java.util.Scanner;
 import java.util.function.Consumer;
-import java.util.function.Function;
 import java.util.stream.Stream;
 
 import static java.lang.String.format;
@@ -38,44 +37,57 @@ public class BoxPlotTee {
                 final int columns = Optional.ofNullable(System.getenv("COLUMNS"))
                         .map(Integer::valueOf)
                         .orElse(80);
-                final Interval<Integer> consoleInterval = Interval.of(10, columns - 5);
+                final LongInterval consoleInterval = LongInterval.of(10, columns - 5);
                 final FiveNumberSummary<Long> globalSummary = boxPlotTee.getSummary().get();
                 final NavigableMap<String, Optional<FiveNumberSummary<Long>>> summaries = boxPlotTee.getSummaries();
-                final Interval<Long> interval = Interval.of(globalSummary.min, globalSummary.max);
+                final LongInterval interval = LongInterval.of(globalSummary.min, globalSummary.max);
+                final long[] values = new long[5];
+                final int[] scaled = new int[5];
                 int row = 1;
                 moveTo(0, 0);
                 final String header = format(format("Groups  %%5d%%%ds%%5d", columns - 20),
                         interval.lower, "", interval.upper);
-                final Function<Long, Integer> consoleScale2 =
-                        Interval.scale(interval, consoleInterval, Number::intValue);
                 out.println(header);
                 for (Map.Entry<String, Optional<FiveNumberSummary<Long>>> entry : summaries.entrySet()) {
-                    printBox(entry.getKey(),
-                            entry.getValue().get().map(consoleScale2),
-                            columns,
-                            ++row);
+                    scale(interval, consoleInterval, entry.getValue().get(), values, scaled);
+                    printBox(entry.getKey(), scaled, columns, ++row);
                 }
-                printBox("", globalSummary.map(consoleScale2), columns, ++row);
+                scale(interval, consoleInterval, globalSummary, values, scaled);
+                printBox("", scaled, columns, ++row);
                 out.println(header);
             }
 
+            private void scale(
+                    LongInterval interval,
+                    LongInterval consoleInterval,
+                    FiveNumberSummary<Long> summary,
+                    long[] values,
+                    int[] scaled) {
+                values[0] = summary.min;
+                values[1] = summary.lowerQuartile;
+                values[2] = summary.median;
+                values[3] = summary.upperQuartile;
+                values[4] = summary.max;
+                interval.scaleAll(consoleInterval, values, scaled);
+            }
+
             private void printBox(
                     String group,
-                    FiveNumberSummary<Integer> scaled,
+                    int[] scaled,
                     int columns,
                     int row) {
                 moveTo(row, 0);
                 out.print(format("%9s ", group));
                 int column = 10;
-                while (column++ < scaled.min) out.print(' ');
+                while (column++ < scaled[0]) out.print(' ');
                 out.print('|');
-                while (column++ < scaled.lowerQuartile) out.print('-');
+                while (column++ < scaled[1]) out.print('-');
                 out.print('[');
-                while (column++ < scaled.median) out.print('=');
+                while (column++ < scaled[2]) out.print('=');
                 out.print('+');
-                while (column++ < scaled.upperQuartile) out.print('=');
+                while (column++ < scaled[3]) out.print('=');
                 out.print(']');
-                while (column++ < scaled.max) out.print('-');
+                while (column++ < scaled[4]) out.print('-');
                 out.print('|');
                 while (column++ < columns) out.print(' ');
                 out.println();
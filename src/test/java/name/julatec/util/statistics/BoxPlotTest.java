@@ -6,6 +6,8 @@ import org.junit.jupiter.api.Test;
 
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -66,6 +68,125 @@ class BoxPlotTest {
                 groupSummaries.get("G007").map(FiveNumberSummary::toString).orElse(""));
     }
 
+    @Test
+    void record() {
+        final BoxPlot<String, Long> expected = new BoxPlot<>();
+        final BoxPlot<String, Long> boxPlot = BoxPlot.ofLong();
+        final BoxPlot<String, Long> teeBoxPlot = BoxPlot.ofLong();
+        lines.map(BoxPlotTee::getDuration)
+                .peek(entry -> expected.record(entry.getKey(), entry.getValue()))
+                .peek(entry -> boxPlot.recordLong(entry.getKey(), entry.getValue().longValue()))
+                .forEach(teeBoxPlot.teeLong(Map.Entry::getKey, Map.Entry::getValue));
+        assertEquals("[-504, -48, 0, 48, 602]", expected.getSummary().map(FiveNumberSummary::toString).orElse(""));
+        assertEquals("[-504, -48, 0, 48, 602]", boxPlot.getSummary().map(FiveNumberSummary::toString).orElse(""));
+        assertEquals(expected.getSummaries().toString(), boxPlot.getSummaries().toString());
+        assertEquals(expected.getSummaries().toString(), teeBoxPlot.getSummaries().toString());
+    }
+
+    @Test
+    void sketch() {
+        final BoxPlot<String, Long> boxPlot = BoxPlot.ofSketch(0.01);
+        lines.forEach(boxPlot.tee(BoxPlotTee::getDuration));
+        assertEquals("[-504, -48, 0, 48, 602]", boxPlot.getSummary().map(FiveNumberSummary::toString).orElse(""));
+        assertEquals(8, boxPlot.getSummaries().size());
+        assertEquals("[-49, -11, 0, 10, 50]",
+                boxPlot.getSummaries().get("G006").map(FiveNumberSummary::toString).orElse(""));
+    }
+
+    @Test
+    void logLinear() {
+        final BoxPlot<String, Long> expected = new BoxPlot<>();
+        final BoxPlot<String, Long> boxPlot = BoxPlot.ofLogLinear(-1_000, 1_000, 3);
+        lines.map(BoxPlotTee::getDuration)
+                .peek(entry -> expected.record(entry.getKey(), entry.getValue()))
+                .forEach(entry -> boxPlot.recordLong(entry.getKey(), entry.getValue().longValue()));
+        assertEquals("[-504, -48, 0, 48, 602]", boxPlot.getSummary().map(FiveNumberSummary::toString).orElse(""));
+        assertEquals(expected.getSummaries().toString(), boxPlot.getSummaries().toString());
+    }
+
+    @Test
+    void quantiles() {
+        final BoxPlot<String, Long> boxPlot = new BoxPlot<>();
+        lines.forEach(boxPlot.tee(BoxPlotTee::getDuration));
+        final Quantiles<Long> quantiles = boxPlot.getQuantiles(0, 0.25, 0.5, 0.75, 1).orElseThrow();
+        assertEquals("[-504, -48, 0, 48, 602]", quantiles.getValues().toString());
+        final NavigableMap<String, Optional<Quantiles<Long>>> groupQuantiles = boxPlot.getGroupQuantiles(0.25, 0.5);
+        assertEquals(8, groupQuantiles.size());
+        assertEquals("{0.25=-11, 0.5=0}", groupQuantiles.get("G006").map(Quantiles::toString).orElse(""));
+    }
+
+    @Test
+    void recordUnsupported() {
+        final BoxPlot<String, String> boxPlot = new BoxPlot<>();
+        boxPlot.record("a", "b");
+        assertThrows(UnsupportedOperationException.class, () -> boxPlot.recordLong("a", 1L));
+    }
+
+    @Test
+    void recordPrimitiveLong() {
+        final BoxPlot<String, Long> boxPlot = new BoxPlot<>();
+        boxPlot.record("g", 42L);
+        boxPlot.record("g", 40L);
+        boxPlot.record("h", 44L);
+        assertEquals("[40, 40, 40, 42, 44]", boxPlot.getSummary().map(FiveNumberSummary::toString).orElse(""));
+        assertEquals("[40, 40, 40, 40, 42]",
+                boxPlot.getSummaries().get("g").map(FiveNumberSummary::toString).orElse(""));
+    }
+
+    @Test
+    void population() {
+        final BoxPlot<String, Long> boxPlot = BoxPlot.ofLong();
+        boxPlot.record("a", 1L);
+        assertEquals("[1, 1, 1, 1, 1]", boxPlot.getSummary().map(FiveNumberSummary::toString).orElse(""));
+        final BoxPlot<String, Long> that = BoxPlot.ofLong();
+        that.record("b", 3L);
+        boxPlot.merge(that);
+        final ExactLongHistogram histogram = new ExactLongHistogram();
+        histogram.recordLong(5L, 2L);
+        boxPlot.merge("c", histogram);
+        assertEquals("[1, 1, 3, 5, 5]", boxPlot.getSummary().map(FiveNumberSummary::toString).orElse(""));
+        assertEquals(3, boxPlot.getSummaries().size());
+    }
+
+    @Test
+    void concurrentRecord() throws InterruptedException {
+        final List<Set<Thread>> writers = new CopyOnWriteArrayList<>();
+        final BoxPlot<Integer, Long> boxPlot = new BoxPlot<>(() -> {
+            final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+            writers.add(threads);
+            return new ExactLongHistogram() {
+                @Override
+                public void record(Long value, long count) {
+                    threads.add(Thread.currentThread());
+                    super.record(value, count);
+                }
+            };
+        });
+        final List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final int group = t;
+            threads.add(new Thread(() -> {
+                for (long i = 0; i < 10_000; i++) {
+                    boxPlot.record(group, i);
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(4, writers.size());
+        writers.forEach(writer -> assertEquals(1, writer.size(), "histogram shared between threads"));
+        assertEquals("[0, 2499, 4999, 7499, 9999]", boxPlot.getSummary().map(FiveNumberSummary::toString).orElse(""));
+    }
+
+    @Test
+    void empty() {
+        final BoxPlot<String, Long> boxPlot = new BoxPlot<>();
+        assertFalse(boxPlot.getSummary().isPresent());
+        assertTrue(boxPlot.getSummaries().isEmpty());
+    }
+
     @AfterEach
     void tearDown() {
     }
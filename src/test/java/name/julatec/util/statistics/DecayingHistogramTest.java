@@ -0,0 +1,114 @@
+package name.julatec.util.statistics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecayingHistogramTest {
+
+    private static final long SECOND = Duration.ofSeconds(1).toNanos();
+
+    @Test
+    void decay() {
+        final AtomicLong clock = new AtomicLong();
+        final DecayingHistogram<Long> histogram = new DecayingHistogram<>(Duration.ofSeconds(1), clock::get);
+        for (long value = 1; value <= 100; value++) {
+            histogram.record(Long.valueOf(value), 1L);
+        }
+        assertEquals("[1, 25, 50, 75, 100]", histogram.getSummary().map(FiveNumberSummary::toString).orElse(""));
+        clock.set(SECOND);
+        assertEquals(50, histogram.getTotalCount());
+        for (long value = 1_001; value <= 1_100; value++) {
+            histogram.record(Long.valueOf(value), 1L);
+        }
+        assertEquals(150, histogram.getTotalCount());
+        assertEquals("[1, 75, 1025, 1063, 1100]",
+                histogram.getSummary().map(FiveNumberSummary::toString).orElse(""));
+        assertEquals("{0.5=1025, 0.9=1085}",
+                histogram.getQuantiles(0.9, 0.5).map(Quantiles::toString).orElse(""));
+    }
+
+    @Test
+    void rescale() {
+        final AtomicLong clock = new AtomicLong();
+        final DecayingHistogram<Long> histogram = new DecayingHistogram<>(Duration.ofSeconds(1), clock::get);
+        histogram.record(Long.valueOf(1), 1L);
+        clock.set(60 * SECOND);
+        histogram.record(Long.valueOf(2), 1L);
+        assertEquals("[2, 2, 2, 2, 2]", histogram.getSummary().map(FiveNumberSummary::toString).orElse(""));
+        clock.set(120 * SECOND);
+        histogram.record(Long.valueOf(3), 4L);
+        assertEquals("[3, 3, 3, 3, 3]", histogram.getSummary().map(FiveNumberSummary::toString).orElse(""));
+        clock.set(121 * SECOND);
+        assertEquals(2, histogram.getTotalCount());
+    }
+
+    @Test
+    void liveExtremes() {
+        final AtomicLong clock = new AtomicLong();
+        final DecayingHistogram<Long> histogram = new DecayingHistogram<>(Duration.ofSeconds(1), clock::get);
+        histogram.record(Long.valueOf(-100), 1L);
+        histogram.record(Long.valueOf(100), 1L);
+        clock.set(10 * SECOND);
+        histogram.record(Long.valueOf(5), 1L);
+        histogram.record(Long.valueOf(7), 1L);
+        assertEquals("[5, 5, 5, 7, 7]", histogram.getSummary().map(FiveNumberSummary::toString).orElse(""));
+        assertEquals("{0.0=5, 1.0=7}", histogram.getQuantiles(0, 1).map(Quantiles::toString).orElse(""));
+        clock.set(100 * SECOND);
+        assertEquals(Optional.empty(), histogram.getSummary());
+    }
+
+    @Test
+    void bounded() {
+        final AtomicLong clock = new AtomicLong();
+        final DecayingHistogram<Long> histogram = new DecayingHistogram<>(Duration.ofHours(1), 64, clock::get);
+        final ExactHistogram<Long> exact = new ExactHistogram<>();
+        for (long value = 0; value < 100_000; value++) {
+            histogram.record(Long.valueOf(value), 1L);
+            exact.record(value, 1L);
+        }
+        final AtomicLong values = new AtomicLong();
+        histogram.forEach((value, count) -> values.incrementAndGet());
+        assertTrue(values.get() <= 64, () -> "values: " + values);
+        assertEquals(100_000, histogram.getTotalCount());
+        final String summary = histogram.getSummary().orElseThrow().toString();
+        assertTrue(summary.startsWith("[0, ") && summary.endsWith(", 99999]"), summary);
+        final Quantiles<Long> expected = exact.getQuantiles(0.25, 0.5, 0.75).orElseThrow();
+        final Quantiles<Long> actual = histogram.getQuantiles(0.25, 0.5, 0.75).orElseThrow();
+        for (double rank : new double[]{0.25, 0.5, 0.75}) {
+            assertTrue(Math.abs(expected.get(rank) - actual.get(rank)) <= 100_000 * 4 / 64,
+                    () -> "rank " + rank + ": expected " + expected.get(rank) + " but was " + actual.get(rank));
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> new DecayingHistogram<Long>(Duration.ofHours(1), 4, clock::get));
+    }
+
+    @Test
+    void merge() {
+        final AtomicLong clock = new AtomicLong();
+        final DecayingHistogram<Long> histogram = new DecayingHistogram<>(Duration.ofSeconds(1), clock::get);
+        histogram.record(Long.valueOf(1), 4L);
+        clock.set(2 * SECOND);
+        final DecayingHistogram<Long> that = new DecayingHistogram<>(Duration.ofSeconds(1), clock::get);
+        that.record(Long.valueOf(2), 3L);
+        histogram.merge(that);
+        assertEquals(4, histogram.getTotalCount());
+        final ExactHistogram<Long> exact = new ExactHistogram<>();
+        exact.merge(histogram);
+        assertEquals("{\"1\":1,\"2\":3}", exact.toString());
+    }
+
+    @Test
+    void boxPlot() {
+        final BoxPlot<String, Long> boxPlot = BoxPlot.ofDecaying(Duration.ofHours(1));
+        boxPlot.record("a", 1L);
+        boxPlot.record("a", 2L);
+        boxPlot.record("a", 3L);
+        assertEquals("[1, 1, 2, 3, 3]", boxPlot.getSummary().map(FiveNumberSummary::toString).orElse(""));
+        assertThrows(IllegalArgumentException.class, () -> new DecayingHistogram<Long>(Duration.ZERO));
+    }
+}
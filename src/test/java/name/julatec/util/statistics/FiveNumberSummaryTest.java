@@ -0,0 +1,43 @@
+package name.julatec.util.statistics;
+
+import name.julatec.util.collection.Bag;
+import name.julatec.util.collection.LongCountBag;
+import name.julatec.util.collection.LongLongCountBag;
+import name.julatec.util.collection.RankedBag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FiveNumberSummaryTest {
+
+    @Test
+    void from() {
+        final Random random = new Random(17);
+        final Bag<Long, Long> bag = new Bag<>(Long::sum);
+        final LongCountBag<Long> longCountBag = new LongCountBag<>();
+        final LongLongCountBag longLongCountBag = new LongLongCountBag();
+        final RankedBag<Long> rankedBag = new RankedBag<>();
+        for (int i = 0; i < 10_000; i++) {
+            final long value = (long) (random.nextGaussian() * 100);
+            bag.add(value, 1L);
+            longCountBag.increment(value, 1L);
+            longLongCountBag.increment(value, 1L);
+            rankedBag.increment(value, 1L);
+        }
+        final String expected = FiveNumberSummary.from(bag, (scalar, value) -> (long) (scalar * value))
+                .map(FiveNumberSummary::toString)
+                .orElseThrow();
+        assertEquals(expected, FiveNumberSummary.from(longCountBag).map(FiveNumberSummary::toString).orElseThrow());
+        assertEquals(expected, FiveNumberSummary.from(longLongCountBag).map(FiveNumberSummary::toString).orElseThrow());
+        assertEquals(expected, FiveNumberSummary.from(rankedBag).map(FiveNumberSummary::toString).orElseThrow());
+    }
+
+    @Test
+    void fromEmpty() {
+        assertFalse(FiveNumberSummary.from(new LongCountBag<String>()).isPresent());
+        assertFalse(FiveNumberSummary.from(new LongLongCountBag()).isPresent());
+        assertFalse(FiveNumberSummary.from(new RankedBag<String>()).isPresent());
+    }
+}
@@ -0,0 +1,170 @@
+package name.julatec.util.statistics;
+
+import name.julatec.util.collection.Bag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HistogramSnapshotTest {
+
+    @Test
+    void roundTrip() throws IOException {
+        final ExactLongHistogram histogram = new ExactLongHistogram();
+        histogram.record(-5L, 2L);
+        histogram.record(Long.MIN_VALUE, 1L);
+        histogram.record(Long.MAX_VALUE, 3L);
+        histogram.record(300L, 1_000_000L);
+        final HistogramSnapshot snapshot = HistogramSnapshot.of(histogram);
+        assertEquals(4, snapshot.getEntryCount());
+        assertEquals(histogram.getTotalCount(), snapshot.getTotalCount());
+        assertEquals("{-9223372036854775808=1, -5=2, 300=1000000, 9223372036854775807=3}", snapshot.toString());
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        snapshot.writeTo(Channels.newChannel(out));
+        assertEquals(snapshot.size(), out.size());
+        final HistogramSnapshot read = HistogramSnapshot.read(ByteBuffer.wrap(out.toByteArray()));
+        assertEquals(snapshot.toString(), read.toString());
+        assertEquals(histogram.getSummary().toString(), read.getSummary().toString());
+    }
+
+    @Test
+    void readConcatenated() {
+        final Bag<Long, Long> first = new Bag<>(Long::sum);
+        first.add(1L, 1L).add(2L, 2L);
+        final Bag<Long, Long> second = new Bag<>(Long::sum);
+        second.add(2L, 3L).add(7L, 1L);
+        final HistogramSnapshot empty = HistogramSnapshot.of(new Bag<>(Long::sum));
+        final ByteBuffer buffer = ByteBuffer.allocate(64);
+        HistogramSnapshot.of(first).writeTo(buffer);
+        empty.writeTo(buffer);
+        HistogramSnapshot.of(second).writeTo(buffer);
+        buffer.flip();
+        assertEquals("{1=1, 2=2}", HistogramSnapshot.read(buffer).toString());
+        assertEquals("{}", HistogramSnapshot.read(buffer).toString());
+        assertFalse(HistogramSnapshot.read(buffer).getSummary().isEmpty());
+        assertFalse(buffer.hasRemaining());
+        assertTrue(empty.getSummary().isEmpty());
+    }
+
+    @Test
+    void merge() {
+        final Random random = new Random(47);
+        final Bag<Long, Long> expected = new Bag<>(Long::sum);
+        final List<HistogramSnapshot> snapshots = new ArrayList<>();
+        for (int node = 0; node < 5; node++) {
+            final Bag<Long, Long> bag = new Bag<>(Long::sum);
+            for (int i = 0; i < 1_000; i++) {
+                bag.add((long) (random.nextGaussian() * 100), 1L);
+            }
+            expected.merge(bag);
+            snapshots.add(HistogramSnapshot.of(bag));
+        }
+        final HistogramSnapshot merged = HistogramSnapshot.merge(snapshots);
+        assertEquals(HistogramSnapshot.of(expected).toString(), merged.toString());
+        assertEquals(5_000, merged.getTotalCount());
+        assertEquals(FiveNumberSummary.from(expected, (scalar, count) -> (long) (scalar * count)).toString(),
+                merged.getSummary().toString());
+    }
+
+    @Test
+    void boxPlot() {
+        final Random random = new Random(47);
+        final BoxPlot<String, Long> expected = BoxPlot.ofLong();
+        final ByteBuffer wire = ByteBuffer.allocate(1 << 16);
+        int json = 0;
+        for (int node = 0; node < 4; node++) {
+            final BoxPlot<String, Long> boxPlot = BoxPlot.ofLong();
+            for (int i = 0; i < 2_000; i++) {
+                final String group = "G" + random.nextInt(3);
+                final long value = (long) (random.nextGaussian() * 1_000);
+                boxPlot.record(group, value);
+                expected.record(group, value);
+            }
+            final NavigableMap<String, HistogramSnapshot> snapshots = boxPlot.mapHistograms(HistogramSnapshot::of);
+            assertEquals(3, snapshots.size());
+            for (Map.Entry<String, HistogramSnapshot> entry : snapshots.entrySet()) {
+                wire.put((byte) entry.getKey().charAt(1));
+                entry.getValue().writeTo(wire);
+            }
+            json += boxPlot.mapHistograms(Object::toString).values().stream().mapToInt(String::length).sum();
+        }
+        assertTrue(wire.position() * 2 < json, wire.position() + " bytes, " + json + " chars of JSON");
+        wire.flip();
+        final BoxPlot<String, Long> central = BoxPlot.ofLong();
+        while (wire.hasRemaining()) {
+            final String group = "G" + (char) wire.get();
+            central.merge(group, HistogramSnapshot.read(wire));
+        }
+        assertEquals(expected.getSummaries().toString(), central.getSummaries().toString());
+        assertEquals(expected.getSummary().toString(), central.getSummary().toString());
+    }
+
+    @Test
+    void readOnly() {
+        final HistogramSnapshot snapshot = HistogramSnapshot.of(new ExactLongHistogram());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.record(Long.valueOf(1), 1L));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.recordLong(1L, 1L));
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.merge(new ExactLongHistogram()));
+    }
+
+    @Test
+    void truncated() {
+        final Bag<Long, Long> bag = new Bag<>(Long::sum);
+        bag.add(1L, 1L).add(1_000L, 2L);
+        final ByteBuffer buffer = ByteBuffer.allocate(64);
+        HistogramSnapshot.of(bag).writeTo(buffer);
+        buffer.flip();
+        final ByteBuffer truncated = ByteBuffer.wrap(Arrays.copyOf(buffer.array(), buffer.limit() - 1));
+        assertThrows(IllegalArgumentException.class, () -> HistogramSnapshot.read(truncated));
+        assertThrows(IllegalArgumentException.class, () -> HistogramSnapshot.read(ByteBuffer.allocate(0)));
+    }
+
+    @Test
+    void corrupted() {
+        assertEquals("{1=1, 3=2}", HistogramSnapshot.read(encode(2, 3, 2, 1, 2, 2)).toString());
+        assertCorrupted(encode(2, 4, 2, 1, 2, 2));
+        assertCorrupted(encode(1, 1, 2, 1, 2, 2));
+        assertCorrupted(encode(3, 3, 2, 1, 2, 2));
+        assertCorrupted(encode(2, 3, 2, 1, 0, 2));
+        assertCorrupted(encode(1, -1, 0, -1));
+        assertCorrupted(encode(2, -2, 0, Long.MAX_VALUE, 1, Long.MAX_VALUE));
+        assertCorrupted(encode(2, 2, 126, 1, Long.MIN_VALUE, 1));
+    }
+
+    // Encodes a snapshot from its header and the raw varints of its body.
+    private static ByteBuffer encode(long entries, long totalCount, long... body) {
+        final ByteBuffer encodedBody = ByteBuffer.allocate(10 * body.length);
+        for (long varint : body) {
+            writeVarint(encodedBody, varint);
+        }
+        encodedBody.flip();
+        final ByteBuffer buffer = ByteBuffer.allocate(30 + encodedBody.remaining());
+        writeVarint(buffer, entries);
+        writeVarint(buffer, totalCount);
+        writeVarint(buffer, encodedBody.remaining());
+        return buffer.put(encodedBody).flip();
+    }
+
+    private static void assertCorrupted(ByteBuffer encoded) {
+        assertThrows(IllegalArgumentException.class, () -> HistogramSnapshot.read(encoded));
+    }
+
+    private static void writeVarint(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+}
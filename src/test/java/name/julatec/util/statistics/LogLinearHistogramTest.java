@@ -0,0 +1,74 @@
+package name.julatec.util.statistics;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.LongBuffer;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LogLinearHistogramTest {
+
+    @Test
+    void getValueAtPercentile() {
+        final LogLinearHistogram histogram = new LogLinearHistogram(3_600_000_000L, 3);
+        final Random random = new Random(41);
+        final long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * 21);
+            histogram.recordLong(values[i], 1L);
+        }
+        Arrays.sort(values);
+        for (double percentile : new double[]{1, 25, 50, 75, 90, 99, 99.9}) {
+            final long expected = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            final long actual = histogram.getValueAtPercentile(percentile);
+            assertTrue(actual >= expected && actual - expected <= expected / 1_000,
+                    () -> "percentile " + percentile + ": expected " + expected + " but was " + actual);
+        }
+        assertEquals(values[values.length - 1], histogram.getValueAtPercentile(100));
+        assertEquals(values.length, histogram.getTotalCount());
+    }
+
+    @Test
+    void getSummary() {
+        final LogLinearHistogram histogram = new LogLinearHistogram(-50, 50, 2);
+        for (long value = -50; value <= 50; value++) {
+            histogram.recordLong(value, 1L);
+        }
+        assertEquals("[-50, -26, -1, 24, 50]", histogram.getSummary().map(FiveNumberSummary::toString).orElse(""));
+    }
+
+    @Test
+    void totalCountAhead() {
+        final LongBuffer state = LongBuffer.allocate(LogLinearHistogram.stateLength(0, 1_000, 2));
+        final LogLinearHistogram histogram = new LogLinearHistogram(0, 1_000, 2, state);
+        histogram.recordLong(10, 1L);
+        state.put(0, 5L);
+        assertEquals("[10, 10, 10, 10, 10]", histogram.getSummary().map(FiveNumberSummary::toString).orElse(""));
+        assertDoesNotThrow(() -> histogram.getValueAtPercentile(99));
+    }
+
+    @Test
+    void merge() {
+        final LogLinearHistogram histogram = new LogLinearHistogram(1_000_000, 2);
+        final LogLinearHistogram other = new LogLinearHistogram(1_000_000, 2);
+        histogram.recordLong(10, 2L);
+        other.recordLong(10, 3L);
+        other.recordLong(999_999, 1L);
+        histogram.merge(other);
+        histogram.merge(new ExactLongHistogram());
+        assertEquals(6, histogram.getTotalCount());
+        assertEquals(10, histogram.getValueAtPercentile(50));
+        assertEquals(999_999, histogram.getValueAtPercentile(100));
+    }
+
+    @Test
+    void outOfRange() {
+        final LogLinearHistogram histogram = new LogLinearHistogram(100, 200, 2);
+        assertThrows(IllegalArgumentException.class, () -> histogram.recordLong(99, 1L));
+        assertThrows(IllegalArgumentException.class, () -> histogram.recordLong(201, 1L));
+        assertThrows(IllegalArgumentException.class, () -> new LogLinearHistogram(Long.MIN_VALUE, Long.MAX_VALUE, 2));
+        assertFalse(histogram.getSummary().isPresent());
+    }
+}
@@ -0,0 +1,134 @@
+package name.julatec.util.statistics;
+
+import name.julatec.util.collection.Codec;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedHistogramStoreTest {
+
+    private static final Codec<String> CODEC = new Codec<>() {
+        @Override
+        public void write(DataOutput output, String value) throws IOException {
+            output.writeUTF(value);
+        }
+
+        @Override
+        public String read(DataInput input) throws IOException {
+            return input.readUTF();
+        }
+    };
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void reopen() throws IOException {
+        final Path path = directory.resolve("box-plot.hist");
+        final BoxPlot<String, Long> expected = BoxPlot.ofLogLinear(-1_000, 1_000, 3);
+        final Random random = new Random(47);
+        try (MappedHistogramStore<String> store = MappedHistogramStore.open(path, CODEC, -1_000, 1_000, 3)) {
+            final BoxPlot<String, Long> boxPlot = store.boxPlot();
+            for (int i = 0; i < 10_000; i++) {
+                final String group = "G" + random.nextInt(5);
+                final long value = (long) (random.nextGaussian() * 200);
+                boxPlot.record(group, value);
+                expected.record(group, value);
+            }
+            assertEquals(expected.getSummaries().toString(), boxPlot.getSummaries().toString());
+        }
+        try (MappedHistogramStore<String> store = MappedHistogramStore.open(path, CODEC, -1_000, 1_000, 3)) {
+            assertEquals("[G0, G1, G2, G3, G4]", store.groups().toString());
+            final BoxPlot<String, Long> boxPlot = store.boxPlot();
+            assertEquals(expected.getSummaries().toString(), boxPlot.getSummaries().toString());
+            assertEquals(expected.getSummary().toString(), boxPlot.getSummary().toString());
+            boxPlot.record("G5", 7L);
+            expected.record("G5", 7L);
+        }
+        try (MappedHistogramStore<String> store = MappedHistogramStore.open(path, CODEC, -1_000, 1_000, 3)) {
+            assertEquals(expected.getSummaries().toString(), store.boxPlot().getSummaries().toString());
+        }
+    }
+
+    @Test
+    void readOnly() throws IOException {
+        final Path path = directory.resolve("box-plot.hist");
+        try (MappedHistogramStore<String> writer = MappedHistogramStore.open(path, CODEC, 0, 10_000, 2)) {
+            writer.histogram("a").record(10L, 3L);
+            writer.force();
+            try (MappedHistogramStore<String> reader = MappedHistogramStore.openReadOnly(path, CODEC)) {
+                final LogLinearHistogram histogram = reader.histogram("a");
+                assertEquals(3, histogram.getTotalCount());
+                writer.histogram("a").record(20L, 1L);
+                assertEquals(4, histogram.getTotalCount());
+                assertEquals("[10, 10, 10, 10, 20]", histogram.getSummary().map(Object::toString).orElse(""));
+                assertThrows(UnsupportedOperationException.class, () -> histogram.recordLong(5L, 1L));
+                assertThrows(UnsupportedOperationException.class, () -> reader.histogram("b"));
+                writer.histogram("b").record(30L, 2L);
+                assertEquals(Set.of("a"), reader.groups());
+                reader.refresh();
+                assertEquals(Set.of("a", "b"), reader.groups());
+                assertEquals(2, reader.histogram("b").getTotalCount());
+                reader.refresh();
+                assertEquals(2, reader.groups().size());
+            }
+        }
+    }
+
+    @Test
+    void segments() throws IOException {
+        final Path path = directory.resolve("box-plot.hist");
+        try (MappedHistogramStore<String> store = MappedHistogramStore.open(path, CODEC, 0, 10_000, 2)) {
+            for (int group = 0; group < 2_000; group++) {
+                store.histogram("G" + group).record((long) group, 1L);
+            }
+            final Path file = path.toRealPath();
+            final Path maps = Path.of("/proc/self/maps");
+            if (Files.isReadable(maps)) {
+                final long mappings = Files.readAllLines(maps).stream()
+                        .filter(line -> line.endsWith(file.toString()))
+                        .count();
+                assertTrue(mappings <= 2, mappings + " mappings");
+            }
+        }
+        final Path small = directory.resolve("small.hist");
+        try (MappedHistogramStore<String> writer = MappedHistogramStore.open(small, CODEC, 0, 10_000, 2, 20_000)) {
+            for (int group = 0; group < 100; group++) {
+                writer.histogram("G" + group).record((long) group, group + 1L);
+            }
+            writer.force();
+            try (MappedHistogramStore<String> reader = MappedHistogramStore.openReadOnly(small, CODEC)) {
+                assertEquals(100, reader.groups().size());
+                for (int group = 0; group < 100; group++) {
+                    final LogLinearHistogram histogram = reader.histogram("G" + group);
+                    assertEquals(group + 1L, histogram.getTotalCount(), "G" + group);
+                    final String value = Long.toString(group);
+                    assertEquals("[" + String.join(", ", value, value, value, value, value) + "]",
+                            histogram.getSummary().map(Object::toString).orElse(""), "G" + group);
+                }
+            }
+        }
+        try (MappedHistogramStore<String> store = MappedHistogramStore.open(small, CODEC, 0, 10_000, 2)) {
+            assertEquals(100, store.histogram("G99").getTotalCount());
+        }
+    }
+
+    @Test
+    void invalid() throws IOException {
+        final Path path = directory.resolve("box-plot.hist");
+        MappedHistogramStore.open(path, CODEC, 0, 100, 2).close();
+        assertThrows(IllegalArgumentException.class, () -> MappedHistogramStore.open(path, CODEC, 0, 1_000, 2));
+        final Path other = Files.write(directory.resolve("other"), new byte[64]);
+        assertThrows(IOException.class, () -> MappedHistogramStore.openReadOnly(other, CODEC));
+        assertThrows(IOException.class, () -> MappedHistogramStore.open(other, CODEC, 0, 100, 2));
+    }
+}
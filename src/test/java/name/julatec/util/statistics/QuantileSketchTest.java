@@ -0,0 +1,76 @@
+package name.julatec.util.statistics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuantileSketchTest {
+
+    private static final double RELATIVE_ACCURACY = 0.01;
+
+    private static void assertRelative(double expected, double actual) {
+        assertTrue(Math.abs(expected - actual) <= RELATIVE_ACCURACY * Math.abs(expected) + 0.5,
+                () -> "expected " + expected + " but was " + actual);
+    }
+
+    private static void assertSummary(long[] values, FiveNumberSummary<Long> summary) {
+        Arrays.sort(values);
+        assertEquals(values[0], summary.min);
+        assertRelative(values[(int) (0.25 * values.length) - 1], summary.lowerQuartile);
+        assertRelative(values[(int) (0.50 * values.length) - 1], summary.median);
+        assertRelative(values[(int) (0.75 * values.length) - 1], summary.upperQuartile);
+        assertEquals(values[values.length - 1], summary.max);
+    }
+
+    @Test
+    void getSummary() {
+        final Random random = new Random(31);
+        final QuantileSketch<Long> sketch = QuantileSketch.ofLong(RELATIVE_ACCURACY);
+        final long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) (random.nextGaussian() * 100_000);
+            sketch.record(values[i], 1L);
+        }
+        assertEquals(values.length, sketch.getTotalCount());
+        assertSummary(values, sketch.getSummary().orElseThrow());
+    }
+
+    @Test
+    void merge() {
+        final Random random = new Random(37);
+        final QuantileSketch<Long> sketch = QuantileSketch.ofLong(RELATIVE_ACCURACY);
+        final QuantileSketch<Long> other = QuantileSketch.ofLong(RELATIVE_ACCURACY);
+        final long[] values = new long[20_000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * 20);
+            (i % 2 == 0 ? sketch : other).record(values[i], 1L);
+        }
+        sketch.merge(other);
+        assertEquals(values.length, sketch.getTotalCount());
+        assertSummary(values, sketch.getSummary().orElseThrow());
+    }
+
+    @Test
+    void collapse() {
+        final QuantileSketch<Double> sketch = new QuantileSketch<>(RELATIVE_ACCURACY, 16, Double::valueOf);
+        for (int i = 0; i < 1_000; i++) {
+            sketch.record(Math.pow(1.01, i), 1L);
+        }
+        final long[] buckets = new long[1];
+        sketch.forEach((value, count) -> buckets[0]++);
+        assertEquals(16, buckets[0]);
+        assertEquals(1_000, sketch.getTotalCount());
+        assertEquals(1.0, sketch.getSummary().orElseThrow().min);
+        assertEquals(Math.pow(1.01, 999), sketch.getSummary().orElseThrow().max);
+    }
+
+    @Test
+    void empty() {
+        assertFalse(QuantileSketch.ofDouble(RELATIVE_ACCURACY).getSummary().isPresent());
+        assertThrows(IllegalArgumentException.class, () -> QuantileSketch.ofDouble(0));
+        assertThrows(IllegalArgumentException.class, () -> QuantileSketch.ofDouble(0.1).record(Double.NaN, 1L));
+    }
+}
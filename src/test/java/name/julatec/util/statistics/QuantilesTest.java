@@ -0,0 +1,61 @@
+package name.julatec.util.statistics;
+
+import name.julatec.util.collection.Bag;
+import name.julatec.util.collection.RankedBag;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QuantilesTest {
+
+    private static final double[] RANKS = {0.5, 0.9, 0.99, 0.999, 0.9999};
+
+    @Test
+    void from() {
+        final Random random = new Random(47);
+        final long[] values = new long[100_000];
+        final Bag<Long, Long> bag = new Bag<>(Long::sum);
+        final RankedBag<Long> rankedBag = new RankedBag<>();
+        final ExactLongHistogram histogram = new ExactLongHistogram();
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) (random.nextGaussian() * 1_000);
+            bag.add(values[i], 1L);
+            rankedBag.increment(values[i], 1L);
+            histogram.record(values[i], 1L);
+        }
+        Arrays.sort(values);
+        final Quantiles<Long> quantiles = Quantiles.from(bag, (scalar, value) -> (long) (scalar * value), RANKS)
+                .orElseThrow();
+        for (double rank : RANKS) {
+            assertEquals(values[(int) (rank * values.length) - 1], quantiles.get(rank));
+        }
+        assertEquals(quantiles.toString(), Quantiles.from(rankedBag, RANKS).orElseThrow().toString());
+        assertEquals(quantiles.toString(), histogram.getQuantiles(RANKS).orElseThrow().toString());
+        assertEquals(quantiles.toString(), Quantiles.from(histogram, 0.9999, 0.99, 0.5, 0.999, 0.9).orElseThrow()
+                .toString());
+    }
+
+    @Test
+    void get() {
+        final Quantiles<String> quantiles = Quantiles.from(
+                new RankedBag<String>().increment("a", 1).increment("b", 1).increment("c", 2),
+                0.75, 0, 1).orElseThrow();
+        assertEquals("a", quantiles.get(0));
+        assertEquals("c", quantiles.get(0.75));
+        assertEquals("c", quantiles.get(1));
+        assertArrayEquals(new double[]{0, 0.75, 1}, quantiles.getRanks());
+        assertEquals("{0.0=a, 0.75=c, 1.0=c}", quantiles.toString());
+        assertEquals("{0.0=A, 0.75=C, 1.0=C}", quantiles.map(String::toUpperCase).toString());
+        assertThrows(IllegalArgumentException.class, () -> quantiles.get(0.5));
+        assertThrows(IllegalArgumentException.class, () -> Quantiles.from(new RankedBag<String>(), 1.5));
+    }
+
+    @Test
+    void empty() {
+        assertFalse(Quantiles.from(new ExactHistogram<String>(), RANKS).isPresent());
+        assertFalse(Quantiles.from(new Bag<String, Long>(Long::sum), (scalar, value) -> value, RANKS).isPresent());
+    }
+}
@@ -0,0 +1,59 @@
+package name.julatec.util.statistics;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WindowedBoxPlotTest {
+
+    private static final long SECOND = Duration.ofSeconds(1).toNanos();
+
+    @Test
+    void window() {
+        final AtomicLong clock = new AtomicLong();
+        final WindowedBoxPlot<String, Long> boxPlot = new WindowedBoxPlot<>(
+                Duration.ofSeconds(1), 3, ExactLongHistogram::new, clock::get);
+        assertEquals(Duration.ofSeconds(3), boxPlot.getWindow());
+        for (long second = 0; second < 5; second++) {
+            clock.set(second * SECOND);
+            for (long value = 1; value <= 5; value++) {
+                boxPlot.record("a", second * 10 + value);
+            }
+            boxPlot.record("b", second);
+        }
+        assertEquals("[2, 21, 31, 35, 45]", boxPlot.getSummary().map(FiveNumberSummary::toString).orElse(""));
+        assertEquals("[2, 2, 2, 3, 4]",
+                boxPlot.getSummaries().get("b").map(FiveNumberSummary::toString).orElse(""));
+        clock.set(6 * SECOND + 1);
+        assertEquals("[4, 4, 42, 43, 45]", boxPlot.getSummary().map(FiveNumberSummary::toString).orElse(""));
+        assertEquals("[41, 41, 42, 43, 45]",
+                boxPlot.getSummaries().get("a").map(FiveNumberSummary::toString).orElse(""));
+        assertEquals("{0.5=42}", boxPlot.getQuantiles(0.5).map(Quantiles::toString).orElse(""));
+        clock.set(7 * SECOND);
+        assertFalse(boxPlot.getSummary().isPresent());
+        assertTrue(boxPlot.getSummaries().isEmpty());
+    }
+
+    @Test
+    void concurrent() {
+        final AtomicLong clock = new AtomicLong();
+        final WindowedBoxPlot<Integer, Long> boxPlot = new WindowedBoxPlot<>(
+                Duration.ofSeconds(1), 4, ExactLongHistogram::new, () -> clock.get() / 1_000 * SECOND);
+        IntStream.range(0, 8_000).parallel().forEach(i -> {
+            clock.incrementAndGet();
+            boxPlot.record(Integer.valueOf(i % 4), (long) i);
+        });
+        assertEquals(4, boxPlot.snapshot().getSummaries().size());
+    }
+
+    @Test
+    void invalid() {
+        assertThrows(IllegalArgumentException.class, () -> new WindowedBoxPlot<String, Long>(Duration.ZERO, 1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new WindowedBoxPlot<String, Long>(Duration.ofSeconds(1), 0));
+    }
+}